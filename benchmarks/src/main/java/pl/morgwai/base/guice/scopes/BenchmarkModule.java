@@ -0,0 +1,118 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+
+/**
+ * {@link ScopeModule} with 4 {@link ContextScope}s and 1 {@link InducedContextScope} used by all
+ * benchmarks.
+ * Benchmarks are placed in the same package as the benchmarked classes, so that they can
+ * {@link #enterAll(List) enter Contexts} in {@code @Setup} methods without wrapping the measured
+ * code.
+ */
+public class BenchmarkModule extends ScopeModule {
+
+
+
+	public static class FirstContext extends TrackableContext<FirstContext> {
+		final InducedContext inducedCtx = new InducedContext();
+		public InducedContext getInducedCtx() { return inducedCtx; }
+		FirstContext(ContextTracker<FirstContext> tracker) { super(tracker); }
+		private static final long serialVersionUID = -3008737959996344541L;
+	}
+
+	public static class SecondContext extends TrackableContext<SecondContext> {
+		SecondContext(ContextTracker<SecondContext> tracker) { super(tracker); }
+		private static final long serialVersionUID = 5424502359991143865L;
+	}
+
+	public static class ThirdContext extends TrackableContext<ThirdContext> {
+		ThirdContext(ContextTracker<ThirdContext> tracker) { super(tracker); }
+		private static final long serialVersionUID = -3893658993348247267L;
+	}
+
+	public static class FourthContext extends TrackableContext<FourthContext> {
+		FourthContext(ContextTracker<FourthContext> tracker) { super(tracker); }
+		private static final long serialVersionUID = 1932849904056821673L;
+	}
+
+	public static class InducedContext extends InjectionContext {
+		private static final long serialVersionUID = -1191352492987539445L;
+	}
+
+
+
+	public final ContextScope<FirstContext> firstScope =
+			newContextScope("firstScope", FirstContext.class);
+	public final ContextScope<SecondContext> secondScope =
+			newContextScope("secondScope", SecondContext.class);
+	public final ContextScope<ThirdContext> thirdScope =
+			newContextScope("thirdScope", ThirdContext.class);
+	public final ContextScope<FourthContext> fourthScope =
+			newContextScope("fourthScope", FourthContext.class);
+	public final InducedContextScope<FirstContext, InducedContext> inducedScope =
+			newInducedContextScope(
+				"inducedScope",
+				InducedContext.class,
+				firstScope,
+				FirstContext::getInducedCtx
+			);
+
+
+
+	public BenchmarkModule(ScopeModule.Options options) {
+		super(options);
+	}
+
+	public BenchmarkModule(boolean shareContextFrame) {
+		this(new ScopeModule.Options().shareContextFrame(shareContextFrame));
+	}
+
+
+
+	/** Returns {@link ContextTracker}s of the first {@code count} {@link ContextScope}s. */
+	public List<ContextTracker<?>> getTrackers(int count) {
+		return List.<ContextTracker<?>>of(
+			firstScope.tracker,
+			secondScope.tracker,
+			thirdScope.tracker,
+			fourthScope.tracker
+		).subList(0, count);
+	}
+
+
+
+	/** Creates new {@code Contexts} for the first {@code count} {@link ContextScope}s. */
+	public List<TrackableContext<?>> newContexts(int count) {
+		final var contexts = new ArrayList<TrackableContext<?>>(count);
+		contexts.add(new FirstContext(firstScope.tracker));
+		if (count > 1) contexts.add(new SecondContext(secondScope.tracker));
+		if (count > 2) contexts.add(new ThirdContext(thirdScope.tracker));
+		if (count > 3) contexts.add(new FourthContext(fourthScope.tracker));
+		return List.copyOf(contexts);
+	}
+
+
+
+	/**
+	 * Sets all {@code contexts} as current for the calling {@code Thread} until
+	 * {@link #clearAll(List)} is called.
+	 */
+	public static void enterAll(List<TrackableContext<?>> contexts) {
+		for (var ctx: contexts) enter(ctx);
+	}
+
+	static <ContextT extends TrackableContext<ContextT>> void enter(TrackableContext<?> ctx) {
+		@SuppressWarnings("unchecked")
+		final var typedCtx = (ContextT) ctx;
+		typedCtx.getTracker().setCurrentContext(typedCtx);
+	}
+
+	/** Clears {@code contexts} {@link #enterAll(List) entered} by the calling {@code Thread}. */
+	public static void clearAll(List<TrackableContext<?>> contexts) {
+		for (var ctx: contexts) ctx.getTracker().clearCurrentContext();
+	}
+}
@@ -0,0 +1,36 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+
+/**
+ * Runs benchmarks matching a regex given as the first argument (all by default) once for each
+ * thread count given as the subsequent arguments ({@code 1 2 4} by default), reporting allocation
+ * rates alongside throughput.
+ */
+public class BenchmarkRunner {
+
+
+
+	public static void main(String[] args) throws RunnerException {
+		final var include = args.length > 0 ? args[0] : ".*Benchmarks.*";
+		final var threadCounts = args.length > 1 ? new String[args.length - 1] : new String[] {
+			"1", "2", "4"
+		};
+		if (args.length > 1) System.arraycopy(args, 1, threadCounts, 0, threadCounts.length);
+		for (var threadCount: threadCounts) {
+			new Runner(
+				new OptionsBuilder()
+					.include(include)
+					.threads(Integer.parseInt(threadCount))
+					.addProfiler(GCProfiler.class)
+					.build()
+			).run();
+		}
+	}
+}
@@ -0,0 +1,106 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.function.*;
+
+import org.openjdk.jmh.annotations.*;
+import pl.morgwai.base.function.*;
+
+
+
+/** Binding of each closure type with {@link ContextBinder}. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContextBinderBenchmarks {
+
+
+
+	@Param({"1", "4"})
+	public int ctxCount;
+
+	@Param({"false", "true"})
+	public boolean shareContextFrame;
+
+	ContextBinder ctxBinder;
+	List<TrackableContext<?>> contexts;
+
+	final Runnable runnable = () -> {};
+	final Callable<Object> callable = () -> null;
+	final ThrowingTask<Exception, RuntimeException> throwingTask = () -> {};
+	final ThrowingComputation<Object, Exception, RuntimeException>
+			throwingComputation = () -> null;
+	final Consumer<Object> consumer = (param) -> {};
+	final BiConsumer<Object, Object> biConsumer = (param1, param2) -> {};
+	final Function<Object, Object> function = (param) -> param;
+	final BiFunction<Object, Object, Object> biFunction = (param1, param2) -> param1;
+	final Supplier<Object> supplier = () -> null;
+
+
+
+	@Setup(Level.Iteration)
+	public void enterContexts() {
+		final var module = new BenchmarkModule(shareContextFrame);
+		ctxBinder = new ContextBinder(module.getTrackers(ctxCount));
+		contexts = module.newContexts(ctxCount);
+		BenchmarkModule.enterAll(contexts);
+	}
+
+	@TearDown(Level.Iteration)
+	public void clearContexts() {
+		BenchmarkModule.clearAll(contexts);
+	}
+
+
+
+	@Benchmark
+	public Object bindRunnable() {
+		return ctxBinder.bindToContext(runnable);
+	}
+
+	@Benchmark
+	public Object bindCallable() {
+		return ctxBinder.bindToContext(callable);
+	}
+
+	@Benchmark
+	public Object bindThrowingTask() {
+		return ctxBinder.bindToContext(throwingTask);
+	}
+
+	@Benchmark
+	public Object bindThrowingComputation() {
+		return ctxBinder.bindToContext(throwingComputation);
+	}
+
+	@Benchmark
+	public Object bindConsumer() {
+		return ctxBinder.bindToContext(consumer);
+	}
+
+	@Benchmark
+	public Object bindBiConsumer() {
+		return ctxBinder.bindToContext(biConsumer);
+	}
+
+	@Benchmark
+	public Object bindFunction() {
+		return ctxBinder.bindToContext(function);
+	}
+
+	@Benchmark
+	public Object bindBiFunction() {
+		return ctxBinder.bindToContext(biFunction);
+	}
+
+	@Benchmark
+	public Object bindSupplier() {
+		return ctxBinder.bindSupplierToContext(supplier);
+	}
+}
@@ -0,0 +1,106 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.google.inject.Key;
+import com.google.inject.OutOfScopeException;
+import com.google.inject.Provider;
+import org.openjdk.jmh.annotations.*;
+
+
+
+/** Provisioning of scoped {@code Objects} from {@link ContextScope}s. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContextScopeBenchmarks {
+
+
+
+	static final Key<Object> KEY = Key.get(Object.class);
+
+	@Param({"false", "true"})
+	public boolean shareContextFrame;
+
+	@Param({"false", "true"})
+	public boolean indexScopedObjects;
+
+	@Param({"false", "true"})
+	public boolean cacheScopedObjects;
+
+	/** Whether a {@link ProvisioningMetrics} listener is registered. */
+	@Param({"false", "true"})
+	public boolean collectMetrics;
+
+	List<TrackableContext<?>> contexts;
+	Provider<Object> scopedProvider;
+	Provider<Object> inducedScopedProvider;
+
+
+
+	@Setup(Level.Iteration)
+	public void enterContexts() {
+		final var module = new BenchmarkModule(new ScopeModule.Options()
+			.shareContextFrame(shareContextFrame)
+			.indexScopedObjects(indexScopedObjects)
+			.cacheScopedObjects(cacheScopedObjects)
+		);
+		if (collectMetrics) module.setProvisioningListener(new ProvisioningMetrics());
+		final Provider<Object> producer = Object::new;
+		scopedProvider = module.firstScope.scope(KEY, producer);
+		inducedScopedProvider = module.inducedScope.scope(KEY, producer);
+		contexts = module.newContexts(4);
+		BenchmarkModule.enterAll(contexts);
+	}
+
+	@TearDown(Level.Iteration)
+	public void clearContexts() {
+		BenchmarkModule.clearAll(contexts);
+	}
+
+
+
+	/** Provisioning of an already scoped {@code Object}. */
+	@Benchmark
+	public Object provisionHit() {
+		return scopedProvider.get();
+	}
+
+
+
+	/** Removal of a scoped {@code Object} followed by provisioning of a new one. */
+	@Benchmark
+	public Object provisionMiss() {
+		contexts.get(0).removeScopedObject(KEY);
+		return scopedProvider.get();
+	}
+
+
+
+	/** Provisioning from a {@code Thread} running outside of any {@code Context} of the scope. */
+	@Benchmark
+	public Object provisionOutOfScope() {
+		final var ctx = contexts.get(0);
+		ctx.getTracker().clearCurrentContext();
+		try {
+			return scopedProvider.get();
+		} catch (OutOfScopeException expected) {
+			return expected;
+		} finally {
+			BenchmarkModule.enter(ctx);
+		}
+	}
+
+
+
+	/** Provisioning of an already scoped {@code Object} from an {@link InducedContextScope}. */
+	@Benchmark
+	public Object provisionInducedHit() {
+		return inducedScopedProvider.get();
+	}
+}
@@ -0,0 +1,59 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+
+
+/** Capturing of active {@code Contexts} with 1-4 {@link ContextTracker}s. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContextTrackerBenchmarks {
+
+
+
+	@Param({"1", "2", "3", "4"})
+	public int trackerCount;
+
+	@Param({"false", "true"})
+	public boolean shareContextFrame;
+
+	List<ContextTracker<?>> trackers;
+	List<TrackableContext<?>> contexts;
+
+
+
+	@Setup(Level.Iteration)
+	public void enterContexts() {
+		final var module = new BenchmarkModule(shareContextFrame);
+		trackers = module.getTrackers(trackerCount);
+		contexts = module.newContexts(trackerCount);
+		BenchmarkModule.enterAll(contexts);
+	}
+
+	@TearDown(Level.Iteration)
+	public void clearContexts() {
+		BenchmarkModule.clearAll(contexts);
+	}
+
+
+
+	@Benchmark
+	public List<TrackableContext<?>> getActiveContexts() {
+		return ContextTracker.getActiveContexts(trackers);
+	}
+
+
+
+	@Benchmark
+	public ContextSnapshot captureSnapshot() {
+		return ContextSnapshot.capture(trackers);
+	}
+}
@@ -0,0 +1,81 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.util.List;
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+
+
+
+/**
+ * Round-trips of tasks passed to a {@link ContextTrackingExecutor} wrapping a thread pool: each
+ * operation consists of binding a task, executing it within the transferred {@code Contexts} on a
+ * pool {@code Thread} and awaiting its completion.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContextTrackingExecutorBenchmarks {
+
+
+
+	@State(Scope.Benchmark)
+	public static class SharedExecutor {
+
+		@Param({"1", "4"})
+		public int ctxCount;
+
+		@Param({"false", "true"})
+		public boolean shareContextFrame;
+
+		BenchmarkModule module;
+		ExecutorService pool;
+		ContextTrackingExecutor executor;
+
+		@Setup
+		public void setup() {
+			module = new BenchmarkModule(shareContextFrame);
+			pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+			executor = ContextTrackingExecutor.of(pool, module.newContextBinder());
+		}
+
+		@TearDown
+		public void shutdown() throws InterruptedException {
+			pool.shutdown();
+			pool.awaitTermination(5L, TimeUnit.SECONDS);
+		}
+	}
+
+
+
+	@State(Scope.Thread)
+	public static class ThreadState {
+
+		List<TrackableContext<?>> contexts;
+		final Semaphore completed = new Semaphore(0);
+		final Runnable task = completed::release;
+
+		@Setup(Level.Iteration)
+		public void enterContexts(SharedExecutor shared) {
+			contexts = shared.module.newContexts(shared.ctxCount);
+			BenchmarkModule.enterAll(contexts);
+		}
+
+		@TearDown(Level.Iteration)
+		public void clearContexts() {
+			BenchmarkModule.clearAll(contexts);
+		}
+	}
+
+
+
+	@Benchmark
+	public void executeRoundTrip(SharedExecutor shared, ThreadState state)
+			throws InterruptedException {
+		shared.executor.execute(state.task);
+		state.completed.acquire();
+	}
+}
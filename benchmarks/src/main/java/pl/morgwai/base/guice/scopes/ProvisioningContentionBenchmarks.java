@@ -0,0 +1,105 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.inject.Key;
+import com.google.inject.Provider;
+import com.google.inject.name.Names;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+
+/**
+ * Provisioning of scoped {@code Objects} by several {@code Threads} running within the same
+ * {@code Context}, with producers of a given cost.
+ * Each {@code Thread} cycles through {@link #KEY_COUNT} {@code Keys}, so that concurrent
+ * provisionings of different {@code Keys} (that may share a hash bin of the {@code Context}'s
+ * map) as well as of the same {@code Key} occur.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class ProvisioningContentionBenchmarks {
+
+
+
+	static final int KEY_COUNT = 16;
+	static final Key<?>[] KEYS = new Key<?>[KEY_COUNT];
+	static {
+		for (int i = 0; i < KEY_COUNT; i++) KEYS[i] = Key.get(Object.class, Names.named("k" + i));
+	}
+
+	/** Returns {@code KEYS[i]}, all of which are {@code Keys} of {@code Object}. */
+	static Key<Object> key(int i) {
+		@SuppressWarnings("unchecked")
+		final var key = (Key<Object>) KEYS[i];
+		return key;
+	}
+
+	@Param({"false", "true"})
+	public boolean indexScopedObjects;
+
+	/** Cost of each producer call in {@link Blackhole#consumeCPU(long)} tokens. */
+	@Param({"0", "1000"})
+	public long producerCost;
+
+	InjectionContext ctx;
+	ScopedObjectSlots slots;
+	final int[] slotIndexes = new int[KEY_COUNT];
+	Provider<Object> producer;
+
+
+
+	@Setup(Level.Iteration)
+	public void createCtx() {
+		ctx = new BenchmarkModule.InducedContext();
+		if (indexScopedObjects) {
+			slots = new ScopedObjectSlots();
+			for (int i = 0; i < KEY_COUNT; i++) slotIndexes[i] = slots.assign(KEYS[i]);
+		} else {
+			slots = null;
+		}
+		final var cost = producerCost;
+		producer = () -> {
+			Blackhole.consumeCPU(cost);
+			return new Object();
+		};
+	}
+
+
+
+	/** Per-{@code Thread} position in {@link #KEYS}. */
+	@State(Scope.Thread)
+	public static class Cursor {
+		int next;
+		int advance() { return next = (next + 1) % KEY_COUNT; }
+	}
+
+
+
+	/** Provisioning of already scoped {@code Objects}. */
+	@Benchmark
+	public Object provisionHit(Cursor cursor) {
+		final var i = cursor.advance();
+		return ctx.produceIfAbsent(slots, slotIndexes[i], key(i), producer);
+	}
+
+
+
+	/**
+	 * Removal of a scoped {@code Object} followed by provisioning of a new one, so that producers
+	 * of the same and of different {@code Keys} run concurrently.
+	 */
+	@Benchmark
+	public Object provisionMiss(Cursor cursor) {
+		final var i = cursor.advance();
+		ctx.removeScopedObject(KEYS[i]);
+		return ctx.produceIfAbsent(slots, slotIndexes[i], key(i), producer);
+	}
+}
@@ -0,0 +1,95 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import com.google.inject.Key;
+import com.google.inject.name.Names;
+import org.openjdk.jmh.annotations.*;
+
+
+
+/**
+ * Standard Java serialization of an {@link InjectionContext} with several scoped {@code ArrayLists}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmarks {
+
+
+
+	public static class SessionContext extends InjectionContext {
+		private static final long serialVersionUID = 4120164358617123307L;
+	}
+
+	/** Element of scoped {@code ArrayLists}, resembling a shopping cart item. */
+	public static class Item implements Serializable {
+		final String name;
+		final long price;
+		Item(String name, long price) {
+			this.name = name;
+			this.price = price;
+		}
+		private static final long serialVersionUID = 2946251457346116453L;
+	}
+
+	/** Scoped object that fails to serialize. */
+	public static class NonSerializableHolder implements Serializable {
+		final Object ref = new Object();
+		private static final long serialVersionUID = -5829117413301418011L;
+	}
+
+
+
+	@Param({"10", "100"})
+	public int scopedObjectCount;
+
+	/** Number of {@link Item}s in each scoped {@code ArrayList}. */
+	@Param({"100"})
+	public int itemCount;
+
+	/** Number of scoped objects that fail to serialize. */
+	@Param({"0", "1"})
+	public int failingCount;
+
+	SessionContext ctx;
+	final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+
+
+	@Setup
+	public void setup() {
+		ctx = new SessionContext();
+		for (int i = 0; i < scopedObjectCount; i++) {
+			final var items = new ArrayList<Item>(itemCount);
+			for (int j = 0; j < itemCount; j++) items.add(new Item("item-" + i + '-' + j, j));
+			ctx.produceIfAbsent(
+				Key.get(ArrayList.class, Names.named(String.valueOf(i))),
+				() -> items
+			);
+		}
+		for (int i = 0; i < failingCount; i++) {
+			ctx.produceIfAbsent(
+				Key.get(NonSerializableHolder.class, Names.named(String.valueOf(i))),
+				NonSerializableHolder::new
+			);
+		}
+	}
+
+
+
+	@Benchmark
+	public int serialize() throws IOException {
+		buffer.reset();
+		try (final var serializedObjects = new ObjectOutputStream(buffer)) {
+			serializedObjects.writeObject(ctx);
+		}
+		return buffer.size();
+	}
+}
@@ -0,0 +1,86 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+
+/**
+ * Entering of a {@code Context} tracked by a {@link ThreadLocal} several times on a short-lived
+ * {@code Thread}, compared with the 2 ways of clearing a raw {@link ThreadLocal} afterwards.
+ * Each operation starts a new {@code Thread} (platform one, as the benchmarks target Java 11),
+ * so the absolute numbers are dominated by the {@code Thread} start: only differences between the
+ * benchmarks are meaningful.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ThreadLocalClearingBenchmarks {
+
+
+
+	@Param({"1", "10", "1000"})
+	public int entriesPerThread;
+
+	final ThreadLocal<Object> threadLocal = new ThreadLocal<>();
+	BenchmarkModule.FirstContext ctx;
+
+
+
+	@Setup
+	public void setup() {
+		ctx = (BenchmarkModule.FirstContext) new BenchmarkModule(false).newContexts(1).get(0);
+	}
+
+
+
+	static void runOnNewThread(Runnable task) throws InterruptedException {
+		final var thread = new Thread(task);
+		thread.start();
+		thread.join();
+	}
+
+
+
+	/** {@link ContextTracker}'s way: the entry is removed after each execution. */
+	@Benchmark
+	public void executeWithinSelf(Blackhole blackhole) throws InterruptedException {
+		final Runnable consume = () -> blackhole.consume(this);
+		runOnNewThread(() -> {
+			for (int i = 0; i < entriesPerThread; i++) ctx.executeWithinSelf(consume);
+		});
+	}
+
+
+
+	@Benchmark
+	public void setAndRemove(Blackhole blackhole) throws InterruptedException {
+		runOnNewThread(() -> {
+			for (int i = 0; i < entriesPerThread; i++) {
+				threadLocal.set(ctx);
+				blackhole.consume(threadLocal.get());
+				threadLocal.remove();
+			}
+		});
+	}
+
+
+
+	/** Keeps the entry of each {@code Thread} until the {@code Thread} exits. */
+	@Benchmark
+	public void setAndSetNull(Blackhole blackhole) throws InterruptedException {
+		runOnNewThread(() -> {
+			for (int i = 0; i < entriesPerThread; i++) {
+				threadLocal.set(ctx);
+				blackhole.consume(threadLocal.get());
+				threadLocal.set(null);
+			}
+		});
+	}
+}
@@ -0,0 +1,62 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+
+/** Entering of {@code Contexts} on a {@code Thread} that was not running within any. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrackableContextBenchmarks {
+
+
+
+	@Param({"1", "2", "3", "4"})
+	public int ctxCount;
+
+	@Param({"false", "true"})
+	public boolean shareContextFrame;
+
+	/** Whether executions are counted for deferred disposal of closed {@code Contexts}. */
+	@Param({"false", "true"})
+	public boolean trackExecutions;
+
+	List<TrackableContext<?>> contexts;
+	ContextSnapshot snapshot;
+	Runnable task;
+
+
+
+	@Setup
+	public void setup(Blackhole blackhole) {
+		contexts = new BenchmarkModule(new ScopeModule.Options()
+			.shareContextFrame(shareContextFrame)
+			.trackExecutions(trackExecutions)
+		).newContexts(ctxCount);
+		snapshot = ContextSnapshot.of(contexts);
+		task = () -> blackhole.consume(this);
+	}
+
+
+
+	@Benchmark
+	public void executeWithinAll() {
+		TrackableContext.executeWithinAll(contexts, task);
+	}
+
+
+
+	@Benchmark
+	public void executeWithinSnapshot() {
+		snapshot.executeWithin(task);
+	}
+}
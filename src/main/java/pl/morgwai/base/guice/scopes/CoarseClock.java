@@ -0,0 +1,63 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.util.concurrent.*;
+
+
+
+/**
+ * Clock of {@link #TICK_MILLIS}-long ticks, that can be read with a single volatile read instead
+ * of a {@link System#nanoTime()} call.
+ * Ticks are counted by a periodic task of the {@link ScheduledExecutorService} passed to
+ * {@link #CoarseClock(ScheduledExecutorService)} until the clock is {@link #stop() stopped}
+ * (clocks created with {@link #CoarseClock()} tick only when {@link #tick()} is called). Tick
+ * values wrap around after about 248 days, so they must be compared only by their differences.
+ * {@code 0} is never returned, so that it may be used as a "never" marker.
+ */
+final class CoarseClock {
+
+
+
+	static final long TICK_MILLIS = 10L;
+
+	private volatile int now = 1;
+
+	/** Returns the current tick. */
+	int now() {
+		return now;
+	}
+
+
+
+	/** {@code null} for manually ticked clocks. */
+	final ScheduledFuture<?> ticking;
+
+
+
+	/** Starts ticking on {@code scheduler}. */
+	CoarseClock(ScheduledExecutorService scheduler) {
+		ticking = scheduler.scheduleAtFixedRate(
+				this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	/** Creates a clock that ticks only when {@link #tick()} is called, for tests. */
+	CoarseClock() {
+		ticking = null;
+	}
+
+	/**
+	 * Called only by {@link #ticking}, executions of which never overlap, or by a single
+	 * {@code Thread} in case of manually ticked clocks.
+	 */
+	void tick() {
+		final var next = now + 1;
+		now = next != 0 ? next : 1;
+	}
+
+
+
+	/** Stops ticking: {@link #now()} will keep returning the last tick. */
+	void stop() {
+		if (ticking != null) ticking.cancel(false);
+	}
+}
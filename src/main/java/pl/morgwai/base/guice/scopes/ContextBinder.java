@@ -1,13 +1,14 @@
 // Copyright 2023 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
 package pl.morgwai.base.guice.scopes;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.function.*;
 
 import pl.morgwai.base.function.*;
 
-import static pl.morgwai.base.guice.scopes.ContextTracker.getActiveContexts;
 
 
 
@@ -28,6 +29,10 @@ import static pl.morgwai.base.guice.scopes.ContextTracker.getActiveContexts;
  *         }));
  *     }
  * }</pre>
+ * <p>
+ * Active {@code Contexts} are {@link ContextSnapshot#capture(List) captured} as a
+ * {@link ContextSnapshot}, that is shared by all closures bound within the same set of
+ * {@code Contexts} whenever possible.</p>
  */
 public class ContextBinder {
 
@@ -43,8 +48,85 @@ public class ContextBinder {
 
 
 
+	/**
+	 * Captures {@code Contexts} active for the calling {@code Thread} as tracked by
+	 * {@link #trackers}.
+	 */
+	protected ContextSnapshot captureSnapshot() {
+		final var snapshot = ContextSnapshot.capture(trackers);
+		ContextEvents.emitContextBinding(snapshot);
+		return snapshot;
+	}
+
+
+
+	/**
+	 * Captures {@code Contexts} active for the calling {@code Thread} once and returns a
+	 * {@link SnapshotBinder} that binds any number of closures to them without repeating the
+	 * capture.
+	 * This is useful when registering many callbacks at once, for example listeners, timeouts and
+	 * completion handlers of a single call:
+	 * <pre>
+	 * final var binder = ctxBinder.captureBinder();
+	 * call.addListener(binder.bindToContext(listener));
+	 * timer.schedule(binder.bindToContext(timeoutHandler), timeout);
+	 * future.whenComplete(binder.bindToContext(completionHandler));</pre>
+	 */
+	public SnapshotBinder captureBinder() {
+		return new SnapshotBinder(trackers, captureSnapshot());
+	}
+
+
+
+	/**
+	 * Binds all {@code tasks} to a single {@link ContextSnapshot} captured once.
+	 * Used by {@link ContextTrackingExecutor}s for batch submissions, such as
+	 * {@link java.util.concurrent.ExecutorService#invokeAll(Collection) invokeAll(tasks)}.
+	 */
+	<T> List<Callable<T>> bindAllToContext(Collection<? extends Callable<T>> tasks) {
+		final var snapshot = captureSnapshot();
+		final var boundTasks = new ArrayList<Callable<T>>(tasks.size());
+		for (var task: tasks) {
+			final var computation = ThrowingComputation.of(task);
+			boundTasks.add(() -> snapshot.executeWithin(computation));
+		}
+		return boundTasks;
+	}
+
+
+
+	/**
+	 * {@link ContextBinder} that binds all closures to a fixed {@link ContextSnapshot}, regardless
+	 * of {@code Contexts} active at the time of a given binding.
+	 * @see #captureBinder()
+	 */
+	public static class SnapshotBinder extends ContextBinder {
+
+		public ContextSnapshot getSnapshot() { return snapshot; }
+		public final ContextSnapshot snapshot;
+
+		public SnapshotBinder(List<ContextTracker<?>> trackers, ContextSnapshot snapshot) {
+			super(trackers);
+			this.snapshot = snapshot;
+		}
+
+		/** Returns {@link #snapshot}. */
+		@Override
+		protected ContextSnapshot captureSnapshot() {
+			return snapshot;
+		}
+
+		/** Returns {@code this}: a {@code SnapshotBinder} is already bound to a snapshot. */
+		@Override
+		public SnapshotBinder captureBinder() {
+			return this;
+		}
+	}
+
+
+
 	public ContextBoundRunnable bindToContext(Runnable runnableToBind) {
-		return new ContextBoundRunnable(getActiveContexts(trackers), runnableToBind);
+		return new ContextBoundRunnable(captureSnapshot(), runnableToBind);
 	}
 
 
@@ -54,7 +136,7 @@ public class ContextBinder {
 	> ContextBoundThrowingTask<E1, E2, E3, E4> bindToContext(
 		Throwing4Task<E1, E2, E3, E4> taskToBind
 	) {
-		return new ContextBoundThrowingTask<>(getActiveContexts(trackers), taskToBind);
+		return new ContextBoundThrowingTask<>(captureSnapshot(), taskToBind);
 	}
 
 
@@ -65,7 +147,7 @@ public class ContextBinder {
 		Throwing4Computation<R, E1, E2, E3, E4> computationToBind
 	) {
 		return new ContextBoundThrowingComputation<>(
-			getActiveContexts(trackers),
+			captureSnapshot(),
 			computationToBind
 		);
 	}
@@ -76,7 +158,7 @@ public class ContextBinder {
 		R, Exception, RuntimeException, RuntimeException, RuntimeException
 	> bindToContext(Callable<R> callableToBind) {
 		return new ContextBoundThrowingComputation<>(
-			getActiveContexts(trackers),
+			captureSnapshot(),
 			ThrowingComputation.of(callableToBind)
 		);
 	}
@@ -84,19 +166,19 @@ public class ContextBinder {
 
 
 	public <T> ContextBoundConsumer<T> bindToContext(Consumer<T> consumerToBind) {
-		return new ContextBoundConsumer<>(getActiveContexts(trackers), consumerToBind);
+		return new ContextBoundConsumer<>(captureSnapshot(), consumerToBind);
 	}
 
 
 
 	public <T, U> ContextBoundBiConsumer<T, U> bindToContext(BiConsumer<T, U> biConsumerToBind) {
-		return new ContextBoundBiConsumer<>(getActiveContexts(trackers), biConsumerToBind);
+		return new ContextBoundBiConsumer<>(captureSnapshot(), biConsumerToBind);
 	}
 
 
 
 	public <T, R> ContextBoundFunction<T, R> bindToContext(Function<T, R> functionToBind) {
-		return new ContextBoundFunction<>(getActiveContexts(trackers), functionToBind);
+		return new ContextBoundFunction<>(captureSnapshot(), functionToBind);
 	}
 
 
@@ -104,13 +186,13 @@ public class ContextBinder {
 	public <T, U, R> ContextBoundBiFunction<T, U, R> bindToContext(
 		BiFunction<T, U, R> biFunctionToBind
 	) {
-		return new ContextBoundBiFunction<>(getActiveContexts(trackers), biFunctionToBind);
+		return new ContextBoundBiFunction<>(captureSnapshot(), biFunctionToBind);
 	}
 
 
 
 	// Callable and Supplier have indistinguishable lambdas, hence a different method name
 	public <T> ContextBoundSupplier<T> bindSupplierToContext(Supplier<T> supplierToBind) {
-		return new ContextBoundSupplier<>(getActiveContexts(trackers), supplierToBind);
+		return new ContextBoundSupplier<>(captureSnapshot(), supplierToBind);
 	}
 }
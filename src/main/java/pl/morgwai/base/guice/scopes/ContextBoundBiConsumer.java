@@ -21,13 +21,17 @@ public class ContextBoundBiConsumer<T, U> extends ContextBoundClosure<BiConsumer
 		super(contexts, consumerToBind);
 	}
 
+	public ContextBoundBiConsumer(
+		ContextSnapshot snapshot,
+		BiConsumer<T, U> consumerToBind
+	) {
+		super(snapshot, consumerToBind);
+	}
+
 
 
 	@Override
 	public void accept(T param1, U param2) {
-		TrackableContext.executeWithinAll(
-			contexts,
-			ThrowingTask.of(boundClosure, param1, param2)
-		);
+		snapshot.executeWithin(ThrowingTask.of(boundClosure, param1, param2));
 	}
 }
@@ -21,13 +21,17 @@ public class ContextBoundBiFunction<T, U, R> extends ContextBoundClosure<BiFunct
 		super(contexts, biFunctionToBind);
 	}
 
+	protected ContextBoundBiFunction(
+		ContextSnapshot snapshot,
+		BiFunction<T, U, R> biFunctionToBind
+	) {
+		super(snapshot, biFunctionToBind);
+	}
+
 
 
 	@Override
 	public R apply(T param1, U param2) {
-		return TrackableContext.executeWithinAll(
-			contexts,
-			ThrowingComputation.of(boundClosure, param1, param2)
-		);
+		return snapshot.executeWithin(ThrowingComputation.of(boundClosure, param1, param2));
 	}
 }
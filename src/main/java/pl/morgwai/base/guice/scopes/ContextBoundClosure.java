@@ -8,11 +8,19 @@ import java.util.List;
 /**
  * Base class for decorators that execute their wrapped closures within supplied
  * {@link TrackableContext Contexts}.
+ * <p>
+ * {@code Contexts} are stored as a {@link ContextSnapshot}, that may be shared by many
+ * {@code ContextBoundClosure}s, so subclasses should use {@link #snapshot} directly to execute
+ * their wrapped closures.</p>
  */
 public abstract class ContextBoundClosure<ClosureT> {
 
 
 
+	public ContextSnapshot getSnapshot() { return snapshot; }
+	public final ContextSnapshot snapshot;
+
+	/** Same as {@link #snapshot}{@code .}{@link ContextSnapshot#getContexts() getContexts()}. */
 	public List<TrackableContext<?>> getContexts() { return contexts; }
 	public final List<TrackableContext<?>> contexts;
 
@@ -21,11 +29,16 @@ public abstract class ContextBoundClosure<ClosureT> {
 
 
 
-	protected ContextBoundClosure(List<TrackableContext<?>> contexts, ClosureT closureToBind) {
-		this.contexts = List.copyOf(contexts);
+	protected ContextBoundClosure(ContextSnapshot snapshot, ClosureT closureToBind) {
+		this.snapshot = snapshot;
+		this.contexts = snapshot.contexts;
 		this.boundClosure = closureToBind;
 	}
 
+	protected ContextBoundClosure(List<TrackableContext<?>> contexts, ClosureT closureToBind) {
+		this(ContextSnapshot.of(contexts), closureToBind);
+	}
+
 
 
 	@Override
@@ -18,13 +18,14 @@ public class ContextBoundConsumer<T> extends ContextBoundClosure<Consumer<T>>
 		super(contexts, consumerToBind);
 	}
 
+	public ContextBoundConsumer(ContextSnapshot snapshot, Consumer<T> consumerToBind) {
+		super(snapshot, consumerToBind);
+	}
+
 
 
 	@Override
 	public void accept(T param) {
-		TrackableContext.executeWithinAll(
-			contexts,
-			ThrowingTask.of(boundClosure, param)
-		);
+		snapshot.executeWithin(ThrowingTask.of(boundClosure, param));
 	}
 }
@@ -18,13 +18,14 @@ public class ContextBoundFunction<T, R> extends ContextBoundClosure<Function<T,
 		super(contexts, functionToBind);
 	}
 
+	public ContextBoundFunction(ContextSnapshot snapshot, Function<T, R> functionToBind) {
+		super(snapshot, functionToBind);
+	}
+
 
 
 	@Override
 	public R apply(T param) {
-		return TrackableContext.executeWithinAll(
-			contexts,
-			ThrowingComputation.of(boundClosure, param)
-		);
+		return snapshot.executeWithin(ThrowingComputation.of(boundClosure, param));
 	}
 }
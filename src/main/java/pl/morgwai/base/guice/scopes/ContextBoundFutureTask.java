@@ -0,0 +1,101 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.util.concurrent.*;
+
+
+
+/**
+ * {@link FutureTask} that runs its {@link Callable} within supplied
+ * {@link TrackableContext Contexts}.
+ * The {@link #snapshot} is also available to completion callbacks registered on
+ * {@link #toCompletableFuture()}.
+ * @see ContextTrackingExecutorService
+ */
+public class ContextBoundFutureTask<T> extends FutureTask<T> {
+
+
+
+	public ContextSnapshot getSnapshot() { return snapshot; }
+	public final ContextSnapshot snapshot;
+
+	final Executor asyncExecutor;
+	volatile ContextTrackingCompletableFuture<T> completion;
+
+
+
+	/**
+	 * Constructs a task that will run {@code callable} within {@code Contexts} of
+	 * {@code snapshot}. Async stages of {@link #toCompletableFuture()} will be executed by
+	 * {@code asyncExecutor}.
+	 */
+	public ContextBoundFutureTask(
+		ContextSnapshot snapshot,
+		Callable<T> callable,
+		Executor asyncExecutor
+	) {
+		super(callable);
+		this.snapshot = snapshot;
+		this.asyncExecutor = asyncExecutor;
+	}
+
+
+
+	@Override
+	public void run() {
+		snapshot.executeWithin((Runnable) super::run);
+	}
+
+
+
+	/**
+	 * Returns a {@link ContextTrackingCompletableFuture} that completes together with this task
+	 * and executes its dependent stages within {@code Contexts} of {@link #snapshot}.
+	 * The returned future is created on the first call and cached.
+	 */
+	public ContextTrackingCompletableFuture<T> toCompletableFuture() {
+		var result = completion;
+		if (result != null) return result;
+		synchronized (this) {
+			result = completion;
+			if (result == null) {
+				result = new ContextTrackingCompletableFuture<>(snapshot, asyncExecutor);
+				completion = result;
+			}
+		}
+		if (isDone()) complete(result);  // done() might have missed it
+		return result;
+	}
+
+
+
+	@Override
+	protected void done() {
+		final var result = completion;
+		if (result != null) complete(result);
+	}
+
+
+
+	void complete(ContextTrackingCompletableFuture<T> result) {
+		if (isCancelled()) {
+			result.cancel(false);
+			return;
+		}
+		try {
+			result.complete(get());
+		} catch (ExecutionException e) {
+			result.completeExceptionally(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();  // not possible as this task is already done
+		}
+	}
+
+
+
+	@Override
+	public String toString() {
+		return "ContextBoundFutureTask { snapshot = " + snapshot + ", task = " + super.toString()
+				+ " }";
+	}
+}
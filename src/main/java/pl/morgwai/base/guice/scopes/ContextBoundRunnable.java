@@ -14,10 +14,14 @@ public class ContextBoundRunnable extends ContextBoundClosure<Runnable> implemen
 		super(contexts, taskToBind);
 	}
 
+	public ContextBoundRunnable(ContextSnapshot snapshot, Runnable taskToBind) {
+		super(snapshot, taskToBind);
+	}
+
 
 
 	@Override
 	public void run() {
-		TrackableContext.executeWithinAll(contexts, boundClosure);
+		snapshot.executeWithin(boundClosure);
 	}
 }
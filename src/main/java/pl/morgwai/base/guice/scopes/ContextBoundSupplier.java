@@ -18,13 +18,14 @@ public class ContextBoundSupplier<R> extends ContextBoundClosure<Supplier<R>>
 		super(contexts, supplierToBind);
 	}
 
+	public ContextBoundSupplier(ContextSnapshot snapshot, Supplier<R> supplierToBind) {
+		super(snapshot, supplierToBind);
+	}
+
 
 
 	@Override
 	public R get() {
-		return TrackableContext.executeWithinAll(
-			contexts,
-			ThrowingComputation.ofSupplier(boundClosure)
-		);
+		return snapshot.executeWithin(ThrowingComputation.ofSupplier(boundClosure));
 	}
 }
@@ -25,10 +25,17 @@ public class ContextBoundThrowingComputation<
 		super(contexts, taskToBind);
 	}
 
+	public ContextBoundThrowingComputation(
+		ContextSnapshot snapshot,
+		Throwing4Computation<R, E1, E2, E3, E4> taskToBind
+	) {
+		super(snapshot, taskToBind);
+	}
+
 
 
 	@Override
 	public R perform() throws E1, E2, E3, E4 {
-		return TrackableContext.executeWithinAll(contexts, boundClosure);
+		return snapshot.executeWithin(boundClosure);
 	}
 }
@@ -22,10 +22,17 @@ public class ContextBoundThrowingTask<
 		super(contexts, taskToBind);
 	}
 
+	public ContextBoundThrowingTask(
+		ContextSnapshot snapshot,
+		Throwing4Task<E1, E2, E3, E4> taskToBind
+	) {
+		super(snapshot, taskToBind);
+	}
+
 
 
 	@Override
 	public void execute() throws E1, E2, E3, E4 {
-		TrackableContext.executeWithinAll(contexts, boundClosure);
+		snapshot.executeWithin(boundClosure);
 	}
 }
@@ -0,0 +1,293 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.util.List;
+
+import com.google.inject.Key;
+import jdk.jfr.*;
+
+
+
+/**
+ * JDK Flight Recorder events emitted by this lib.
+ * All events are {@link Enabled disabled} by default and must be enabled explicitly in a recording
+ * configuration (a custom {@code .jfc} file), for example
+ * {@code <event name="pl.morgwai.guice.scopes.ContextEntry"><setting name="enabled">true</setting>
+ * </event>}.
+ * <p>
+ * Each event carries the names of {@link ContextScope}s of the involved {@code Contexts} and their
+ * identifiers in the form of {@code SimpleClassName@identityHashCode}. Both are computed only when
+ * an event is actually committed.</p>
+ * <p>
+ * Event objects are allocated only if a given event is enabled in some recording: otherwise the
+ * overhead is limited to a check of {@link #JFR_AVAILABLE} and of the enabled flag of the
+ * {@link EventType} cached in {@link Types}.</p>
+ * <p>
+ * This class and its nested classes are loaded only when the first event may be emitted, and
+ * {@code jdk.jfr} types are resolved only if {@link #JFR_AVAILABLE}, so this lib may be used on
+ * runtimes without the {@code jdk.jfr} module (such as {@code jlink} images that do not include
+ * it). This is verified by {@code JfrAbsenceTests}.</p>
+ */
+final class ContextEvents {
+
+
+
+	/** Whether the {@code jdk.jfr} module is present in the current runtime. */
+	static final boolean JFR_AVAILABLE = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+	static final String CATEGORY = "Guice Context Scopes";
+
+
+
+	/** Entering {@code Contexts} for the duration of a task on the current {@code Thread}. */
+	@Name("pl.morgwai.guice.scopes.ContextEntry")
+	@Label("Context Entry")
+	@Description("Execution of a task within Contexts, from entering them until exiting")
+	@Category(CATEGORY)
+	@Enabled(false)
+	@StackTrace(false)
+	static final class ContextEntry extends Event {
+
+		@Label("Scope") String scope;
+		@Label("Context") String context;
+
+		void commit(TrackableContext<?> ctx) {
+			if ( !shouldCommit()) return;
+			scope = scopeName(ctx.getTracker());
+			context = describe(ctx);
+			commit();
+		}
+
+		void commit(List<TrackableContext<?>> contexts) {
+			if ( !shouldCommit()) return;
+			scope = scopeNames(contexts);
+			context = describe(contexts);
+			commit();
+		}
+	}
+
+
+
+	/** Capturing of active {@code Contexts} by a {@link ContextBinder}. */
+	@Name("pl.morgwai.guice.scopes.ContextBinding")
+	@Label("Context Binding")
+	@Description("Binding of a closure to the active Contexts")
+	@Category(CATEGORY)
+	@Enabled(false)
+	static final class ContextBinding extends Event {
+
+		@Label("Scope") String scope;
+		@Label("Context") String context;
+
+		void commit(ContextSnapshot snapshot) {
+			if ( !shouldCommit()) return;
+			scope = scopeNames(snapshot.contexts);
+			context = describe(snapshot.contexts);
+			commit();
+		}
+	}
+
+
+
+	/** Provisioning of a scoped {@code Object}. */
+	@Name("pl.morgwai.guice.scopes.Provisioning")
+	@Label("Scoped Provisioning")
+	@Description("Provisioning of an Object scoped to a Context")
+	@Category(CATEGORY)
+	@Enabled(false)
+	@StackTrace(false)
+	static final class Provisioning extends Event {
+
+		@Label("Scope") String scope;
+		@Label("Context") String context;
+		@Label("Key") String key;
+		@Label("Hit") @Description("Whether the Object was already scoped to the Context")
+		boolean hit;
+		@Label("Producer Duration") @Timespan(Timespan.NANOSECONDS) long producerDuration;
+
+		void commit(
+			String scope,
+			InjectionContext ctx,
+			Key<?> key,
+			boolean hit,
+			long producerDuration
+		) {
+			if ( !shouldCommit()) return;
+			this.scope = scope;
+			this.context = describe(ctx);
+			this.key = key.toString();
+			this.hit = hit;
+			this.producerDuration = producerDuration;
+			commit();
+		}
+	}
+
+
+
+	/**
+	 * Execution of a task passed to a {@link ContextTrackingExecutor}, including the time the task
+	 * waited for a {@code Thread}.
+	 */
+	@Name("pl.morgwai.guice.scopes.ExecutorHop")
+	@Label("Executor Hop")
+	@Description("Execution of a task passed to a ContextTrackingExecutor on another Thread")
+	@Category(CATEGORY)
+	@Enabled(false)
+	@StackTrace(false)
+	static final class ExecutorHop extends Event {
+
+		@Label("Scope") String scope;
+		@Label("Context") String context;
+		@Label("Executor") String executor;
+		@Label("Queue Wait") @Timespan(Timespan.NANOSECONDS) long queueWait;
+
+		void commit(ContextSnapshot snapshot, Object executor, long queueWait) {
+			if ( !shouldCommit()) return;
+			this.scope = scopeNames(snapshot.contexts);
+			this.context = describe(snapshot.contexts);
+			this.executor = executor.toString();
+			this.queueWait = queueWait;
+			commit();
+		}
+	}
+
+
+
+	/** Execution of a task outside of any {@code Context}. */
+	@Name("pl.morgwai.guice.scopes.NoContext")
+	@Label("No Context")
+	@Description("Execution of a task outside of any Context")
+	@Category(CATEGORY)
+	@Enabled(false)
+	static final class NoContext extends Event {
+
+		@Label("Task") String task;
+
+		void commit(Object task) {
+			if ( !shouldCommit()) return;
+			this.task = task.toString();
+			commit();
+		}
+	}
+
+
+
+	/**
+	 * {@link EventType}s of the above events, so that checking if a given event is enabled does
+	 * not allocate it. Must be accessed only if {@link #JFR_AVAILABLE}.
+	 */
+	static final class Types {
+		static final EventType CONTEXT_ENTRY = EventType.getEventType(ContextEntry.class);
+		static final EventType CONTEXT_BINDING = EventType.getEventType(ContextBinding.class);
+		static final EventType PROVISIONING = EventType.getEventType(Provisioning.class);
+		static final EventType EXECUTOR_HOP = EventType.getEventType(ExecutorHop.class);
+		static final EventType NO_CONTEXT = EventType.getEventType(NoContext.class);
+	}
+
+
+
+	/**
+	 * Begins a {@link ContextEntry} event if it is enabled.
+	 * @return the event or {@code null} if it is not enabled.
+	 */
+	static ContextEntry beginContextEntry() {
+		if ( !JFR_AVAILABLE || !Types.CONTEXT_ENTRY.isEnabled()) return null;
+		final var event = new ContextEntry();
+		event.begin();
+		return event;
+	}
+
+	static void endContextEntry(ContextEntry event, TrackableContext<?> ctx) {
+		if (event != null) event.commit(ctx);
+	}
+
+	static void endContextEntry(ContextEntry event, List<TrackableContext<?>> contexts) {
+		if (event != null) event.commit(contexts);
+	}
+
+	static void emitContextBinding(ContextSnapshot snapshot) {
+		if (JFR_AVAILABLE && Types.CONTEXT_BINDING.isEnabled()) {
+			new ContextBinding().commit(snapshot);
+		}
+	}
+
+	/**
+	 * Begins a {@link Provisioning} event if it is enabled.
+	 * @return the event or {@code null} if it is not enabled.
+	 */
+	static Provisioning beginProvisioning() {
+		if ( !JFR_AVAILABLE || !Types.PROVISIONING.isEnabled()) return null;
+		final var event = new Provisioning();
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * Returns whether an {@link ExecutorHop} event is enabled, so that a task should be wrapped
+	 * with {@link #wrapForExecutorHop(ContextBoundRunnable, Object)}.
+	 */
+	static boolean isExecutorHopEnabled() {
+		return JFR_AVAILABLE && Types.EXECUTOR_HOP.isEnabled();
+	}
+
+	/**
+	 * Wraps {@code boundTask} to emit an {@link ExecutorHop} event when run, including the time
+	 * since this method was called.
+	 */
+	static Runnable wrapForExecutorHop(ContextBoundRunnable boundTask, Object executor) {
+		final var submittedNanos = System.nanoTime();
+		return new Runnable() {
+			@Override public void run() {
+				final var event = new ExecutorHop();
+				event.begin();
+				final var queueWait = System.nanoTime() - submittedNanos;
+				try {
+					boundTask.run();
+				} finally {
+					event.commit(boundTask.snapshot, executor, queueWait);
+				}
+			}
+			@Override public String toString() {
+				return boundTask.toString();
+			}
+		};
+	}
+
+	static void emitNoContext(Object task) {
+		if (JFR_AVAILABLE && Types.NO_CONTEXT.isEnabled()) new NoContext().commit(task);
+	}
+
+
+
+	static String scopeName(ContextTracker<?> tracker) {
+		final var scopeName = tracker.scopeName;
+		return scopeName != null ? scopeName : "unnamed";
+	}
+
+	static String scopeNames(List<TrackableContext<?>> contexts) {
+		final var names = new StringBuilder();
+		for (int i = 0; i < contexts.size(); i++) {
+			if (i > 0) names.append(", ");
+			names.append(scopeName(contexts.get(i).getTracker()));
+		}
+		return names.toString();
+	}
+
+	static String describe(InjectionContext ctx) {
+		return ctx.getClass().getSimpleName() + '@'
+				+ Integer.toHexString(System.identityHashCode(ctx));
+	}
+
+	static String describe(List<TrackableContext<?>> contexts) {
+		final var descriptions = new StringBuilder();
+		for (int i = 0; i < contexts.size(); i++) {
+			if (i > 0) descriptions.append(", ");
+			descriptions.append(describe(contexts.get(i)));
+		}
+		return descriptions.toString();
+	}
+
+
+
+	private ContextEvents() {}
+}
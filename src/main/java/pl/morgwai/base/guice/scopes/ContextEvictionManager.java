@@ -0,0 +1,329 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+
+/**
+ * Keeps an approximate LRU index of all live {@code Contexts} of some {@link ContextTracker} and
+ * evicts the least recently used ones when a configured count or estimated memory budget is
+ * exceeded.
+ * Once {@link ContextTracker#setEvictionManager(ContextEvictionManager) set} on a
+ * {@link ContextTracker}, each entering of a {@code Context} of this {@link ContextTracker}
+ * stamps it with the current tick of a coarse clock (a single volatile read and a plain write,
+ * skipped if the {@code Context} was already stamped during the same tick). The first stamp of
+ * a given {@code Context} adds it to the index.
+ * <p>
+ * Eviction passes run asynchronously on a {@link ScheduledExecutorService} when a new
+ * {@code Context} added to the index exceeds the count budget and periodically if a memory budget
+ * is configured. The same {@link ScheduledExecutorService} drives the coarse clock of this
+ * manager, so all of its activity stops when it is {@link #close() closed}. Each pass sorts the
+ * indexed
+ * {@code Contexts} by their stamps and applies {@code evictionAction} to the coldest ones until
+ * both budgets are met, removing them from the index. An evicted {@code Context} that is entered
+ * again is re-added to the index. {@link InjectionContext#close(java.util.concurrent.Executor)
+ * Closed} {@code Contexts} are removed from the index without applying {@code evictionAction}.
+ * </p>
+ * <p>
+ * Typical {@code evictionActions} are {@link #passivatingTo(PassivationStore)} and
+ * {@link #closing()}. {@code Contexts} within which some {@code Threads} are currently executing
+ * are never evicted: passes skip them and both of the above actions check it again atomically
+ * ({@link InjectionContext#passivate(PassivationStore) passivation} is refused and
+ * {@link InjectionContext#close() closing} defers the disposal), so a {@code Context} entered
+ * right after being selected is not affected. This is why only {@link ContextTracker}s that
+ * {@link ContextTracker#tracksExecutions() track executions} accept
+ * {@code ContextEvictionManagers}.</p>
+ * <p>
+ * Only {@link TrackableContext}s entered via the {@link ContextTracker} of a given manager are
+ * indexed: {@code Contexts} induced by them (such as HTTP session {@code Contexts} obtained from
+ * request {@code Contexts}) are never stamped, so they are not indexed nor evicted. To evict such
+ * {@code Contexts}, they need to be {@link TrackableContext}s with their own
+ * {@link ContextTracker} entered together with the inducing ones.</p>
+ */
+public class ContextEvictionManager<ContextT extends TrackableContext<? super ContextT>>
+		implements AutoCloseable {
+
+
+
+	/** Maximal number of indexed {@code Contexts}. */
+	public int getMaxContexts() { return maxContexts; }
+	final int maxContexts;
+
+	/** Maximal sum of sizes of indexed {@code Contexts} estimated by {@link #sizeEstimator}. */
+	public long getMaxEstimatedBytes() { return maxEstimatedBytes; }
+	final long maxEstimatedBytes;
+
+	final ToLongFunction<? super ContextT> sizeEstimator;
+	final Consumer<? super ContextT> evictionAction;
+
+	final ScheduledExecutorService scheduler;
+	final boolean ownsScheduler;
+	final CoarseClock clock;
+
+	final Set<TrackableContext<?>> liveContexts = ConcurrentHashMap.newKeySet();
+	final AtomicBoolean passPending = new AtomicBoolean(false);
+	final ScheduledFuture<?> periodicPass;
+	volatile boolean closed = false;
+
+
+
+	/**
+	 * Constructs a new instance with only a count budget.
+	 * @param maxContexts maximal number of indexed {@code Contexts}.
+	 * @param evictionAction applied to each evicted {@code Context}.
+	 */
+	public ContextEvictionManager(int maxContexts, Consumer<? super ContextT> evictionAction) {
+		this(maxContexts, Long.MAX_VALUE, null, evictionAction, null);
+	}
+
+
+
+	/**
+	 * Calls {@link #ContextEvictionManager(int, long, ToLongFunction, Consumer,
+	 * ScheduledExecutorService) this(maxContexts, maxEstimatedBytes, sizeEstimator,
+	 * evictionAction, null)}.
+	 */
+	public ContextEvictionManager(
+		int maxContexts,
+		long maxEstimatedBytes,
+		ToLongFunction<? super ContextT> sizeEstimator,
+		Consumer<? super ContextT> evictionAction
+	) {
+		this(maxContexts, maxEstimatedBytes, sizeEstimator, evictionAction, null);
+	}
+
+
+
+	/**
+	 * Constructs a new instance.
+	 * @param maxContexts maximal number of indexed {@code Contexts}.
+	 * @param maxEstimatedBytes maximal sum of sizes of indexed {@code Contexts} estimated by
+	 *     {@code sizeEstimator}. Checked every {@link #MEMORY_BUDGET_CHECK_INTERVAL_MILLIS}.
+	 * @param sizeEstimator estimates the memory footprint of a given {@code Context} in bytes.
+	 *     Called once per each indexed {@code Context} during each eviction pass. May be
+	 *     {@code null} if {@code maxEstimatedBytes} is {@link Long#MAX_VALUE}.
+	 * @param evictionAction applied to each evicted {@code Context}. As a {@code Context} may be
+	 *     entered concurrently, it must refuse (atomically) to evict {@code Contexts} in use.
+	 * @param scheduler drives the coarse clock and runs eviction passes (including
+	 *     {@code evictionAction}). If {@code null}, a new single-{@code Thread} one is created and
+	 *     then shut down by {@link #close()}, otherwise {@link #close()} only cancels tasks of this
+	 *     manager and the lifecycle of {@code scheduler} remains the responsibility of the caller.
+	 */
+	public ContextEvictionManager(
+		int maxContexts,
+		long maxEstimatedBytes,
+		ToLongFunction<? super ContextT> sizeEstimator,
+		Consumer<? super ContextT> evictionAction,
+		ScheduledExecutorService scheduler
+	) {
+		this(maxContexts, maxEstimatedBytes, sizeEstimator, evictionAction, scheduler, null);
+	}
+
+	/** Allows tests to pass a manually ticked {@code clock}: {@code null} means a ticking one. */
+	ContextEvictionManager(
+		int maxContexts,
+		long maxEstimatedBytes,
+		ToLongFunction<? super ContextT> sizeEstimator,
+		Consumer<? super ContextT> evictionAction,
+		ScheduledExecutorService scheduler,
+		CoarseClock clock
+	) {
+		if (maxContexts < 0 || maxEstimatedBytes < 0L) {
+			throw new IllegalArgumentException("budgets must not be negative");
+		}
+		if (sizeEstimator == null && maxEstimatedBytes != Long.MAX_VALUE) {
+			throw new IllegalArgumentException("memory budget requires a sizeEstimator");
+		}
+		this.maxContexts = maxContexts;
+		this.maxEstimatedBytes = maxEstimatedBytes;
+		this.sizeEstimator = sizeEstimator;
+		this.evictionAction = evictionAction;
+		ownsScheduler = scheduler == null;
+		this.scheduler = ownsScheduler ? newScheduler() : scheduler;
+		this.clock = clock != null ? clock : new CoarseClock(this.scheduler);
+		periodicPass = sizeEstimator == null ? null : this.scheduler.scheduleWithFixedDelay(
+			this::schedulePass,
+			MEMORY_BUDGET_CHECK_INTERVAL_MILLIS,
+			MEMORY_BUDGET_CHECK_INTERVAL_MILLIS,
+			TimeUnit.MILLISECONDS
+		);
+	}
+
+	public static final long MEMORY_BUDGET_CHECK_INTERVAL_MILLIS = 1000L;
+
+	static ScheduledExecutorService newScheduler() {
+		return Executors.newSingleThreadScheduledExecutor((task) -> {
+			final var thread = new Thread(task, "guice-context-scopes-eviction");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+
+
+	/**
+	 * Eviction action that {@link InjectionContext#passivate(PassivationStore) passivates}.
+	 * Refused passivations (for example of {@code Contexts} entered in the meantime) are logged
+	 * and skipped: such {@code Contexts} are re-indexed when entered again.
+	 */
+	public static Consumer<TrackableContext<?>> passivatingTo(PassivationStore store) {
+		return (ctx) -> {
+			try {
+				if ( !ctx.passivate(store) && log.isLoggable(Level.FINE)) {
+					log.fine("passivation of " + ctx + " refused");
+				}
+			} catch (IllegalStateException storeClosed) {
+				log.warning("passivation of " + ctx + " failed: " + storeClosed);
+			}
+		};
+	}
+
+	/** Eviction action that {@link InjectionContext#close() closes} evicted {@code Contexts}. */
+	public static Consumer<TrackableContext<?>> closing() {
+		return TrackableContext::close;
+	}
+
+
+
+	/**
+	 * Stamps {@code ctx} with the current tick of the coarse clock, adding it to the index if it
+	 * was not stamped before. Called by {@link ContextTracker} each time {@code ctx} is entered.
+	 */
+	final void touch(TrackableContext<?> ctx) {
+		final var now = clock.now();
+		final var lastAccess = ctx.lastAccess;
+		if (lastAccess == now) return;
+		ctx.lastAccess = now;
+		if (lastAccess == 0 && liveContexts.add(ctx) && liveContexts.size() > maxContexts) {
+			schedulePass();
+		}
+	}
+
+
+
+	/** Number of currently indexed {@code Contexts}. */
+	public int getContextCount() {
+		return liveContexts.size();
+	}
+
+
+
+	/**
+	 * Runs {@link #evict()} asynchronously on {@link #scheduler} unless some pass is already
+	 * pending or this manager is {@link #close() closed}.
+	 */
+	void schedulePass() {
+		if (closed || !passPending.compareAndSet(false, true)) return;
+		try {
+			scheduler.execute(() -> {
+				passPending.set(false);
+				if (closed) return;
+				try {
+					evict();
+				} catch (Throwable failure) {
+					final var thread = Thread.currentThread();
+					thread.getUncaughtExceptionHandler().uncaughtException(thread, failure);
+				}
+			});
+		} catch (RejectedExecutionException shutDown) {
+			passPending.set(false);  // scheduler shut down by its owner: the pass is skipped
+		}
+	}
+
+
+
+	/**
+	 * Performs an eviction pass synchronously: applies {@code evictionAction} to the coldest
+	 * indexed {@code Contexts} until both budgets are met.
+	 * @return the number of evicted {@code Contexts}.
+	 */
+	public synchronized int evict() {
+		final var now = clock.now();
+		final var candidates = new ArrayList<TrackableContext<?>>(liveContexts.size());
+		for (var ctx: liveContexts) {
+			if (ctx.isClosed()) {
+				liveContexts.remove(ctx);
+			} else {
+				candidates.add(ctx);
+			}
+		}
+		final var sizes = sizeEstimator != null ? new long[candidates.size()] : null;
+		long estimatedBytes = 0L;
+		if (sizes != null) {
+			for (int i = 0; i < sizes.length; i++) {
+				sizes[i] = sizeEstimator.applyAsLong(typed(candidates.get(i)));
+				estimatedBytes += sizes[i];
+			}
+		}
+		int excessCount = candidates.size() - maxContexts;
+		if (excessCount <= 0 && estimatedBytes <= maxEstimatedBytes) return 0;
+
+		// stamps may change concurrently, so they are snapshotted together with indexes into
+		// longs sorted by age (coldest last): age in the upper half, index in the lower one
+		final var stamps = new int[candidates.size()];
+		final var order = new long[candidates.size()];
+		for (int i = 0; i < order.length; i++) {
+			stamps[i] = candidates.get(i).lastAccess;
+			final long age = Math.max(0, now - stamps[i]);  // tick differences survive wrapping
+			order[i] = (age << 32) | i;
+		}
+		Arrays.sort(order);
+		int evictedCount = 0;
+		for (int j = order.length - 1; j >= 0; j--) {
+			if (excessCount <= 0 && estimatedBytes <= maxEstimatedBytes) break;
+			final var i = (int) order[j];
+			final var ctx = candidates.get(i);
+			// only a cheap pre-check: evictionActions must re-check it atomically
+			if (ctx.lastAccess != stamps[i] || ctx.hasActiveExecutions()) continue;
+			liveContexts.remove(ctx);
+			ctx.lastAccess = 0;
+			evictionAction.accept(typed(ctx));
+			evictedCount++;
+			excessCount--;
+			if (sizes != null) estimatedBytes -= sizes[i];
+		}
+		return evictedCount;
+	}
+
+	private ContextT typed(TrackableContext<?> ctx) {
+		@SuppressWarnings("unchecked")
+		final var typedCtx = (ContextT) ctx;
+		return typedCtx;
+	}
+
+
+
+	/**
+	 * Stops the coarse clock and all eviction passes except the one possibly in progress. If the
+	 * {@link ScheduledExecutorService} was created by this manager, it is shut down. Subsequent
+	 * stamps of {@code Contexts} will not trigger any passes, so this manager should also be
+	 * {@link ContextTracker#setEvictionManager(ContextEvictionManager) unset} from its
+	 * {@link ContextTracker}.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		clock.stop();
+		if (periodicPass != null) periodicPass.cancel(false);
+		if (ownsScheduler) scheduler.shutdown();
+	}
+
+
+
+	static final Logger log = Logger.getLogger(ContextEvictionManager.class.getName());
+
+
+
+	@Override
+	public String toString() {
+		return "ContextEvictionManager { maxContexts = " + maxContexts + ", maxEstimatedBytes = "
+				+ maxEstimatedBytes + " }";
+	}
+}
@@ -0,0 +1,302 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.util.Arrays;
+import java.util.List;
+
+
+
+/**
+ * Array of {@link TrackableContext Contexts} current for a given {@code Thread}, shared by all
+ * {@link ContextTracker}s of some {@link Group}.
+ * Each {@link ContextTracker} of a {@link Group} is assigned a separate slot (index) in the array.
+ * This way all {@code Contexts} current for a given {@code Thread} can be
+ * {@link ContextTracker#getActiveContexts(List) captured} with a single {@link ThreadLocal} read
+ * and {@link TrackableContext#executeWithinAll(List, Runnable) entered} with a single
+ * {@link ThreadLocal} read followed by plain array writes, instead of a separate
+ * {@link ThreadLocal} lookup per each {@link ContextTracker}.
+ * <p>
+ * {@code ContextFrame}s are accessed only by their owning {@code Thread}s, so no
+ * synchronization is needed.</p>
+ * @see ScopeModule.Options#shareContextFrame(boolean)
+ */
+final class ContextFrame {
+
+
+
+	TrackableContext<?>[] slots;
+
+	/**
+	 * Whether {@link #slots} is an array owned by some {@link ContextSnapshot} after
+	 * {@link #switchTo(ContextSnapshot) switching}, in which case it must be copied before any
+	 * modification.
+	 */
+	boolean slotsShared;
+
+	/**
+	 * {@link ContextSnapshot} of the current content of {@link #slots} or {@code null} if it has
+	 * not been {@link #getSnapshot() captured} since the most recent modification.
+	 */
+	ContextSnapshot snapshot;
+
+	/**
+	 * {@link ContextSnapshot} most recently {@link #switchTo(ContextSnapshot) switched to}, whose
+	 * {@code Contexts} are considered executing until the next switch.
+	 */
+	ContextSnapshot switched = ContextSnapshot.EMPTY;
+
+
+
+	ContextFrame(int size) {
+		slots = new TrackableContext<?>[size];
+	}
+
+
+
+	TrackableContext<?> get(int slot) {
+		final var slots = this.slots;
+		return slot < slots.length ? slots[slot] : null;
+	}
+
+
+
+	void set(int slot, TrackableContext<?> ctx) {
+		if (slotsShared || slot >= slots.length) {
+			slots = Arrays.copyOf(slots, Math.max(slots.length, slot + 1));
+			slotsShared = false;
+		}
+		slots[slot] = ctx;
+		snapshot = null;
+	}
+
+
+
+	/**
+	 * Replaces all {@code Contexts} of this frame with the ones of {@code snapshot} without
+	 * copying any arrays: {@code snapshot}'s {@link ContextSnapshot#getFrameSlots() slot array}
+	 * becomes {@link #slots} (copied on the first subsequent modification) and {@code snapshot}
+	 * becomes the cached {@link #getSnapshot() snapshot}.
+	 * <p>
+	 * {@code snapshot}'s {@code Contexts} are stamped for
+	 * {@link ContextTracker#setEvictionManager(ContextEvictionManager) eviction managers} and
+	 * {@link ContextTracker#ContextTracker(boolean) counted as executing} until the next switch,
+	 * as entered {@code Contexts} are until they exit. New executions begin before the previous
+	 * ones end, so that {@code Contexts} present in both snapshots are not disposed in between.
+	 * Hence the cost is linear in the sizes of both snapshots and the last switched
+	 * {@code Contexts} remain executing until the frame is switched to
+	 * {@link ContextSnapshot#EMPTY}.</p>
+	 * @see EventLoopFrame
+	 */
+	void switchTo(ContextSnapshot snapshot) {
+		final var newSlots = snapshot.getFrameSlots();
+		final var newCtxs = snapshot.contexts;
+		for (int i = 0; i < newCtxs.size(); i++) {
+			final var ctx = newCtxs.get(i);
+			final var tracker = ctx.getTracker();
+			if (tracker.trackExecutions) ctx.beginExecution();
+			tracker.stampAccess(ctx);
+		}
+		slots = newSlots;
+		slotsShared = true;
+		this.snapshot = snapshot;
+		final var previousCtxs = switched.contexts;
+		switched = snapshot;
+		for (int i = 0; i < previousCtxs.size(); i++) {
+			final var ctx = previousCtxs.get(i);
+			if (ctx.getTracker().trackExecutions) ctx.endExecution();
+		}
+	}
+
+
+
+	/**
+	 * Returns a {@link ContextSnapshot} of all {@code Contexts} currently set in this frame.
+	 * The {@link ContextSnapshot} is cached until the next modification of this frame.
+	 */
+	ContextSnapshot getSnapshot() {
+		if (snapshot != null) return snapshot;
+		TrackableContext<?> firstActiveCtx = null;
+		int activeCount = 0;
+		for (var ctx: slots) {
+			if (ctx == null) continue;
+			if (activeCount == 0) firstActiveCtx = ctx;
+			activeCount++;
+		}
+		switch (activeCount) {
+			case 0:
+				snapshot = ContextSnapshot.EMPTY;
+				break;
+			case 1:
+				snapshot = firstActiveCtx.getSelfSnapshot();
+				break;
+			default:
+				final var activeCtxs = new TrackableContext<?>[activeCount];
+				int i = 0;
+				for (var ctx: slots) {
+					if (ctx != null) activeCtxs[i++] = ctx;
+				}
+				snapshot = new ContextSnapshot(List.of(activeCtxs));
+		}
+		return snapshot;
+	}
+
+
+
+	/**
+	 * {@link #enterAll(List) Enters} all {@code Contexts} of {@code snapshot}. If no other
+	 * {@code Contexts} were set in this frame, {@code snapshot} becomes its cached
+	 * {@link #getSnapshot() snapshot}, so that closures bound within this frame share it.
+	 * @return see {@link #enterAll(List)}.
+	 */
+	TrackableContext<?>[] enter(ContextSnapshot snapshot) {
+		final var contexts = snapshot.contexts;
+		final var previousCtxs = enterAll(contexts);
+		int activeCount = 0;
+		for (var ctx: slots) {
+			if (ctx != null) activeCount++;
+		}
+		if (activeCount == contexts.size()) this.snapshot = snapshot;
+		return previousCtxs;
+	}
+
+
+
+	/** Indicates whether all {@code contexts} are already set in their respective slots. */
+	boolean containsAll(List<TrackableContext<?>> contexts) {
+		for (int i = 0; i < contexts.size(); i++) {
+			final var ctx = contexts.get(i);
+			if (get(ctx.getTracker().frameSlot) != ctx) return false;
+		}
+		return true;
+	}
+
+
+
+	/**
+	 * Sets all {@code contexts} as current in their respective slots.
+	 * All {@code contexts} must be tracked by {@link ContextTracker}s of the {@link Group} of this
+	 * {@code ContextFrame}. Slots already containing their respective {@code Contexts} are left
+	 * untouched.
+	 * @return {@code Contexts} previously set in the respective slots to be passed to
+	 *     {@link #restoreAll(List, TrackableContext[])}, or {@code null} if all of these slots were
+	 *     empty (the most common case, that does not allocate).
+	 */
+	TrackableContext<?>[] enterAll(List<TrackableContext<?>> contexts) {
+		TrackableContext<?>[] previousCtxs = null;
+		for (int i = 0; i < contexts.size(); i++) {
+			final var ctx = contexts.get(i);
+			final var tracker = ctx.getTracker();
+			final var previousCtx = get(tracker.frameSlot);
+			if (previousCtx != null) {
+				if (previousCtxs == null) previousCtxs = new TrackableContext<?>[contexts.size()];
+				previousCtxs[i] = previousCtx;
+				if (previousCtx == ctx) continue;
+			}
+			if (tracker.trackExecutions) ctx.beginExecution();
+			tracker.stampAccess(ctx);
+			set(tracker.frameSlot, ctx);
+		}
+		return previousCtxs;
+	}
+
+
+
+	/**
+	 * Restores slots of all {@code contexts} previously {@link #enterAll(List) entered} to
+	 * {@code previousCtxs}.
+	 */
+	void restoreAll(List<TrackableContext<?>> contexts, TrackableContext<?>[] previousCtxs) {
+		for (int i = 0; i < contexts.size(); i++) {
+			final var ctx = contexts.get(i);
+			final var previousCtx = previousCtxs != null ? previousCtxs[i] : null;
+			if (previousCtx == ctx) continue;
+			final var tracker = ctx.getTracker();
+			set(tracker.frameSlot, previousCtx);
+			if (tracker.trackExecutions) ctx.endExecution();
+		}
+	}
+
+
+
+	/**
+	 * Group of {@link ContextTracker}s sharing per-{@code Thread} {@link ContextFrame}s.
+	 * Slots are assigned to {@link ContextTracker}s in the order of {@link #newTracker()} calls.
+	 */
+	static class Group {
+
+
+
+		private final ThreadLocal<ContextFrame> frames = new ThreadLocal<>();
+
+		/** Number of slots assigned so far. */
+		int size() { return size; }
+		private int size = 0;
+
+
+
+		/** Calls {@link #newTracker(boolean) newTracker(false)}. */
+		<ContextT extends TrackableContext<? super ContextT>> ContextTracker<ContextT> newTracker() {
+			return newTracker(false);
+		}
+
+		/**
+		 * Creates a new {@link ContextTracker} with the next free slot of this {@code Group}.
+		 * @param trackExecutions see {@link ContextTracker#ContextTracker(boolean)}.
+		 */
+		<ContextT extends TrackableContext<? super ContextT>> ContextTracker<ContextT> newTracker(
+			boolean trackExecutions
+		) {
+			return new ContextTracker<>(this, size++, trackExecutions);
+		}
+
+
+
+		/**
+		 * Returns the {@link ContextFrame} of the calling {@code Thread} or {@code null} if the
+		 * {@code Thread} has never entered any {@code Context} of this {@code Group}.
+		 */
+		ContextFrame getFrame() {
+			return frames.get();
+		}
+
+
+
+		/** Returns the {@link ContextFrame} of the calling {@code Thread}, creating it if needed.*/
+		ContextFrame getOrCreateFrame() {
+			var frame = frames.get();
+			if (frame == null) {
+				frame = new ContextFrame(size);
+				frames.set(frame);
+			}
+			return frame;
+		}
+
+
+
+		/**
+		 * Returns the {@code Group} shared by all {@code trackers} or {@code null} if they don't
+		 * all belong to the same {@code Group}.
+		 */
+		static Group of(List<ContextTracker<?>> trackers) {
+			final var group = trackers.get(0).frameGroup;
+			if (group == null) return null;
+			for (int i = 1; i < trackers.size(); i++) {
+				if (trackers.get(i).frameGroup != group) return null;
+			}
+			return group;
+		}
+
+		/**
+		 * Returns the {@code Group} shared by the {@link ContextTracker}s of all {@code contexts}
+		 * or {@code null} if they don't all belong to the same {@code Group}.
+		 */
+		static Group ofContexts(List<TrackableContext<?>> contexts) {
+			final var group = contexts.get(0).getTracker().frameGroup;
+			if (group == null) return null;
+			for (int i = 1; i < contexts.size(); i++) {
+				if (contexts.get(i).getTracker().frameGroup != group) return null;
+			}
+			return group;
+		}
+	}
+}
@@ -1,6 +1,9 @@
 // Copyright 2021 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
 package pl.morgwai.base.guice.scopes;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 import com.google.inject.*;
 
 
@@ -33,11 +36,111 @@ public class ContextScope<ContextT extends TrackableContext<? super ContextT>> i
 	public final String name;
 	public String getName() { return name; }
 
+	/** Slots of {@link Key}s scoped by this {@code Scope} or {@code null} if not indexed. */
+	final ScopedObjectSlots slots;
+
+	/** Whether scoped {@link Provider}s keep a per-{@code Thread} cache of the last result. */
+	final boolean cacheScopedObjects;
 
+	/**
+	 * Receives reports of provisionings by this {@code Scope}'s {@link Provider}s or {@code null}.
+	 */
+	public ProvisioningListener getProvisioningListener() { return provisioningListener; }
+	volatile ProvisioningListener provisioningListener;
 
+	/**
+	 * Registers {@code listener} to receive reports of all subsequent provisionings by
+	 * {@link Provider}s of this {@code Scope}. Passing {@code null} unregisters the current one.
+	 */
+	public void setProvisioningListener(ProvisioningListener listener) {
+		this.provisioningListener = listener;
+	}
+
+
+
+	/** Calls {@link #ContextScope(String, ContextTracker, Options) this(name, tracker, null)}. */
 	public ContextScope(String name, ContextTracker<ContextT> tracker) {
+		this(name, tracker, null);
+	}
+
+
+
+	/**
+	 * Constructs a new instance.
+	 * @param options optional features of this {@code Scope}. {@code null} is equivalent to a new
+	 *     {@link Options} instance with all features disabled.
+	 */
+	public ContextScope(String name, ContextTracker<ContextT> tracker, Options options) {
 		this.name = name;
 		this.tracker = tracker;
+		if (tracker.scopeName == null) tracker.scopeName = name;
+		this.slots = options != null && options.indexScopedObjects ? new ScopedObjectSlots() : null;
+		this.cacheScopedObjects = options != null && options.cacheScopedObjects;
+	}
+
+
+
+	/**
+	 * Optional features of {@link ContextScope}s, all disabled by default.
+	 * Values are read by {@link ContextScope#ContextScope(String, ContextTracker, Options)}, so
+	 * subsequent modifications of a given instance do not affect already constructed
+	 * {@code Scopes}.
+	 */
+	public static class Options {
+
+		boolean indexScopedObjects;
+		boolean cacheScopedObjects;
+
+
+
+		/**
+		 * If {@code true}, each {@link Key} passed to {@link ContextScope#scope(Key, Provider)}
+		 * will be assigned a dense integer slot and {@code Contexts} of a given {@code Scope} will
+		 * store {@code Objects} scoped under such {@link Key}s in an array instead of a
+		 * {@link java.util.concurrent.ConcurrentMap}. This makes each provisioning a single array
+		 * read instead of a {@link Key} hashing and a map lookup and sharply reduces the memory
+		 * footprint of short-lived {@code Contexts}. {@link Key}s scoped after a given
+		 * {@code Context} has started storing {@code Objects} (for example from just-in-time
+		 * bindings) fall back to a map.
+		 * @return this {@code Options} instance.
+		 */
+		public Options indexScopedObjects(boolean indexScopedObjects) {
+			this.indexScopedObjects = indexScopedObjects;
+			return this;
+		}
+
+		/** See {@link #indexScopedObjects(boolean)}. */
+		public boolean isIndexScopedObjects() { return indexScopedObjects; }
+
+
+
+		/**
+		 * If {@code true}, each scoped {@link Provider} returned by
+		 * {@link ContextScope#scope(Key, Provider)} will keep a per-{@code Thread} cache of the
+		 * last {@code (Context, scoped Object)} pair, so that repeated provisionings within the
+		 * same {@code Context} skip the lookup in the {@code Context}'s storage. The cache is
+		 * invalidated by {@link InjectionContext#removeScopedObject(Key)} calls. Note that each
+		 * {@code Thread} retains a reference to the last {@code Context} and scoped {@code Object}
+		 * of each scoped {@link Provider} it used until its next provisioning from this
+		 * {@link Provider}, which may delay garbage collection of short-lived {@code Contexts} in
+		 * case of long-lived pooled {@code Threads}.
+		 * @return this {@code Options} instance.
+		 */
+		public Options cacheScopedObjects(boolean cacheScopedObjects) {
+			this.cacheScopedObjects = cacheScopedObjects;
+			return this;
+		}
+
+		/** See {@link #cacheScopedObjects(boolean)}. */
+		public boolean isCacheScopedObjects() { return cacheScopedObjects; }
+
+
+
+		@Override
+		public String toString() {
+			return "ContextScope.Options { indexScopedObjects = " + indexScopedObjects
+					+ ", cacheScopedObjects = " + cacheScopedObjects + " }";
+		}
 	}
 
 
@@ -57,20 +160,179 @@ public class ContextScope<ContextT extends TrackableContext<? super ContextT>> i
 	 */
 	@Override
 	public <T> Provider<T> scope(Key<T> key, Provider<T> producer) {
-		return new Provider<>() {
-			@Override public T get() {
-				try {
-					return getCurrentContext().produceIfAbsent(key, producer);
-				} catch (NullPointerException e) {
-					throw new OutOfScopeException(String.format(
-							NO_CONTEXT_MESSAGE, name, Thread.currentThread().getName()));
+		final var slot = slots != null ? slots.assign(key) : -1;
+		return cacheScopedObjects
+				? new CachingScopedProvider<>(key, producer, slot)
+				: new ScopedProvider<>(key, producer, slot);
+	}
+
+
+
+	/**
+	 * Asynchronously provides an {@code Object} scoped under {@code key} to the
+	 * {@code Context} returned by {@link #getCurrentContext()}.
+	 * If the {@code Object} is not scoped yet, {@code producer} is called on {@code executor}
+	 * within the {@code Context} of this {@code Scope} that is current for the calling
+	 * {@code Thread}. Passing a {@link ContextTrackingExecutor} as {@code executor} makes
+	 * {@code producer} run within all the other current {@code Contexts} as well.
+	 * <p>
+	 * Until {@code producer} completes, concurrent asynchronous requests and synchronous
+	 * {@link Provider#get() provisionings} of {@code key} within the same {@code Context} share its
+	 * result, while the subsequent ones obtain the produced {@code Object} directly. Note that a
+	 * synchronous {@link Provider#get() provisioning} performed in the meantime blocks until
+	 * {@code producer} completes. If {@code producer} throws, the returned
+	 * {@code CompletableFuture} completes exceptionally and nothing is scoped under {@code key}.
+	 * </p>
+	 * <p>
+	 * {@code producer} should produce the same kind of {@code Objects} as the one bound in
+	 * {@code key}'s {@link com.google.inject.Binding}, typically a {@link Provider} injected
+	 * for some unscoped {@link Key} bound to the same implementation.</p>
+	 * @throws OutOfScopeException if the calling {@code Thread} runs outside of any
+	 *     {@code Context} of this {@code Scope}.
+	 */
+	public <T> CompletableFuture<T> getAsync(Key<T> key, Provider<T> producer, Executor executor) {
+		final var ctx = getCurrentContextOrThrow();
+		final var trackedCtx = tracker.getCurrentContext();
+		final Provider<T> boundProducer = () -> trackedCtx.executeWithinSelf(producer::get);
+		final var slot = slots != null ? slots.indexOf(key) : -1;
+		return ctx.produceAsyncIfAbsent(slots, slot, key, boundProducer, executor);
+	}
+
+
+
+	class ScopedProvider<T> implements Provider<T> {
+
+		final Key<T> key;
+		final Provider<T> producer;
+		/** Assigned to {@link #key} by {@link #slots} or {@code -1} if not indexed. */
+		final int slot;
+
+		ScopedProvider(Key<T> key, Provider<T> producer, int slot) {
+			this.key = key;
+			this.producer = producer;
+			this.slot = slot;
+		}
+
+		@Override public T get() {
+			final var ctx = getCurrentContextOrThrow();
+			final var listener = provisioningListener;
+			final var event = ContextEvents.beginProvisioning();
+			if (listener == null && event == null) return produce(ctx, producer);
+
+			final var timedProducer = new TimedProducer<>(producer);
+			final T scopedObject;
+			try {
+				scopedObject = produce(ctx, timedProducer);
+			} finally {
+				if (event != null) {
+					event.commit(
+							name, ctx, key, timedProducer.isHit(), timedProducer.getDuration());
 				}
 			}
-			@Override public String toString() {
-				return "ScopedProvider { scope = \"" + name + "\", key = " + key + ", producer = "
-						+ producer + " }";
+			if (listener != null) {
+				listener.onProvisioning(
+						name, key, timedProducer.isHit(), timedProducer.getDuration());
+			}
+			return scopedObject;
+		}
+
+		/** Obtains the {@code Object} scoped to {@code ctx} using {@code producer} if needed. */
+		T produce(InjectionContext ctx, Provider<T> producer) {
+			return ctx.produceIfAbsent(slots, slot, key, producer);
+		}
+
+		@Override public String toString() {
+			return "ScopedProvider { scope = \"" + name + "\", key = " + key + ", producer = "
+					+ producer + " }";
+		}
+	}
+
+
+
+	/**
+	 * {@link ScopedProvider} that keeps a per-{@code Thread} cache of the last
+	 * {@code (Context, scoped Object)} pair.
+	 * @see Options#cacheScopedObjects(boolean)
+	 */
+	class CachingScopedProvider<T> extends ScopedProvider<T> {
+
+		final ThreadLocal<CacheEntry> cache = ThreadLocal.withInitial(CacheEntry::new);
+
+		CachingScopedProvider(Key<T> key, Provider<T> producer, int slot) {
+			super(key, producer, slot);
+		}
+
+		@Override T produce(InjectionContext ctx, Provider<T> producer) {
+			final var cacheEntry = cache.get();
+			// removalCount must be read before produceIfAbsent(...): see removeScopedObject(key)
+			final var removalCount = ctx.getRemovalCount();
+			if (cacheEntry.ctx == ctx && cacheEntry.removalCount == removalCount) {
+				@SuppressWarnings("unchecked")
+				final T cached = (T) cacheEntry.scopedObject;
+				return cached;
+			}
+			final var scopedObject = ctx.produceIfAbsent(slots, slot, key, producer);
+			cacheEntry.ctx = ctx;
+			cacheEntry.removalCount = removalCount;
+			cacheEntry.scopedObject = scopedObject;
+			return scopedObject;
+		}
+	}
+
+	/** Accessed only by its owning {@code Thread}. */
+	static class CacheEntry {
+		InjectionContext ctx;
+		int removalCount;
+		Object scopedObject;
+	}
+
+
+
+	/**
+	 * Measures the duration of a call to the wrapped producer for {@link ProvisioningListener}s
+	 * and {@link ContextEvents.Provisioning JFR events}.
+	 */
+	static final class TimedProducer<T> implements Provider<T> {
+
+		final Provider<T> producer;
+		/** Duration of the call to {@link #producer} or {@code -1} if it was not called. */
+		long duration = -1L;
+
+		TimedProducer(Provider<T> producer) {
+			this.producer = producer;
+		}
+
+		@Override public T get() {
+			final var start = System.nanoTime();
+			try {
+				return producer.get();
+			} finally {
+				duration = System.nanoTime() - start;
 			}
-		};
+		}
+
+		boolean isHit() {
+			return duration < 0L;
+		}
+
+		long getDuration() {
+			return duration < 0L ? 0L : duration;
+		}
+
+		@Override public String toString() {
+			return producer.toString();
+		}
+	}
+
+
+
+	private InjectionContext getCurrentContextOrThrow() {
+		final var ctx = getCurrentContext();
+		if (ctx == null) {
+			throw new OutOfScopeException(String.format(
+					NO_CONTEXT_MESSAGE, name, Thread.currentThread().getName()));
+		}
+		return ctx;
 	}
 
 	static final String NO_CONTEXT_MESSAGE = "no Context of Scope \"%s\" in Thread \"%s\": "
@@ -88,6 +350,9 @@ public class ContextScope<ContextT extends TrackableContext<? super ContextT>> i
 	 * {@link ContextTracker#getCurrentContext() obtained} directly from {@link #tracker}. May be
 	 * overridden for example to return some {@code Context} induced by {@code ContextT} (see
 	 * {@link InducedContextScope}).
+	 * @return the current {@code Context} or {@code null} if the current {@code Thread} runs
+	 *     outside of any {@code Context} of this {@code Scope}, in which case an
+	 *     {@link OutOfScopeException} is thrown by the scoped {@link Provider}.
 	 */
 	protected InjectionContext getCurrentContext() {
 		return tracker.getCurrentContext();
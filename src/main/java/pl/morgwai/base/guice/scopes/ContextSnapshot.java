@@ -0,0 +1,242 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.util.Arrays;
+import java.util.List;
+
+import pl.morgwai.base.function.*;
+
+
+
+/**
+ * Immutable set of {@link TrackableContext Contexts} that were active at some moment, that can be
+ * used to execute tasks within these {@code Contexts} later, possibly on another {@code Thread}.
+ * {@code ContextSnapshot}s are a more efficient alternative to {@code List}s obtained with
+ * {@link ContextTracker#getActiveContexts(List)}:<ul>
+ *   <li>A {@code ContextSnapshot} of a single {@code Context} is created only once per
+ *       {@code Context} and reused by all subsequent {@link #capture(List) captures}.</li>
+ *   <li>If all captured {@link ContextTracker}s share the same per-{@code Thread} frame (see
+ *       {@link ScopeModule.Options#shareContextFrame(boolean)}), a {@code ContextSnapshot} is
+ *       created only once per each state of the frame and shared by all subsequent
+ *       {@link #capture(List) captures} (for example by all closures
+ *       {@link ContextBinder#bindToContext(Runnable) bound} within a given frame).</li>
+ * </ul>
+ * <p>
+ * {@link #equals(Object) Equality} of {@code ContextSnapshot}s is based on the identity of their
+ * {@code Contexts}, so it is cheap to check.</p>
+ */
+public final class ContextSnapshot {
+
+
+
+	/** Immutable {@code List} of {@code Contexts} of this {@code ContextSnapshot}. */
+	public List<TrackableContext<?>> getContexts() { return contexts; }
+	final List<TrackableContext<?>> contexts;
+
+
+
+	ContextSnapshot(List<TrackableContext<?>> contexts) {
+		this.contexts = contexts;
+	}
+
+	static final ContextSnapshot EMPTY = new ContextSnapshot(List.of());
+
+
+
+	/** Returns a {@code ContextSnapshot} of {@code contexts}. */
+	public static ContextSnapshot of(List<TrackableContext<?>> contexts) {
+		switch (contexts.size()) {
+			case 0: return EMPTY;
+			case 1: return contexts.get(0).getSelfSnapshot();
+			default: return new ContextSnapshot(List.copyOf(contexts));
+		}
+	}
+
+
+
+	/**
+	 * Captures all {@code Contexts} active (current within their type) for the calling
+	 * {@code Thread} as tracked by {@code trackers}.
+	 * Functionally equivalent to
+	 * {@link #of(List) of(ContextTracker.getActiveContexts(trackers))}, but avoids allocations
+	 * when possible: see the class-level javadoc.
+	 */
+	public static ContextSnapshot capture(List<ContextTracker<?>> trackers) {
+		if (trackers.isEmpty()) return EMPTY;
+		final var frameGroup = ContextFrame.Group.of(trackers);
+		if (frameGroup != null && frameGroup.size() == trackers.size()) {
+			final var frame = frameGroup.getFrame();
+			return frame != null ? frame.getSnapshot() : EMPTY;
+		}
+
+		TrackableContext<?> firstActiveCtx = null;
+		TrackableContext<?>[] activeCtxs = null;
+		int activeCount = 0;
+		for (int i = 0; i < trackers.size(); i++) {
+			final var ctx = trackers.get(i).getCurrentContext();
+			if (ctx == null) continue;
+			if (activeCount == 0) {
+				firstActiveCtx = ctx;
+			} else {
+				if (activeCtxs == null) {
+					activeCtxs = new TrackableContext<?>[trackers.size()];
+					activeCtxs[0] = firstActiveCtx;
+				}
+				activeCtxs[activeCount] = ctx;
+			}
+			activeCount++;
+		}
+		switch (activeCount) {
+			case 0: return EMPTY;
+			case 1: return firstActiveCtx.getSelfSnapshot();
+			default: return new ContextSnapshot(List.of(Arrays.copyOf(activeCtxs, activeCount)));
+		}
+	}
+
+
+
+	/**
+	 * Executes {@code task} synchronously on the current {@code Thread} within all
+	 * {@code Contexts} of this {@code ContextSnapshot}.
+	 * @see TrackableContext#executeWithinAll(List, Throwing4Computation)
+	 */
+	public <
+		R, E1 extends Throwable, E2 extends Throwable, E3 extends Throwable, E4 extends Throwable
+	> R executeWithin(Throwing4Computation<R, E1, E2, E3, E4> task) throws E1, E2, E3, E4 {
+		final var frame = getSharedFrame();
+		if (frame == null) return TrackableContext.executeWithinAll(contexts, task);
+		if (frame.containsAll(contexts)) return task.perform();
+		final var event = ContextEvents.beginContextEntry();
+		final var previousCtxs = frame.enter(this);
+		try {
+			return task.perform();
+		} finally {
+			frame.restoreAll(contexts, previousCtxs);
+			ContextEvents.endContextEntry(event, contexts);
+		}
+	}
+
+	/** Variant of {@link #executeWithin(Throwing4Computation)} for {@link ThrowingTask}s. */
+	public <
+		E1 extends Throwable, E2 extends Throwable, E3 extends Throwable, E4 extends Throwable
+	> void executeWithin(Throwing4Task<E1, E2, E3, E4> task) throws E1, E2, E3, E4 {
+		executeWithin(ThrowingComputation.of(task));
+	}
+
+	/** Variant of {@link #executeWithin(Throwing4Computation)} for {@link Runnable}s. */
+	public void executeWithin(Runnable task) {
+		// implemented directly to avoid additional wrapping of tiny tasks passed between Executors
+		final var frame = getSharedFrame();
+		if (frame == null) {
+			TrackableContext.executeWithinAll(contexts, task);
+			return;
+		}
+		if (frame.containsAll(contexts)) {
+			task.run();
+			return;
+		}
+		final var event = ContextEvents.beginContextEntry();
+		final var previousCtxs = frame.enter(this);
+		try {
+			task.run();
+		} finally {
+			frame.restoreAll(contexts, previousCtxs);
+			ContextEvents.endContextEntry(event, contexts);
+		}
+	}
+
+	/**
+	 * Returns whether all {@code Contexts} of this {@code ContextSnapshot} are already current for
+	 * the calling {@code Thread}, in which case tasks may be executed within them directly.
+	 */
+	boolean isCurrent() {
+		for (int i = 0; i < contexts.size(); i++) {
+			final var ctx = contexts.get(i);
+			if (ctx.getTracker().getCurrentContext() != ctx) return false;
+		}
+		return true;
+	}
+
+
+
+	/**
+	 * Returns an array containing {@code Contexts} of this {@code ContextSnapshot} at indexes equal
+	 * to {@link ContextFrame} slots of their respective {@link ContextTracker}s. Created lazily and
+	 * cached: the returned array must not be modified.
+	 * @throws IllegalArgumentException if {@link ContextTracker}s of this snapshot's
+	 *     {@code Contexts} do not all belong to the same {@link ContextFrame.Group}.
+	 */
+	TrackableContext<?>[] getFrameSlots() {
+		var frameSlots = this.frameSlots;
+		if (frameSlots != null) return frameSlots;
+		if (contexts.isEmpty()) {
+			frameSlots = new TrackableContext<?>[0];
+		} else {
+			final var frameGroup = ContextFrame.Group.ofContexts(contexts);
+			if (frameGroup == null) {
+				throw new IllegalArgumentException(
+						"Trackers of all Contexts of " + this + " must share the same frame");
+			}
+			frameSlots = new TrackableContext<?>[frameGroup.size()];
+			for (int i = 0; i < contexts.size(); i++) {
+				final var ctx = contexts.get(i);
+				frameSlots[ctx.getTracker().frameSlot] = ctx;
+			}
+		}
+		this.frameSlots = frameSlots;  // benign race: the array is never modified once created
+		return frameSlots;
+	}
+	private TrackableContext<?>[] frameSlots;
+
+
+
+	/**
+	 * Returns the calling {@code Thread}'s {@link ContextFrame} if {@link ContextTracker}s of all
+	 * {@code Contexts} of this {@code ContextSnapshot} share one, {@code null} otherwise.
+	 */
+	private ContextFrame getSharedFrame() {
+		if (contexts.size() < 2) return null;  // executeWithinAll(...) handles these optimally
+		final var frameGroup = ContextFrame.Group.ofContexts(contexts);
+		return frameGroup != null ? frameGroup.getOrCreateFrame() : null;
+	}
+
+
+
+	/**
+	 * Indicates whether {@code other} is a {@code ContextSnapshot} of the same {@code Contexts}.
+	 * {@code Contexts} are compared by their identity.
+	 */
+	@Override
+	public boolean equals(Object other) {
+		if (other == this) return true;
+		if ( !(other instanceof ContextSnapshot)) return false;
+		final var otherCtxs = ((ContextSnapshot) other).contexts;
+		if (otherCtxs.size() != contexts.size()) return false;
+		for (int i = 0; i < contexts.size(); i++) {
+			if ( !containsSame(otherCtxs, contexts.get(i))) return false;
+		}
+		return true;
+	}
+
+	static boolean containsSame(List<TrackableContext<?>> contexts, TrackableContext<?> ctx) {
+		for (int i = 0; i < contexts.size(); i++) {
+			if (contexts.get(i) == ctx) return true;
+		}
+		return false;
+	}
+
+	/** Consistent with {@link #equals(Object)}. */
+	@Override
+	public int hashCode() {
+		int hash = 0;
+		for (int i = 0; i < contexts.size(); i++) hash += System.identityHashCode(contexts.get(i));
+		return hash;
+	}
+
+
+
+	@Override
+	public String toString() {
+		return "ContextSnapshot { contexts = " + contexts + " }";
+	}
+}
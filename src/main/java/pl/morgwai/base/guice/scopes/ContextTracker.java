@@ -19,12 +19,97 @@ import pl.morgwai.base.function.Throwing4Computation;
  * <p>
  * {@code ContextTracker} instances are usually created at an app startup to be in turn used by
  * instances of {@link ContextScope}s. See {@link ScopeModule} for details.</p>
+ * <p>
+ * By default each {@code ContextTracker} stores its current {@code Contexts} in its own
+ * {@link ThreadLocal}. {@code ContextTrackers} created by a {@link ScopeModule} constructed with
+ * {@link ScopeModule.Options#shareContextFrame(boolean) shareContextFrame} option set, store them
+ * in a single per-{@code Thread} frame shared with all other {@code Trackers} of the given
+ * {@link ScopeModule}.</p>
  */
 public class ContextTracker<ContextT extends TrackableContext<? super ContextT>> {
 
 
 
-	private final ThreadLocal<ContextT> currentContext = new ThreadLocal<>();
+	private final ThreadLocal<ContextT> currentContext;
+
+	/** {@link ContextFrame.Group} of this {@code Tracker} or {@code null} if not shared. */
+	final ContextFrame.Group frameGroup;
+	final int frameSlot;
+
+	/**
+	 * Whether this {@code Tracker} counts executions within its {@code Contexts}, so that their
+	 * {@link InjectionContext#close(java.util.concurrent.Executor) disposal} can be deferred until
+	 * all of them complete.
+	 * @see #ContextTracker(boolean)
+	 */
+	public boolean tracksExecutions() { return trackExecutions; }
+	final boolean trackExecutions;
+
+	/**
+	 * Name of the {@link ContextScope} using this {@code Tracker} reported in
+	 * {@link ContextEvents JFR events}. Set by the first {@link ContextScope} created for this
+	 * {@code Tracker}.
+	 */
+	volatile String scopeName;
+
+	/** Set by {@link #setEvictionManager(ContextEvictionManager)} or {@code null}. */
+	public ContextEvictionManager<ContextT> getEvictionManager() { return evictionManager; }
+	volatile ContextEvictionManager<ContextT> evictionManager;
+
+	/**
+	 * Makes {@code evictionManager} track accesses to all {@code Contexts} of this
+	 * {@code Tracker} entered afterwards. Passing {@code null} stops the tracking.
+	 * @throws IllegalStateException if this {@code Tracker} does not
+	 *     {@link #tracksExecutions() track executions}, as {@code evictionManager} would not be
+	 *     able to tell which {@code Contexts} are still in use.
+	 */
+	public void setEvictionManager(ContextEvictionManager<ContextT> evictionManager) {
+		if (evictionManager != null && !trackExecutions) {
+			throw new IllegalStateException(
+					"eviction requires a ContextTracker that tracks executions");
+		}
+		this.evictionManager = evictionManager;
+	}
+
+
+
+	/** Calls {@link #ContextTracker(boolean) this(false)}. */
+	public ContextTracker() {
+		this(false);
+	}
+
+
+
+	/**
+	 * Constructs a new instance.
+	 * @param trackExecutions if {@code true}, each execution within a {@code Context} of this
+	 *     {@code Tracker} is counted with an atomic counter in the {@code Context}, so that
+	 *     {@link InjectionContext#close(java.util.concurrent.Executor) closing} it while some
+	 *     {@code Threads} still execute within it (for example
+	 *     {@link ContextBinder bound closures} dispatched to other {@code Threads}) defers the
+	 *     disposal of its scoped {@code Objects} until all of them exit. This adds 2 atomic
+	 *     operations per each {@code Context} entered, so it should be enabled only for
+	 *     {@code Contexts} that are actually closed.
+	 */
+	public ContextTracker(boolean trackExecutions) {
+		currentContext = new ThreadLocal<>();
+		frameGroup = null;
+		frameSlot = -1;
+		this.trackExecutions = trackExecutions;
+	}
+
+
+
+	/**
+	 * Creates a {@code Tracker} that stores its current {@code Contexts} in {@code frameSlot} of
+	 * {@link ContextFrame}s of {@code frameGroup}.
+	 */
+	ContextTracker(ContextFrame.Group frameGroup, int frameSlot, boolean trackExecutions) {
+		currentContext = null;
+		this.frameGroup = frameGroup;
+		this.frameSlot = frameSlot;
+		this.trackExecutions = trackExecutions;
+	}
 
 
 
@@ -35,7 +120,12 @@ public class ContextTracker<ContextT extends TrackableContext<? super ContextT>>
 	 * @see #getActiveContexts(List)
 	 */
 	public ContextT getCurrentContext() {
-		return currentContext.get();
+		if (frameGroup == null) return currentContext.get();
+		final var frame = frameGroup.getFrame();
+		if (frame == null) return null;
+		@SuppressWarnings("unchecked")
+		final var ctx = (ContextT) frame.get(frameSlot);
+		return ctx;
 	}
 
 
@@ -43,7 +133,9 @@ public class ContextTracker<ContextT extends TrackableContext<? super ContextT>>
 	/**
 	 * Sets {@code ctx} as {@link #currentContext the current Context} for the calling
 	 * {@code Thread} and executes {@code task} synchronously.
-	 * Afterwards clears {@link #currentContext} for the {@code Thread}.
+	 * Afterwards restores the previously current {@code Context} (usually {@code null}) for the
+	 * {@code Thread}, so that nested calls do not clear the outer {@code Context}. If {@code ctx}
+	 * is already current, {@code task} is executed directly without any writes.
 	 * <p>
 	 * For internal use by{@link TrackableContext#executeWithinSelf(Throwing4Computation)}.</p>
 	 */
@@ -53,11 +145,35 @@ public class ContextTracker<ContextT extends TrackableContext<? super ContextT>>
 		ContextT ctx,
 		Throwing4Computation<R, E1, E2, E3, E4> task
 	) throws E1, E2, E3, E4 {
+		if (frameGroup != null) {
+			final var frame = frameGroup.getOrCreateFrame();
+			final var previousCtx = frame.get(frameSlot);
+			if (previousCtx == ctx) return task.perform();
+			final var event = ContextEvents.beginContextEntry();
+			if (trackExecutions) ctx.beginExecution();
+			stampAccess(ctx);
+			frame.set(frameSlot, ctx);
+			try {
+				return task.perform();
+			} finally {
+				frame.set(frameSlot, previousCtx);
+				if (trackExecutions) ctx.endExecution();
+				ContextEvents.endContextEntry(event, ctx);
+			}
+		}
+
+		final var previousCtx = currentContext.get();
+		if (previousCtx == ctx) return task.perform();
+		final var event = ContextEvents.beginContextEntry();
+		if (trackExecutions) ctx.beginExecution();
+		stampAccess(ctx);
 		currentContext.set(ctx);
 		try {
 			return task.perform();
 		} finally {
-			currentContext.remove();
+			restoreThreadLocal(previousCtx);
+			if (trackExecutions) ctx.endExecution();
+			ContextEvents.endContextEntry(event, ctx);
 		}
 	}
 
@@ -68,11 +184,105 @@ public class ContextTracker<ContextT extends TrackableContext<? super ContextT>>
 	 * {@link java.util.concurrent.Executor}s.
 	 */
 	final void trackWhileExecuting(ContextT ctx, Runnable task) {
+		if (frameGroup != null) {
+			final var frame = frameGroup.getOrCreateFrame();
+			final var previousCtx = frame.get(frameSlot);
+			if (previousCtx == ctx) {
+				task.run();
+				return;
+			}
+			final var event = ContextEvents.beginContextEntry();
+			if (trackExecutions) ctx.beginExecution();
+			stampAccess(ctx);
+			frame.set(frameSlot, ctx);
+			try {
+				task.run();
+			} finally {
+				frame.set(frameSlot, previousCtx);
+				if (trackExecutions) ctx.endExecution();
+				ContextEvents.endContextEntry(event, ctx);
+			}
+			return;
+		}
+
+		final var previousCtx = currentContext.get();
+		if (previousCtx == ctx) {
+			task.run();
+			return;
+		}
+		final var event = ContextEvents.beginContextEntry();
+		if (trackExecutions) ctx.beginExecution();
+		stampAccess(ctx);
 		currentContext.set(ctx);
 		try {
 			task.run();
 		} finally {
+			restoreThreadLocal(previousCtx);
+			if (trackExecutions) ctx.endExecution();
+			ContextEvents.endContextEntry(event, ctx);
+		}
+	}
+
+
+
+	/** Stamps {@code ctx} for the {@link #evictionManager} if any. */
+	final void stampAccess(TrackableContext<?> ctx) {
+		final var evictionManager = this.evictionManager;
+		if (evictionManager != null) evictionManager.touch(ctx);
+	}
+
+
+
+	/**
+	 * Sets {@code ctx} as the current {@code Context} for the calling {@code Thread}.
+	 * Each call must be followed by a {@link #clearCurrentContext()} or a
+	 * {@link #restoreCurrentContext(TrackableContext)} call in a {@code finally} block.
+	 * <p>
+	 * For internal use by
+	 * {@link TrackableContext#executeWithinAll(List, Throwing4Computation)}.</p>
+	 */
+	final void setCurrentContext(ContextT ctx) {
+		if (frameGroup != null) {
+			frameGroup.getOrCreateFrame().set(frameSlot, ctx);
+		} else {
+			currentContext.set(ctx);
+		}
+	}
+
+	/** Clears the current {@code Context} set by {@link #setCurrentContext(TrackableContext)}. */
+	final void clearCurrentContext() {
+		if (frameGroup != null) {
+			frameGroup.getOrCreateFrame().set(frameSlot, null);
+		} else {
+			currentContext.remove();
+		}
+	}
+
+	/**
+	 * Restores {@code previousCtx} (possibly {@code null}) as the current {@code Context} after
+	 * {@link #setCurrentContext(TrackableContext) entering} another one.
+	 * {@code previousCtx} must be a {@code Context} tracked by this {@code Tracker}.
+	 */
+	final void restoreCurrentContext(TrackableContext<?> previousCtx) {
+		@SuppressWarnings("unchecked")
+		final var typedCtx = (ContextT) previousCtx;
+		if (frameGroup != null) {
+			frameGroup.getOrCreateFrame().set(frameSlot, typedCtx);
+		} else {
+			restoreThreadLocal(typedCtx);
+		}
+	}
+
+	/**
+	 * Restores {@code previousCtx} in {@link #currentContext}, {@link ThreadLocal#remove()
+	 * removing} the entry of the calling {@code Thread} if it is {@code null}, so that no entries
+	 * are left on pooled {@code Threads}.
+	 */
+	private void restoreThreadLocal(ContextT previousCtx) {
+		if (previousCtx == null) {
 			currentContext.remove();
+		} else {
+			currentContext.set(previousCtx);
 		}
 	}
 
@@ -86,11 +296,29 @@ public class ContextTracker<ContextT extends TrackableContext<? super ContextT>>
 	 * {@code Contexts} when switching to another {@code  Thread}. All
 	 * {@link InducedContextScope Contexts induced} by any of the returned {@link TrackableContext}s
 	 * will also "follow" automatically their inducers to the new {@code Thread}.
+	 * <p>
+	 * If all {@code trackers} share the same per-{@code Thread} frame (see
+	 * {@link ScopeModule.Options#shareContextFrame(boolean)}), the frame is read only once.</p>
 	 */
 	public static List<TrackableContext<?>> getActiveContexts(List<ContextTracker<?>> trackers) {
-		if (trackers.size() == 1) {  // optimize for the most common tracker count
-			final var ctx = trackers.get(0).getCurrentContext();
-			return ctx != null ? List.of(ctx) : List.of();
+		switch (trackers.size()) {
+			case 1:  // optimize for the most common tracker count
+				final var ctx = trackers.get(0).getCurrentContext();
+				return ctx != null ? List.of(ctx) : List.of();
+			case 0:
+				return List.of();
+		}
+
+		final var frameGroup = ContextFrame.Group.of(trackers);
+		if (frameGroup != null) {
+			final var frame = frameGroup.getFrame();
+			if (frame == null) return List.of();
+			final var activeCtxs = new ArrayList<TrackableContext<?>>(trackers.size());
+			for (int i = 0; i < trackers.size(); i++) {
+				final var ctx = frame.get(trackers.get(i).frameSlot);
+				if (ctx != null) activeCtxs.add(ctx);
+			}
+			return activeCtxs;
 		}
 
 		final var activeCtxs = new ArrayList<TrackableContext<?>>(trackers.size());
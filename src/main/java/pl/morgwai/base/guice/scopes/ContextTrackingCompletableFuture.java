@@ -0,0 +1,418 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.util.concurrent.*;
+import java.util.function.*;
+
+import pl.morgwai.base.function.ThrowingComputation;
+
+
+
+/**
+ * {@link CompletableFuture} that executes all its dependent stages within
+ * {@link TrackableContext Contexts} of a {@link ContextSnapshot} captured once when the first
+ * future of a given pipeline is created.
+ * Dependent futures created by any stage method share the same {@link #snapshot} (via
+ * {@link #newIncompleteFuture()}), so no {@code Contexts} are captured per stage:<ul>
+ *   <li>async stages without an explicit {@link Executor} are dispatched to
+ *       {@link #defaultExecutor()}, that enters {@link #snapshot} before running them,</li>
+ *   <li>functions of sync stages and of async stages with an explicit {@link Executor} are
+ *       wrapped to enter {@link #snapshot} unless the executing {@code Thread} already runs
+ *       within its {@code Contexts} (for example when the stage is completed by a previous async
+ *       stage of the same pipeline).</li>
+ * </ul>
+ * <p>
+ * Arbitrary {@link CompletionStage}s may be converted with
+ * {@link #of(CompletionStage, ContextBinder)}.</p>
+ * <p>
+ * Note: stage methods added after Java 11 (such as {@code exceptionallyCompose(...)}) are not
+ * overridden, so only their async variants without an explicit {@link Executor} run within
+ * {@link #snapshot}.</p>
+ */
+public class ContextTrackingCompletableFuture<T> extends CompletableFuture<T> {
+
+
+
+	public ContextSnapshot getSnapshot() { return snapshot; }
+	public final ContextSnapshot snapshot;
+
+	/** Executes tasks within {@link #snapshot}: shared by all futures of a given pipeline. */
+	final Executor ctxExecutor;
+	/** The {@link Executor} wrapped by {@link #ctxExecutor}. */
+	final Executor executor;
+
+
+
+	/**
+	 * Creates an incomplete future, whose async stages will be executed by {@code executor} and all
+	 * stages within {@code Contexts} of {@code snapshot}.
+	 */
+	public ContextTrackingCompletableFuture(ContextSnapshot snapshot, Executor executor) {
+		this(
+			snapshot,
+			executor,
+			(task) -> executor.execute(new ContextBoundRunnable(snapshot, task))
+		);
+	}
+
+	/**
+	 * Creates an incomplete future, whose stages will be executed within {@code Contexts} active
+	 * at the moment of this call as captured by {@code ctxBinder}.
+	 * Async stages will be executed by the {@link CompletableFuture}'s default async
+	 * {@link Executor}.
+	 */
+	public ContextTrackingCompletableFuture(ContextBinder ctxBinder) {
+		this(ctxBinder.captureSnapshot(), ASYNC_POOL);
+	}
+
+	ContextTrackingCompletableFuture(
+		ContextSnapshot snapshot,
+		Executor executor,
+		Executor ctxExecutor
+	) {
+		this.snapshot = snapshot;
+		this.executor = executor;
+		this.ctxExecutor = ctxExecutor;
+	}
+
+	/** The default async {@link Executor} of {@link CompletableFuture}. */
+	static final Executor ASYNC_POOL = new CompletableFuture<Void>().defaultExecutor();
+
+
+
+	/**
+	 * Returns a {@code ContextTrackingCompletableFuture} completed with {@code supplier}'s result
+	 * obtained asynchronously within the {@code Contexts} captured by {@code ctxBinder}.
+	 */
+	public static <T> ContextTrackingCompletableFuture<T> supplyAsync(
+		ContextBinder ctxBinder,
+		Supplier<T> supplier
+	) {
+		final var future = new ContextTrackingCompletableFuture<T>(ctxBinder);
+		future.completeAsync(supplier);
+		return future;
+	}
+
+
+
+	/**
+	 * Returns a {@code ContextTrackingCompletableFuture} completed after {@code task} is run
+	 * asynchronously within the {@code Contexts} captured by {@code ctxBinder}.
+	 */
+	public static ContextTrackingCompletableFuture<Void> runAsync(
+		ContextBinder ctxBinder,
+		Runnable task
+	) {
+		return supplyAsync(
+			ctxBinder,
+			() -> {
+				task.run();
+				return null;
+			}
+		);
+	}
+
+
+
+	/**
+	 * Converts {@code stage} into a {@code ContextTrackingCompletableFuture}, whose dependent
+	 * stages will be executed within the {@code Contexts} captured by {@code ctxBinder}.
+	 * If {@code stage} is a {@code ContextTrackingCompletableFuture} already, it is returned
+	 * as is.
+	 */
+	public static <T> ContextTrackingCompletableFuture<T> of(
+		CompletionStage<T> stage,
+		ContextBinder ctxBinder
+	) {
+		if (stage instanceof ContextTrackingCompletableFuture) {
+			return (ContextTrackingCompletableFuture<T>) stage;
+		}
+		return of(stage, new ContextTrackingCompletableFuture<>(ctxBinder));
+	}
+
+	/**
+	 * Converts {@code stage} into a {@code ContextTrackingCompletableFuture}, whose dependent
+	 * stages will be executed within {@code Contexts} of {@code snapshot} and async ones by
+	 * {@code executor}.
+	 */
+	public static <T> ContextTrackingCompletableFuture<T> of(
+		CompletionStage<T> stage,
+		ContextSnapshot snapshot,
+		Executor executor
+	) {
+		return of(stage, new ContextTrackingCompletableFuture<>(snapshot, executor));
+	}
+
+	static <T> ContextTrackingCompletableFuture<T> of(
+		CompletionStage<T> stage,
+		ContextTrackingCompletableFuture<T> future
+	) {
+		stage.whenComplete((result, failure) -> {
+			if (failure != null) {
+				future.completeExceptionally(failure);
+			} else {
+				future.complete(result);
+			}
+		});
+		return future;
+	}
+
+
+
+	/** Returns a new incomplete future sharing {@link #snapshot} with this one. */
+	@Override
+	public <U> ContextTrackingCompletableFuture<U> newIncompleteFuture() {
+		return new ContextTrackingCompletableFuture<>(snapshot, executor, ctxExecutor);
+	}
+
+	/**
+	 * Returns an {@link Executor} that executes tasks within {@link #snapshot} using the
+	 * {@link Executor} passed to the constructor.
+	 */
+	@Override
+	public Executor defaultExecutor() {
+		return ctxExecutor;
+	}
+
+
+
+	<A, R> Function<A, R> bindFunction(Function<? super A, ? extends R> fn) {
+		return (a) -> snapshot.isCurrent()
+				? fn.apply(a)
+				: snapshot.executeWithin(ThrowingComputation.ofSupplier(() -> fn.apply(a)));
+	}
+
+	<A, B, R> BiFunction<A, B, R> bindBiFunction(
+		BiFunction<? super A, ? super B, ? extends R> fn
+	) {
+		return (a, b) -> snapshot.isCurrent()
+				? fn.apply(a, b)
+				: snapshot.executeWithin(ThrowingComputation.ofSupplier(() -> fn.apply(a, b)));
+	}
+
+	<A> Consumer<A> bindConsumer(Consumer<? super A> action) {
+		return (a) -> {
+			if (snapshot.isCurrent()) {
+				action.accept(a);
+			} else {
+				snapshot.executeWithin((Runnable) () -> action.accept(a));
+			}
+		};
+	}
+
+	<A, B> BiConsumer<A, B> bindBiConsumer(BiConsumer<? super A, ? super B> action) {
+		return (a, b) -> {
+			if (snapshot.isCurrent()) {
+				action.accept(a, b);
+			} else {
+				snapshot.executeWithin((Runnable) () -> action.accept(a, b));
+			}
+		};
+	}
+
+	Runnable bindRunnable(Runnable action) {
+		return () -> {
+			if (snapshot.isCurrent()) {
+				action.run();
+			} else {
+				snapshot.executeWithin(action);
+			}
+		};
+	}
+
+	<R> Supplier<R> bindSupplier(Supplier<? extends R> supplier) {
+		return () -> snapshot.isCurrent()
+				? supplier.get()
+				: snapshot.executeWithin(ThrowingComputation.ofSupplier(supplier));
+	}
+
+
+
+	@Override
+	public <U> CompletableFuture<U> thenApply(Function<? super T, ? extends U> fn) {
+		return super.thenApply(bindFunction(fn));
+	}
+
+	@Override
+	public <U> CompletableFuture<U> thenApplyAsync(
+		Function<? super T, ? extends U> fn,
+		Executor executor
+	) {
+		return super.thenApplyAsync(bindFunction(fn), executor);
+	}
+
+	@Override
+	public CompletableFuture<Void> thenAccept(Consumer<? super T> action) {
+		return super.thenAccept(bindConsumer(action));
+	}
+
+	@Override
+	public CompletableFuture<Void> thenAcceptAsync(Consumer<? super T> action, Executor executor) {
+		return super.thenAcceptAsync(bindConsumer(action), executor);
+	}
+
+	@Override
+	public CompletableFuture<Void> thenRun(Runnable action) {
+		return super.thenRun(bindRunnable(action));
+	}
+
+	@Override
+	public CompletableFuture<Void> thenRunAsync(Runnable action, Executor executor) {
+		return super.thenRunAsync(bindRunnable(action), executor);
+	}
+
+	@Override
+	public <U, V> CompletableFuture<V> thenCombine(
+		CompletionStage<? extends U> other,
+		BiFunction<? super T, ? super U, ? extends V> fn
+	) {
+		return super.thenCombine(other, bindBiFunction(fn));
+	}
+
+	@Override
+	public <U, V> CompletableFuture<V> thenCombineAsync(
+		CompletionStage<? extends U> other,
+		BiFunction<? super T, ? super U, ? extends V> fn,
+		Executor executor
+	) {
+		return super.thenCombineAsync(other, bindBiFunction(fn), executor);
+	}
+
+	@Override
+	public <U> CompletableFuture<Void> thenAcceptBoth(
+		CompletionStage<? extends U> other,
+		BiConsumer<? super T, ? super U> action
+	) {
+		return super.thenAcceptBoth(other, bindBiConsumer(action));
+	}
+
+	@Override
+	public <U> CompletableFuture<Void> thenAcceptBothAsync(
+		CompletionStage<? extends U> other,
+		BiConsumer<? super T, ? super U> action,
+		Executor executor
+	) {
+		return super.thenAcceptBothAsync(other, bindBiConsumer(action), executor);
+	}
+
+	@Override
+	public CompletableFuture<Void> runAfterBoth(CompletionStage<?> other, Runnable action) {
+		return super.runAfterBoth(other, bindRunnable(action));
+	}
+
+	@Override
+	public CompletableFuture<Void> runAfterBothAsync(
+		CompletionStage<?> other,
+		Runnable action,
+		Executor executor
+	) {
+		return super.runAfterBothAsync(other, bindRunnable(action), executor);
+	}
+
+	@Override
+	public <U> CompletableFuture<U> applyToEither(
+		CompletionStage<? extends T> other,
+		Function<? super T, U> fn
+	) {
+		return super.applyToEither(other, bindFunction(fn));
+	}
+
+	@Override
+	public <U> CompletableFuture<U> applyToEitherAsync(
+		CompletionStage<? extends T> other,
+		Function<? super T, U> fn,
+		Executor executor
+	) {
+		return super.applyToEitherAsync(other, bindFunction(fn), executor);
+	}
+
+	@Override
+	public CompletableFuture<Void> acceptEither(
+		CompletionStage<? extends T> other,
+		Consumer<? super T> action
+	) {
+		return super.acceptEither(other, bindConsumer(action));
+	}
+
+	@Override
+	public CompletableFuture<Void> acceptEitherAsync(
+		CompletionStage<? extends T> other,
+		Consumer<? super T> action,
+		Executor executor
+	) {
+		return super.acceptEitherAsync(other, bindConsumer(action), executor);
+	}
+
+	@Override
+	public CompletableFuture<Void> runAfterEither(CompletionStage<?> other, Runnable action) {
+		return super.runAfterEither(other, bindRunnable(action));
+	}
+
+	@Override
+	public CompletableFuture<Void> runAfterEitherAsync(
+		CompletionStage<?> other,
+		Runnable action,
+		Executor executor
+	) {
+		return super.runAfterEitherAsync(other, bindRunnable(action), executor);
+	}
+
+	@Override
+	public <U> CompletableFuture<U> thenCompose(
+		Function<? super T, ? extends CompletionStage<U>> fn
+	) {
+		return super.thenCompose(bindFunction(fn));
+	}
+
+	@Override
+	public <U> CompletableFuture<U> thenComposeAsync(
+		Function<? super T, ? extends CompletionStage<U>> fn,
+		Executor executor
+	) {
+		return super.thenComposeAsync(bindFunction(fn), executor);
+	}
+
+	@Override
+	public CompletableFuture<T> whenComplete(BiConsumer<? super T, ? super Throwable> action) {
+		return super.whenComplete(bindBiConsumer(action));
+	}
+
+	@Override
+	public CompletableFuture<T> whenCompleteAsync(
+		BiConsumer<? super T, ? super Throwable> action,
+		Executor executor
+	) {
+		return super.whenCompleteAsync(bindBiConsumer(action), executor);
+	}
+
+	@Override
+	public <U> CompletableFuture<U> handle(BiFunction<? super T, Throwable, ? extends U> fn) {
+		return super.handle(bindBiFunction(fn));
+	}
+
+	@Override
+	public <U> CompletableFuture<U> handleAsync(
+		BiFunction<? super T, Throwable, ? extends U> fn,
+		Executor executor
+	) {
+		return super.handleAsync(bindBiFunction(fn), executor);
+	}
+
+	@Override
+	public CompletableFuture<T> exceptionally(Function<Throwable, ? extends T> fn) {
+		return super.exceptionally(bindFunction(fn));
+	}
+
+	@Override
+	public CompletableFuture<T> completeAsync(Supplier<? extends T> supplier, Executor executor) {
+		return super.completeAsync(bindSupplier(supplier), executor);
+	}
+
+
+
+	@Override
+	public String toString() {
+		return "ContextTrackingCompletableFuture { snapshot = " + snapshot + ", future = "
+				+ super.toString() + " }";
+	}
+}
@@ -2,6 +2,8 @@
 package pl.morgwai.base.guice.scopes;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
 
 
 
@@ -42,10 +44,25 @@ public interface ContextTrackingExecutor extends Executor {
 	 * {@link ContextBinder#bindToContext(Runnable) Binds} {@code task} to active
 	 * {@link InjectionContext Context}s using {@link #getContextBinder() the associated Binder} and
 	 * sends it to {@link #getExecutor() the underlying Executor}.
+	 * <p>
+	 * If the underlying {@link Executor} is an {@link InlineCapableExecutor} that
+	 * {@link InlineCapableExecutor#canExecuteInline() can execute inline} at the moment of this
+	 * call, {@code task} is run directly by the calling {@code Thread} instead.</p>
 	 */
 	@Override
 	default void execute(Runnable task) {
-		getExecutor().execute(getContextBinder().bindToContext(task));
+		final var executor = getExecutor();
+		if (executor instanceof InlineCapableExecutor
+				&& ((InlineCapableExecutor) executor).canExecuteInline()) {
+			task.run();
+			return;
+		}
+		final var boundTask = getContextBinder().bindToContext(task);
+		executor.execute(
+			ContextEvents.isExecutorHopEnabled()
+				? ContextEvents.wrapForExecutorHop(boundTask, this)
+				: boundTask
+		);
 	}
 
 
@@ -64,4 +81,46 @@ public interface ContextTrackingExecutor extends Executor {
 			}
 		};
 	}
+
+
+
+	/**
+	 * Creates a {@link ContextTrackingExecutor} that starts a new {@code Thread} obtained from
+	 * {@code threadFactory} for each task.
+	 * Each task is {@link ContextBinder#bindToContext(Runnable) bound} to active {@code Context}s
+	 * the same way as by {@link #execute(Runnable) the default implementation} and the resulting
+	 * {@link ContextBoundRunnable} is passed directly to
+	 * {@link ThreadFactory#newThread(Runnable)}, so the captured {@code Context}s are entered right
+	 * at the start of the new {@code Thread} without any additional wrapping nor queueing.
+	 * <p>
+	 * This is intended mainly for virtual {@code Thread}s on Java 21+: for example
+	 * {@code ContextTrackingExecutor.threadPerTask(Thread.ofVirtual().factory(), ctxBinder)}.
+	 * Tasks performing blocking I/O will then neither wait in a queue nor require sizing of a
+	 * pool.</p>
+	 * @throws RejectedExecutionException from {@link #execute(Runnable)} if
+	 *     {@code threadFactory} returns {@code null}.
+	 */
+	static ContextTrackingExecutor threadPerTask(
+		ThreadFactory threadFactory,
+		ContextBinder ctxBinder
+	) {
+		final Executor threadStarter = (task) -> {
+			final var thread = threadFactory.newThread(task);
+			if (thread == null) {
+				throw new RejectedExecutionException(threadFactory + " rejected " + task);
+			}
+			thread.start();
+		};
+		return new ContextTrackingExecutor() {
+			@Override public Executor getExecutor() {
+				return threadStarter;
+			}
+			@Override public ContextBinder getContextBinder() {
+				return ctxBinder;
+			}
+			@Override public String toString() {
+				return "ContextTrackingExecutor { threadFactory = " + threadFactory + " }";
+			}
+		};
+	}
 }
@@ -0,0 +1,141 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+
+
+
+/**
+ * {@link ExecutorService} decorator that transfers active {@link TrackableContext Contexts} to all
+ * tasks passed to any of its methods.
+ * <ul>
+ *   <li>{@link #execute(Runnable)} binds tasks the same way as
+ *       {@link ContextTrackingExecutor#execute(Runnable) the default implementation}.</li>
+ *   <li>{@code submit(...)} methods return {@link ContextBoundFutureTask}s, that carry the
+ *       captured {@link ContextSnapshot}, so that callbacks registered on their
+ *       {@link ContextBoundFutureTask#toCompletableFuture() completion stages} run within the same
+ *       {@code Contexts}.</li>
+ *   <li>{@code invokeAll(...)} and {@code invokeAny(...)} capture active {@code Contexts} only once
+ *       for the whole batch and pass the bound tasks to the respective method of the wrapped
+ *       {@link ExecutorService}.</li>
+ * </ul>
+ */
+public class ContextTrackingExecutorService extends AbstractExecutorService
+		implements ContextTrackingExecutor {
+
+
+
+	final ExecutorService wrappedExecutor;
+	final ContextBinder ctxBinder;
+
+
+
+	public ContextTrackingExecutorService(ExecutorService executorToWrap, ContextBinder ctxBinder) {
+		this.wrappedExecutor = executorToWrap;
+		this.ctxBinder = ctxBinder;
+	}
+
+
+
+	@Override
+	public ExecutorService getExecutor() {
+		return wrappedExecutor;
+	}
+
+	@Override
+	public ContextBinder getContextBinder() {
+		return ctxBinder;
+	}
+
+
+
+	@Override
+	public void execute(Runnable task) {
+		ContextTrackingExecutor.super.execute(task);
+	}
+
+
+
+	@Override
+	public <T> ContextBoundFutureTask<T> submit(Callable<T> task) {
+		final var futureTask =
+				new ContextBoundFutureTask<>(ctxBinder.captureSnapshot(), task, this);
+		wrappedExecutor.execute(futureTask);
+		return futureTask;
+	}
+
+	@Override
+	public <T> ContextBoundFutureTask<T> submit(Runnable task, T result) {
+		return submit(Executors.callable(task, result));
+	}
+
+	@Override
+	public ContextBoundFutureTask<?> submit(Runnable task) {
+		return submit(Executors.callable(task));
+	}
+
+
+
+	@Override
+	public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks)
+			throws InterruptedException {
+		return wrappedExecutor.invokeAll(ctxBinder.bindAllToContext(tasks));
+	}
+
+	@Override
+	public <T> List<Future<T>> invokeAll(
+		Collection<? extends Callable<T>> tasks,
+		long timeout,
+		TimeUnit unit
+	) throws InterruptedException {
+		return wrappedExecutor.invokeAll(ctxBinder.bindAllToContext(tasks), timeout, unit);
+	}
+
+	@Override
+	public <T> T invokeAny(Collection<? extends Callable<T>> tasks)
+			throws InterruptedException, ExecutionException {
+		return wrappedExecutor.invokeAny(ctxBinder.bindAllToContext(tasks));
+	}
+
+	@Override
+	public <T> T invokeAny(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+			throws InterruptedException, ExecutionException, TimeoutException {
+		return wrappedExecutor.invokeAny(ctxBinder.bindAllToContext(tasks), timeout, unit);
+	}
+
+
+
+	@Override
+	public void shutdown() {
+		wrappedExecutor.shutdown();
+	}
+
+	@Override
+	public List<Runnable> shutdownNow() {
+		return wrappedExecutor.shutdownNow();
+	}
+
+	@Override
+	public boolean isShutdown() {
+		return wrappedExecutor.isShutdown();
+	}
+
+	@Override
+	public boolean isTerminated() {
+		return wrappedExecutor.isTerminated();
+	}
+
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		return wrappedExecutor.awaitTermination(timeout, unit);
+	}
+
+
+
+	@Override
+	public String toString() {
+		return "ContextTrackingExecutorService { wrappedExecutor = " + wrappedExecutor + " }";
+	}
+}
@@ -0,0 +1,115 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+
+
+
+/**
+ * {@link ForkJoinPool} that transfers active {@link TrackableContext Contexts} to tasks submitted
+ * to it from outside.
+ * {@link Runnable}s and {@link Callable}s are {@link ContextBinder#bindToContext(Callable) bound}
+ * to {@code Contexts} active at the moment of their submission.
+ * <p>
+ * {@link ForkJoinTask}s are always passed to the pool as they are, so that the pool schedules,
+ * cancels and completes the very task that was submitted and work-stealing applies to it as usual.
+ * Therefore only {@link ContextTrackingRecursiveTask}s and {@link ContextTrackingRecursiveAction}s
+ * run within {@code Contexts}: they carry a {@link ContextSnapshot} captured at their creation,
+ * which is shared by all their subtasks regardless of which worker {@code Thread} executes them.
+ * Any other {@link ForkJoinTask} runs outside of any {@code Context}.</p>
+ */
+public class ContextTrackingForkJoinPool extends ForkJoinPool implements ContextTrackingExecutor {
+
+
+
+	final Executor rawExecutor = super::execute;
+	final ContextBinder ctxBinder;
+
+
+
+	/**
+	 * Creates a pool with parallelism equal to the number of available processors.
+	 * @see ForkJoinPool#ForkJoinPool()
+	 */
+	public ContextTrackingForkJoinPool(ContextBinder ctxBinder) {
+		this.ctxBinder = ctxBinder;
+	}
+
+	/** @see ForkJoinPool#ForkJoinPool(int) */
+	public ContextTrackingForkJoinPool(int parallelism, ContextBinder ctxBinder) {
+		super(parallelism);
+		this.ctxBinder = ctxBinder;
+	}
+
+
+
+	@Override
+	public Executor getExecutor() {
+		return rawExecutor;
+	}
+
+	@Override
+	public ContextBinder getContextBinder() {
+		return ctxBinder;
+	}
+
+
+
+	@Override
+	public void execute(Runnable task) {
+		ContextTrackingExecutor.super.execute(task);
+	}
+
+
+
+	@Override
+	public <T> ForkJoinTask<T> submit(Callable<T> task) {
+		return super.submit(bindToContext(task));
+	}
+
+	@Override
+	public <T> ForkJoinTask<T> submit(Runnable task, T result) {
+		return super.submit(ctxBinder.bindToContext(task), result);
+	}
+
+	@Override
+	public ForkJoinTask<?> submit(Runnable task) {
+		return super.submit(ctxBinder.bindToContext(task));
+	}
+
+
+
+	@Override
+	public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) {
+		return super.invokeAll(ctxBinder.bindAllToContext(tasks));
+	}
+
+	@Override
+	public <T> List<Future<T>> invokeAll(
+		Collection<? extends Callable<T>> tasks,
+		long timeout,
+		TimeUnit unit
+	) throws InterruptedException {
+		return super.invokeAll(ctxBinder.bindAllToContext(tasks), timeout, unit);
+	}
+
+	@Override
+	public <T> T invokeAny(Collection<? extends Callable<T>> tasks)
+			throws InterruptedException, ExecutionException {
+		return super.invokeAny(ctxBinder.bindAllToContext(tasks));
+	}
+
+	@Override
+	public <T> T invokeAny(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+			throws InterruptedException, ExecutionException, TimeoutException {
+		return super.invokeAny(ctxBinder.bindAllToContext(tasks), timeout, unit);
+	}
+
+
+
+	<T> Callable<T> bindToContext(Callable<T> task) {
+		return ctxBinder.bindToContext(task)::perform;
+	}
+}
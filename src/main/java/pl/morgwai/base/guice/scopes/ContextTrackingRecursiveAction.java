@@ -0,0 +1,55 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.util.concurrent.RecursiveAction;
+
+
+
+/**
+ * {@link RecursiveAction} that {@link #computeWithinContexts() computes} within
+ * {@link TrackableContext Contexts} of its {@link #snapshot}.
+ * See {@link ContextTrackingRecursiveTask} for details.
+ * @see ContextTrackingForkJoinPool
+ */
+public abstract class ContextTrackingRecursiveAction extends RecursiveAction {
+
+
+
+	public ContextSnapshot getSnapshot() { return snapshot; }
+	public final ContextSnapshot snapshot;
+
+
+
+	/** Constructs a task that will compute within {@code Contexts} of {@code snapshot}. */
+	protected ContextTrackingRecursiveAction(ContextSnapshot snapshot) {
+		this.snapshot = snapshot;
+	}
+
+	/**
+	 * Constructs a root task that will compute within {@code Contexts} active at the moment of this
+	 * call, as captured by {@code ctxBinder}.
+	 */
+	protected ContextTrackingRecursiveAction(ContextBinder ctxBinder) {
+		this(ctxBinder.captureSnapshot());
+	}
+
+
+
+	/** The main computation performed by this task within {@code Contexts} of its snapshot. */
+	protected abstract void computeWithinContexts();
+
+
+
+	@Override
+	protected final void compute() {
+		if (snapshot.isCurrent()) {
+			computeWithinContexts();
+		} else {
+			snapshot.executeWithin((Runnable) this::computeWithinContexts);
+		}
+	}
+
+
+
+	private static final long serialVersionUID = 3032624958935151049L;
+}
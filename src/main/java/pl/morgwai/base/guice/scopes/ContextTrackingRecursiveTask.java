@@ -0,0 +1,61 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.util.concurrent.RecursiveTask;
+
+import pl.morgwai.base.function.ThrowingComputation;
+
+
+
+/**
+ * {@link RecursiveTask} that {@link #computeWithinContexts() computes} within
+ * {@link TrackableContext Contexts} of its {@link #snapshot}.
+ * A root task captures active {@code Contexts} once when it is created with
+ * {@link #ContextTrackingRecursiveTask(ContextBinder)}. Its subtasks should be created with
+ * {@link #ContextTrackingRecursiveTask(ContextSnapshot)} passing the parent's {@link #snapshot},
+ * so that forking does not capture nor bind anything. {@code Contexts} are entered only if a given
+ * task is executed by a {@code Thread} that is not already running within them (for example after
+ * being stolen by another worker of a {@link java.util.concurrent.ForkJoinPool}), so subtasks
+ * executed by their parent's {@code Thread} run with no overhead.
+ * @see ContextTrackingRecursiveAction
+ * @see ContextTrackingForkJoinPool
+ */
+public abstract class ContextTrackingRecursiveTask<V> extends RecursiveTask<V> {
+
+
+
+	public ContextSnapshot getSnapshot() { return snapshot; }
+	public final ContextSnapshot snapshot;
+
+
+
+	/** Constructs a task that will compute within {@code Contexts} of {@code snapshot}. */
+	protected ContextTrackingRecursiveTask(ContextSnapshot snapshot) {
+		this.snapshot = snapshot;
+	}
+
+	/**
+	 * Constructs a root task that will compute within {@code Contexts} active at the moment of this
+	 * call, as captured by {@code ctxBinder}.
+	 */
+	protected ContextTrackingRecursiveTask(ContextBinder ctxBinder) {
+		this(ctxBinder.captureSnapshot());
+	}
+
+
+
+	/** The main computation performed by this task within {@code Contexts} of its snapshot. */
+	protected abstract V computeWithinContexts();
+
+
+
+	@Override
+	protected final V compute() {
+		if (snapshot.isCurrent()) return computeWithinContexts();
+		return snapshot.executeWithin(ThrowingComputation.ofSupplier(this::computeWithinContexts));
+	}
+
+
+
+	private static final long serialVersionUID = -2702524883516463349L;
+}
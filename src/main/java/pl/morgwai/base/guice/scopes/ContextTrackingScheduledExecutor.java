@@ -0,0 +1,238 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.*;
+
+
+
+/**
+ * {@link ScheduledThreadPoolExecutor} that transfers active {@link TrackableContext Contexts} to
+ * all tasks scheduled or executed by it.
+ * Active {@code Contexts} are captured once per schedule as a {@link ContextSnapshot} when a given
+ * task is {@link #decorateTask(Runnable, RunnableScheduledFuture) decorated} and re-entered on each
+ * run, so periodic tasks are neither re-bound nor cause any allocations when they are re-run.
+ * <p>
+ * All tasks returned by this executor are {@link ContextBoundScheduledFuture}s, that are also
+ * indexed by their {@code Contexts}, so that all tasks scheduled within a given {@code Context}
+ * may be {@link #cancelAll(TrackableContext, boolean) cancelled in bulk}, for example when the
+ * {@code Context} ends.</p>
+ */
+public class ContextTrackingScheduledExecutor extends ScheduledThreadPoolExecutor
+		implements ContextTrackingExecutor {
+
+
+
+	final ContextBinder ctxBinder;
+	final Executor ownExecutor = super::execute;
+
+	/**
+	 * Uncompleted tasks indexed by their {@code Contexts}. Sets are only accessed within
+	 * {@link ConcurrentHashMap#compute(Object, java.util.function.BiFunction) atomic map methods}.
+	 */
+	final ConcurrentMap<TrackableContext<?>, Set<ContextBoundScheduledFuture<?>>> tasksByCtx =
+			new ConcurrentHashMap<>();
+
+
+
+	/** @see ScheduledThreadPoolExecutor#ScheduledThreadPoolExecutor(int) */
+	public ContextTrackingScheduledExecutor(int corePoolSize, ContextBinder ctxBinder) {
+		super(corePoolSize);
+		this.ctxBinder = ctxBinder;
+	}
+
+	/** @see ScheduledThreadPoolExecutor#ScheduledThreadPoolExecutor(int, ThreadFactory) */
+	public ContextTrackingScheduledExecutor(
+		int corePoolSize,
+		ThreadFactory threadFactory,
+		ContextBinder ctxBinder
+	) {
+		super(corePoolSize, threadFactory);
+		this.ctxBinder = ctxBinder;
+	}
+
+
+
+	/**
+	 * Returns {@link ScheduledThreadPoolExecutor#execute(Runnable)}. As all tasks are bound in
+	 * {@link #decorateTask(Runnable, RunnableScheduledFuture)}, this executor does not use
+	 * {@link ContextTrackingExecutor#execute(Runnable) the default binding implementation}.
+	 */
+	@Override
+	public Executor getExecutor() {
+		return ownExecutor;
+	}
+
+	@Override
+	public ContextBinder getContextBinder() {
+		return ctxBinder;
+	}
+
+
+
+	/**
+	 * Cancels all uncompleted tasks scheduled within {@code ctx}.
+	 * @return the number of tasks that were cancelled.
+	 */
+	public int cancelAll(TrackableContext<?> ctx, boolean mayInterruptIfRunning) {
+		final var tasks = tasksByCtx.remove(ctx);
+		if (tasks == null) return 0;
+		int cancelledCount = 0;
+		for (var task: tasks) {
+			if (task.cancel(mayInterruptIfRunning)) cancelledCount++;
+		}
+		return cancelledCount;
+	}
+
+
+
+	@Override
+	protected <V> RunnableScheduledFuture<V> decorateTask(
+		Runnable runnable,
+		RunnableScheduledFuture<V> task
+	) {
+		return register(new ContextBoundScheduledFuture<>(ctxBinder.captureSnapshot(), task, this));
+	}
+
+	@Override
+	protected <V> RunnableScheduledFuture<V> decorateTask(
+		Callable<V> callable,
+		RunnableScheduledFuture<V> task
+	) {
+		return register(new ContextBoundScheduledFuture<>(ctxBinder.captureSnapshot(), task, this));
+	}
+
+
+
+	<V> ContextBoundScheduledFuture<V> register(ContextBoundScheduledFuture<V> task) {
+		final var contexts = task.snapshot.contexts;
+		for (int i = 0; i < contexts.size(); i++) {
+			tasksByCtx.compute(contexts.get(i), (ctx, tasks) -> {
+				if (tasks == null) tasks = new HashSet<>();
+				tasks.add(task);
+				return tasks;
+			});
+		}
+		return task;
+	}
+
+	void unregister(ContextBoundScheduledFuture<?> task) {
+		final var contexts = task.snapshot.contexts;
+		for (int i = 0; i < contexts.size(); i++) {
+			tasksByCtx.computeIfPresent(contexts.get(i), (ctx, tasks) -> {
+				tasks.remove(task);
+				return tasks.isEmpty() ? null : tasks;
+			});
+		}
+	}
+
+
+
+	@Override
+	protected void terminated() {
+		tasksByCtx.clear();
+		super.terminated();
+	}
+
+
+
+	/**
+	 * {@link RunnableScheduledFuture} decorator that runs its wrapped task within
+	 * {@link TrackableContext Contexts} of its {@link #snapshot}.
+	 */
+	public static final class ContextBoundScheduledFuture<V> implements RunnableScheduledFuture<V> {
+
+		public ContextSnapshot getSnapshot() { return snapshot; }
+		public final ContextSnapshot snapshot;
+
+		final RunnableScheduledFuture<V> wrappedTask;
+		final ContextTrackingScheduledExecutor owner;
+
+
+
+		ContextBoundScheduledFuture(
+			ContextSnapshot snapshot,
+			RunnableScheduledFuture<V> task,
+			ContextTrackingScheduledExecutor owner
+		) {
+			this.snapshot = snapshot;
+			this.wrappedTask = task;
+			this.owner = owner;
+		}
+
+
+
+		@Override
+		public void run() {
+			snapshot.executeWithin(wrappedTask);
+			if (wrappedTask.isDone()) owner.unregister(this);
+		}
+
+		/**
+		 * Cancels the wrapped task and removes this decorator from
+		 * {@link ContextTrackingScheduledExecutor#tasksByCtx the index}. If the owner's
+		 * {@link ScheduledThreadPoolExecutor#setRemoveOnCancelPolicy(boolean) remove-on-cancel
+		 * policy} is set, removes this decorator also from the owner's queue, as the wrapped task
+		 * would only try to remove itself, while the queue contains this decorator.
+		 */
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			final var cancelled = wrappedTask.cancel(mayInterruptIfRunning);
+			owner.unregister(this);
+			if (cancelled && owner.getRemoveOnCancelPolicy()) owner.remove(this);
+			return cancelled;
+		}
+
+
+
+		@Override
+		public boolean isPeriodic() {
+			return wrappedTask.isPeriodic();
+		}
+
+		@Override
+		public long getDelay(TimeUnit unit) {
+			return wrappedTask.getDelay(unit);
+		}
+
+		@Override
+		public int compareTo(Delayed other) {
+			// unwrap to preserve FIFO order of tasks scheduled for the same time
+			return wrappedTask.compareTo(
+				other instanceof ContextBoundScheduledFuture
+					? ((ContextBoundScheduledFuture<?>) other).wrappedTask
+					: other
+			);
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return wrappedTask.isCancelled();
+		}
+
+		@Override
+		public boolean isDone() {
+			return wrappedTask.isDone();
+		}
+
+		@Override
+		public V get() throws InterruptedException, ExecutionException {
+			return wrappedTask.get();
+		}
+
+		@Override
+		public V get(long timeout, TimeUnit unit)
+				throws InterruptedException, ExecutionException, TimeoutException {
+			return wrappedTask.get(timeout, unit);
+		}
+
+
+
+		@Override
+		public String toString() {
+			return "ContextBoundScheduledFuture { snapshot = " + snapshot + ", task = "
+					+ wrappedTask + " }";
+		}
+	}
+}
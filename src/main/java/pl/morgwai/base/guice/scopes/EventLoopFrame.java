@@ -0,0 +1,97 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+
+
+/**
+ * Handle to the per-{@code Thread} frame of {@link TrackableContext Contexts} of an event-loop
+ * {@code Thread}, that allows to switch among many sets of {@code Contexts} cheaply.
+ * An event-loop interleaving callbacks of many connections (each with its own {@code Contexts})
+ * can obtain an {@code EventLoopFrame} once with {@link ScopeModule#getEventLoopFrame()}, keep
+ * it and before each callback call {@link #switchTo(ContextSnapshot)} with the
+ * {@link ContextSnapshot} of the given connection. Nothing needs to be cleared between callbacks,
+ * as the next switch replaces all {@code Contexts} anyway.
+ * <p>
+ * A switch does not access any {@link ThreadLocal} and does not copy nor allocate any arrays, but
+ * its cost is linear in the number of {@code Contexts} in the new and the previous snapshot: for
+ * each {@code Context} of the new snapshot it begins an execution (an atomic increment) if its
+ * {@link ContextTracker#ContextTracker(boolean) tracker counts executions} and notifies the
+ * {@link ContextTracker#setEvictionManager(ContextEvictionManager) eviction manager} (if any) of
+ * the access. Likewise, for each {@code Context} of the previous snapshot it ends an execution (an
+ * atomic decrement).</p>
+ * <p>
+ * Switched {@code Contexts} are visible to {@link ContextScope}s and
+ * {@link ContextTracker#getCurrentContext()} the same way as entered ones and
+ * {@link ContextBinder#captureSnapshot() capturing} them returns the switched
+ * {@link ContextSnapshot} itself without any allocation. Nested
+ * {@link TrackableContext#executeWithinSelf(Runnable) entering} of {@code Contexts} within a
+ * switched frame is allowed and restores the switched {@code Contexts} afterwards.</p>
+ * <p>
+ * Switched {@code Contexts} are {@link ContextTracker#ContextTracker(boolean) counted as
+ * executing} and are considered used by
+ * {@link ContextTracker#setEvictionManager(ContextEvictionManager) eviction managers} until the
+ * next switch. <b>Therefore the owning {@code Thread} must call {@link #clear()} whenever it runs
+ * out of callbacks to dispatch</b> (for example before blocking on a selector or on its task
+ * queue): otherwise the last switched {@code Contexts} stay executing for as long as the loop
+ * remains idle and will not be disposed nor evicted until then.</p>
+ * <p>
+ * An {@code EventLoopFrame} must be used only by the {@code Thread} that obtained it and must not
+ * be switched within {@code Contexts} entered on top of it.</p>
+ */
+public final class EventLoopFrame {
+
+
+
+	final ContextFrame.Group frameGroup;
+	final ContextFrame frame;
+
+
+
+	EventLoopFrame(ContextFrame.Group frameGroup) {
+		this.frameGroup = frameGroup;
+		this.frame = frameGroup.getOrCreateFrame();
+	}
+
+
+
+	/**
+	 * Makes {@code Contexts} of {@code snapshot} the only ones current for the owning
+	 * {@code Thread}.
+	 * @throws IllegalArgumentException if {@link ContextTracker}s of any of {@code snapshot}'s
+	 *     {@code Contexts} don't belong to the {@link ScopeModule} this frame was obtained from.
+	 */
+	public void switchTo(ContextSnapshot snapshot) {
+		final var contexts = snapshot.contexts;
+		if ( !contexts.isEmpty() && ContextFrame.Group.ofContexts(contexts) != frameGroup) {
+			throw new IllegalArgumentException(snapshot + " belongs to a different ScopeModule");
+		}
+		frame.switchTo(snapshot);
+	}
+
+	/** Makes {@code ctx} the only {@code Context} current for the owning {@code Thread}. */
+	public void switchTo(TrackableContext<?> ctx) {
+		switchTo(ctx.getSelfSnapshot());
+	}
+
+	/**
+	 * Clears all {@code Contexts} of the owning {@code Thread}, ending their executions.
+	 * Must be called each time the event-loop goes idle.
+	 */
+	public void clear() {
+		frame.switchTo(ContextSnapshot.EMPTY);
+	}
+
+
+
+	/** Returns a {@link ContextSnapshot} of {@code Contexts} current for the owning thread. */
+	public ContextSnapshot getCurrentSnapshot() {
+		return frame.getSnapshot();
+	}
+
+
+
+	@Override
+	public String toString() {
+		return "EventLoopFrame { snapshot = " + frame.getSnapshot() + " }";
+	}
+}
@@ -25,6 +25,20 @@ public class InducedContextScope<
 
 
 
+	/**
+	 * Calls {@link #InducedContextScope(String, ContextTracker, Function, ContextScope.Options)
+	 * this(name, tracker, inducedCtxRetriever, null)}.
+	 */
+	public InducedContextScope(
+		String name,
+		ContextTracker<BaseContextT> tracker,
+		Function<? super BaseContextT, ? extends InducedContextT> inducedCtxRetriever
+	) {
+		this(name, tracker, inducedCtxRetriever, null);
+	}
+
+
+
 	/**
 	 * Constructs a new instance.
 	 * @param inducedCtxRetriever retrieves the instance of {@code InducedContextT} that is induced
@@ -32,13 +46,15 @@ public class InducedContextScope<
 	 *     {@code inducedCtxRetriever} for {@code httpSessionScope} should return the
 	 *     {@code Context} of the {@code HttpSession}, to which a given {@code HttpServletRequest}
 	 *     belongs.
+	 * @param options see {@link ContextScope#ContextScope(String, ContextTracker, Options)}.
 	 */
 	public InducedContextScope(
 		String name,
 		ContextTracker<BaseContextT> tracker,
-		Function<? super BaseContextT, ? extends InducedContextT> inducedCtxRetriever
+		Function<? super BaseContextT, ? extends InducedContextT> inducedCtxRetriever,
+		Options options
 	) {
-		super(name, tracker);
+		super(name, tracker, options);
 		this.inducedCtxRetriever = inducedCtxRetriever;
 	}
 
@@ -46,12 +62,15 @@ public class InducedContextScope<
 
 	/**
 	 * Applies {@code inducedCtxRetriever} {@link Function} (passed via
-	 * {@link #InducedContextScope(String, ContextTracker, Function) the constructor}) to a
+	 * {@link #InducedContextScope(String, ContextTracker, Function, ContextScope.Options)
+	 * the constructor}) to a
 	 * {@code BaseContextT} obtained from {@link #tracker}.
-	 * @return the current {@code InducedContextT} (induced by the current {@code BaseContextT}).
+	 * @return the current {@code InducedContextT} (induced by the current {@code BaseContextT}) or
+	 *     {@code null} if there's no current {@code BaseContextT}.
 	 */
 	@Override
 	protected InducedContextT getCurrentContext() {
-		return inducedCtxRetriever.apply(tracker.getCurrentContext());
+		final var baseCtx = tracker.getCurrentContext();
+		return baseCtx != null ? inducedCtxRetriever.apply(baseCtx) : null;
 	}
 }
@@ -3,10 +3,11 @@ package pl.morgwai.base.guice.scopes;
 
 import java.io.*;
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.lang.reflect.Type;
-import java.util.ArrayList;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.*;
+import java.util.concurrent.*;
 
 import com.google.inject.*;
 
@@ -36,19 +37,50 @@ import static pl.morgwai.base.guice.scopes.InjectionContext.Null.NULL;
  * concurrently accessed scoped {@code Object}s themself must either be thread-safe or accessing
  * them must be properly synchronized.</p>
  * <p>
+ * If a {@code Context} is used by a {@link ContextScope} that
+ * {@link ContextScope.Options#indexScopedObjects(boolean) indexes scoped Objects}, it
+ * stores {@code Object}s scoped under {@link Key}s known to this {@link ContextScope} in an
+ * atomically updated array instead of the {@link ConcurrentMap}, that is created lazily only if
+ * some {@code Object} is scoped under some other {@link Key}. The array is created on the first
+ * provisioning and its length is fixed at that moment.</p>
+ * <p>
  * During the standard {@link Serializable Java serialization}, non-serializable scoped
- * {@code Object}s will be filtered out and the remaining part will be properly serialized.<br/>
+ * {@code Object}s will be filtered out and the remaining part will be properly serialized.
+ * Scoped {@code Object}s are serialized into a separate nested stream, so references between
+ * them are preserved, but references between them and {@code Object}s outside of this
+ * {@code Context} are not.<br/>
  * Methods {@link #prepareForSerialization()} and {@link #restoreAfterDeserialization()} are
  * provided for other serialization mechanisms.<br/>
  * The serialization is <b>not</b> thread-safe, so a {@code Context} that is being serialized must
  * not be accessed by other {@code Thread}s in any way during the process.</p>
+ * <p>
+ * When the event/call/request/session of a {@code Context} ends, it should be
+ * {@link #close(Executor) closed} to dispose its {@link AutoCloseable} scoped {@code Objects}
+ * (such as {@code EntityManager}s, connections, buffers etc) right away instead of leaving them
+ * for the garbage collector.</p>
  */
 public abstract class InjectionContext implements Serializable {
 
 
 
-	private transient ConcurrentMap<Key<?>, Object> scopedObjects = new ConcurrentHashMap<>();
+	/** Created lazily by {@link #getScopedObjects()}. */
+	private transient volatile ConcurrentMap<Key<?>, Object> scopedObjects;
+	/** Created lazily by {@link #getSlotStorage(ScopedObjectSlots)}. */
+	private transient volatile ScopedObjectSlots.Storage slotStorage;
 	private transient InjectionContext enclosingCtx;
+	/** Cached by {@link #getStorageOwner()}. */
+	private transient InjectionContext storageOwner;
+	/** Incremented after each {@link #removeScopedObject(Key)}. */
+	private transient volatile int removalCount;
+	/**
+	 * Number of executions within this {@code Context} currently in progress if its
+	 * {@link ContextTracker} {@link ContextTracker#ContextTracker(boolean) tracks executions}.
+	 */
+	private transient volatile int activeExecutions;
+	/** Set by {@link #close(Executor)}. */
+	private transient volatile Closing closing;
+	/** Set by {@link #passivate(PassivationStore)}, cleared by {@link #rehydrateIfPassivated()}. */
+	private transient volatile PassivationStore.Record passivation;
 
 
 
@@ -59,7 +91,9 @@ public abstract class InjectionContext implements Serializable {
 	/**
 	 * Constructs a new instance nested in {@code enclosingCtx}.
 	 * The new instance will delegate {@link #produceIfAbsent(Key, Provider)} and
-	 * {@link #removeScopedObject(Key)} calls to {@code enclosingCtx}.
+	 * {@link #removeScopedObject(Key)} calls to {@code enclosingCtx}. In case of chains of nested
+	 * {@code Contexts}, calls are passed directly to the outermost one (see
+	 * {@link #getStorageOwner()}) instead of being forwarded through each level.
 	 * <p>
 	 * Reference to {@code enclosingCtx} is {@code transient}.
 	 * {@link #setEnclosingCtx(InjectionContext)} may be used to restore it after a deserialization.
@@ -76,23 +110,421 @@ public abstract class InjectionContext implements Serializable {
 	 * If there is already an {@code Object} scoped to this {@code Context} under {@code key}, it is
 	 * returned immediately. Otherwise, a new instance is first obtained from {@code producer},
 	 * stored for subsequent calls and then returned.
+	 * <p>
+	 * {@code producer} is called outside of any lock: while it runs, an {@link InFlight}
+	 * placeholder is stored under {@code key}, so that concurrent provisionings of the same
+	 * {@code key} wait for its result instead of calling their producers, while provisionings of
+	 * other {@code Keys} (including recursive ones from within {@code producer}) proceed
+	 * unhindered. If {@code producer} throws, the placeholder is removed and the waiting
+	 * {@code Threads} retry.</p>
 	 */
 	final <T> T produceIfAbsent(Key<T> key, Provider<T> producer) {
-		if (enclosingCtx != null) return enclosingCtx.produceIfAbsent(key, producer);
+		return produceIfAbsent(null, -1, key, producer);
+	}
+
+	/**
+	 * Variant of {@link #produceIfAbsent(Key, Provider)} for {@link ContextScope}s that
+	 * {@link ContextScope.Options#indexScopedObjects(boolean) index scoped Objects}.
+	 * @param slots {@link ScopedObjectSlots} of the calling {@link ContextScope} or {@code null}.
+	 * @param slot slot assigned to {@code key} by {@code slots}.
+	 */
+	final <T> T produceIfAbsent(
+		ScopedObjectSlots slots,
+		int slot,
+		Key<T> key,
+		Provider<T> producer
+	) {
+		if (enclosingCtx != null) {
+			return getStorageOwner().produceIfAbsent(slots, slot, key, producer);
+		}
 
-		final var stored = scopedObjects.computeIfAbsent(
-			key,
-			(ignored) -> {
-				final T fresh = producer.get();
-				return fresh == null ? NULL : fresh;
+		final var storage = getSlotStorage(slots);
+		final var index = storage != null ? storage.indexOf(slots, slot, key) : -1;
+		Object stored;
+		if (index >= 0) {
+			stored = storage.get(index);
+			if (stored == null || stored instanceof InFlight) {
+				stored = produceIntoSlot(storage, index, key, producer);
 			}
-		);
+		} else {
+			final var scopedObjects = getScopedObjects();
+			stored = scopedObjects.get(key);
+			if (stored == null || stored instanceof InFlight) {
+				stored = produceIntoMap(scopedObjects, key, producer);
+			}
+		}
+		return unwrap(stored);
+	}
+
+	enum Null { NULL }
+
+	static <T> T unwrap(Object stored) {
 		@SuppressWarnings("unchecked")
 		final T result = stored == NULL ? null : (T) stored;
 		return result;
 	}
 
-	enum Null { NULL }
+
+
+	/**
+	 * Placeholder stored under a {@link Key} while its {@code Object} is being produced by
+	 * {@link #producerThread}. Completed with the produced {@code Object} ({@link Null#NULL} for
+	 * {@code null}) or exceptionally if the producer failed.
+	 */
+	static final class InFlight extends CompletableFuture<Object> {
+
+		/** {@code Thread} running the producer or {@code null} if it has not started yet. */
+		volatile Thread producerThread;
+
+		/** Creates a placeholder for a producer called by the current {@code Thread}. */
+		InFlight() {
+			producerThread = Thread.currentThread();
+		}
+
+		/** Creates a placeholder for a producer that will be called asynchronously. */
+		InFlight(Void async) {}
+
+		/**
+		 * Waits for the production to complete.
+		 * @return the produced {@code Object} or {@code null} if the producer failed, in which case
+		 *     the caller should retry.
+		 * @throws IllegalStateException if called by {@link #producerThread}, which means a
+		 *     circular dependency of {@code key} on itself.
+		 */
+		Object await(Key<?> key) {
+			if (producerThread == Thread.currentThread()) {
+				throw new IllegalStateException("circular dependency of " + key + " on itself");
+			}
+			try {
+				return join();
+			} catch (CompletionException | CancellationException failed) {
+				return null;
+			}
+		}
+	}
+
+	static Object produce(Provider<?> producer) {
+		final var fresh = producer.get();
+		return fresh != null ? fresh : NULL;
+	}
+
+
+
+	/**
+	 * Slow path of {@link #produceIfAbsent(ScopedObjectSlots, int, Key, Provider)} for
+	 * {@code Objects} stored in {@link #scopedObjects}.
+	 */
+	private Object produceIntoMap(
+		ConcurrentMap<Key<?>, Object> scopedObjects,
+		Key<?> key,
+		Provider<?> producer
+	) {
+		while (true) {
+			var present = scopedObjects.get(key);
+			if (present == null) {
+				final var inFlight = new InFlight();
+				present = scopedObjects.putIfAbsent(key, inFlight);
+				if (present == null) {
+					final Object fresh;
+					try {
+						fresh = produce(producer);
+					} catch (Throwable failure) {
+						scopedObjects.remove(key, inFlight);
+						inFlight.completeExceptionally(failure);
+						throw failure;
+					}
+					scopedObjects.replace(key, inFlight, fresh);
+					final var closed = closeIfMissedByDisposal(fresh, scopedObjects, key, null, -1);
+					if (closed != null) {
+						inFlight.completeExceptionally(closed);
+						throw closed;
+					}
+					inFlight.complete(fresh);
+					return fresh;
+				}
+			}
+			if ( !(present instanceof InFlight)) return present;
+			final var produced = ((InFlight) present).await(key);
+			if (produced != null) return produced;
+			checkNotDisposed();
+		}
+	}
+
+
+
+	/**
+	 * Slow path of {@link #produceIfAbsent(ScopedObjectSlots, int, Key, Provider)} for
+	 * {@code Objects} stored in {@link #slotStorage}.
+	 * If {@code key} is present in {@link #scopedObjects} (for example after a deserialization),
+	 * its {@code Object} is moved to the slot instead of calling {@code producer}.
+	 */
+	private Object produceIntoSlot(
+		ScopedObjectSlots.Storage storage,
+		int index,
+		Key<?> key,
+		Provider<?> producer
+	) {
+		while (true) {
+			final var present = storage.get(index);
+			if (present == null) {
+				final var inFlight = new InFlight();
+				if ( !storage.compareAndSet(index, null, inFlight)) continue;
+				Object fresh;
+				try {
+					fresh = takeUnslotted(key);
+					if (fresh == null) fresh = produce(producer);
+				} catch (Throwable failure) {
+					storage.compareAndSet(index, inFlight, null);
+					inFlight.completeExceptionally(failure);
+					throw failure;
+				}
+				storage.compareAndSet(index, inFlight, fresh);
+				final var closed = closeIfMissedByDisposal(fresh, null, key, storage, index);
+				if (closed != null) {
+					inFlight.completeExceptionally(closed);
+					throw closed;
+				}
+				inFlight.complete(fresh);
+				return fresh;
+			}
+			if ( !(present instanceof InFlight)) return present;
+			final var produced = ((InFlight) present).await(key);
+			if (produced != null) return produced;
+			checkNotDisposed();
+		}
+	}
+
+
+
+	/**
+	 * Closes {@code fresh} if it is an {@link AutoCloseable} that has just been stored (under
+	 * {@code key} in {@code scopedObjects} or at {@code index} of {@code storage}) after the
+	 * disposal of this {@code Context} had collected its {@link AutoCloseable} scoped
+	 * {@code Objects}. Called right after each store, as provisionings might have obtained their
+	 * storage before {@link #startDisposal(Closing)} dropped it.
+	 * @return exception to report to the requester if {@code fresh} has been removed from the
+	 *     storage and closed, {@code null} if it is left to the disposal or is not
+	 *     {@link AutoCloseable}.
+	 */
+	private IllegalStateException closeIfMissedByDisposal(
+		Object fresh,
+		ConcurrentMap<Key<?>, Object> scopedObjects,
+		Key<?> key,
+		ScopedObjectSlots.Storage storage,
+		int index
+	) {
+		if ( !(fresh instanceof AutoCloseable)) return null;
+		final var closing = this.closing;
+		if (closing == null || !closing.disposalStarted) return null;
+		synchronized (closing) {
+			if ( !closing.closeablesCollected) return null;
+			final var removed = index >= 0
+					? storage.compareAndSet(index, fresh, null)
+					: scopedObjects.remove(key, fresh);
+			if ( !removed) return null;  // collected by the disposal after all
+		}
+		final var closed = new IllegalStateException("Context " + this + " has been closed");
+		try {
+			((AutoCloseable) fresh).close();
+		} catch (Throwable failure) {
+			closed.addSuppressed(failure);
+		}
+		return closed;
+	}
+
+
+
+	/**
+	 * Removes from {@link #scopedObjects} and returns an {@code Object} stored there under
+	 * {@code key} before {@link #slotStorage} was created (for example by a deserialization).
+	 * {@link InFlight} placeholders of concurrent provisionings of {@code key} via the
+	 * {@link #produceIfAbsent(Key, Provider) non-indexed API} are left intact.
+	 * @return the removed {@code Object} or {@code null} if there was none.
+	 */
+	private Object takeUnslotted(Key<?> key) {
+		final var scopedObjects = this.scopedObjects;
+		if (scopedObjects == null) return null;
+		final var present = scopedObjects.get(key);
+		if (present == null || present instanceof InFlight) return null;
+		return scopedObjects.remove(key, present) ? present : null;
+	}
+
+
+
+	/**
+	 * Asynchronous variant of {@link #produceIfAbsent(ScopedObjectSlots, int, Key, Provider)}.
+	 * If there is already an {@code Object} scoped under {@code key}, an already completed
+	 * {@code CompletableFuture} is returned. If some other provisioning of {@code key} is in
+	 * progress, the returned {@code CompletableFuture} shares its result. Otherwise a task calling
+	 * {@code producer} is passed to {@code executor} and an {@link InFlight} placeholder is stored
+	 * under {@code key} until the task completes, so that both asynchronous and synchronous
+	 * provisionings of {@code key} requested in the meantime share this single production and
+	 * the ones requested afterwards obtain the produced {@code Object} directly.
+	 * <p>
+	 * If {@code producer} throws, the placeholder is removed and the returned
+	 * {@code CompletableFuture} (as well as the ones returned to other asynchronous requesters
+	 * sharing it) completes exceptionally, while waiting synchronous requesters retry.</p>
+	 * @throws java.util.concurrent.RejectedExecutionException if {@code executor} rejects the
+	 *     task, in which case the placeholder is removed as well.
+	 */
+	final <T> CompletableFuture<T> produceAsyncIfAbsent(
+		ScopedObjectSlots slots,
+		int slot,
+		Key<T> key,
+		Provider<T> producer,
+		Executor executor
+	) {
+		if (enclosingCtx != null) {
+			return getStorageOwner().produceAsyncIfAbsent(slots, slot, key, producer, executor);
+		}
+
+		final var storage = getSlotStorage(slots);
+		final var index = storage != null ? storage.indexOf(slots, slot, key) : -1;
+		final var scopedObjects = index >= 0 ? null : getScopedObjects();
+		final var inFlight = new InFlight(null);
+		Object present;
+		if (index >= 0) {
+			do {
+				present = storage.get(index);
+			} while (present == null && !storage.compareAndSet(index, null, inFlight));
+		} else {
+			present = scopedObjects.putIfAbsent(key, inFlight);
+		}
+		if (present != null) {
+			return present instanceof InFlight
+					? ((InFlight) present).thenApply(InjectionContext::unwrap)
+					: CompletableFuture.completedFuture(unwrap(present));
+		}
+		if (index >= 0) {
+			final var unslotted = takeUnslotted(key);
+			if (unslotted != null) {
+				storage.compareAndSet(index, inFlight, unslotted);
+				final var closed = closeIfMissedByDisposal(unslotted, null, key, storage, index);
+				if (closed != null) {
+					inFlight.completeExceptionally(closed);
+					return CompletableFuture.failedFuture(closed);
+				}
+				inFlight.complete(unslotted);
+				return CompletableFuture.completedFuture(unwrap(unslotted));
+			}
+		}
+
+		try {
+			executor.execute(
+					() -> produceAsync(inFlight, scopedObjects, storage, index, key, producer));
+		} catch (Throwable rejected) {
+			if (index >= 0) {
+				storage.compareAndSet(index, inFlight, null);
+			} else {
+				scopedObjects.remove(key, inFlight);
+			}
+			inFlight.completeExceptionally(rejected);
+			throw rejected;
+		}
+		return inFlight.thenApply(InjectionContext::unwrap);
+	}
+
+
+
+	/**
+	 * Task passed to an {@link Executor} by
+	 * {@link #produceAsyncIfAbsent(ScopedObjectSlots, int, Key, Provider, Executor)}: calls
+	 * {@code producer}, replaces {@code inFlight} with the result and completes it.
+	 * {@code scopedObjects} and {@code storage} are the ones captured when {@code inFlight} was
+	 * placed, as this {@code Context} may drop its references to them in the meantime (for example
+	 * when {@link #close(Executor) closed}). {@code inFlight} is completed in all cases, so that
+	 * requesters waiting for it never hang.
+	 */
+	private void produceAsync(
+		InFlight inFlight,
+		ConcurrentMap<Key<?>, Object> scopedObjects,
+		ScopedObjectSlots.Storage storage,
+		int index,
+		Key<?> key,
+		Provider<?> producer
+	) {
+		inFlight.producerThread = Thread.currentThread();
+		Object fresh = null;
+		Throwable failure = null;
+		try {
+			fresh = produce(producer);
+		} catch (Throwable producerFailure) {
+			failure = producerFailure;
+			if (failure instanceof Error) throw (Error) failure;
+			// other failures are reported via inFlight
+		} finally {
+			try {
+				if (index >= 0) {
+					storage.compareAndSet(index, inFlight, fresh);
+				} else if (fresh != null) {
+					scopedObjects.replace(key, inFlight, fresh);
+				} else {
+					scopedObjects.remove(key, inFlight);
+				}
+				final var closed =
+						closeIfMissedByDisposal(fresh, scopedObjects, key, storage, index);
+				if (closed != null) {
+					failure = closed;
+					fresh = null;
+				}
+			} finally {
+				if (fresh != null) {
+					inFlight.complete(fresh);
+				} else {
+					inFlight.completeExceptionally(failure);
+				}
+			}
+		}
+	}
+
+
+
+	/**
+	 * Returns {@link #slotStorage}, creating it for {@code slots} if it does not exist yet.
+	 * @return {@link #slotStorage}, possibly created for some other {@link ScopedObjectSlots} than
+	 *     {@code slots}, or {@code null} if it does not exist and {@code slots} is {@code null}.
+	 */
+	private ScopedObjectSlots.Storage getSlotStorage(ScopedObjectSlots slots) {
+		final var storage = slotStorage;
+		if (storage != null || slots == null) return storage;
+		rehydrateIfPassivated();
+		checkNotDisposed();
+		final var newStorage = new ScopedObjectSlots.Storage(slots);
+		return SLOT_STORAGE.compareAndSet(this, null, newStorage) ? newStorage : slotStorage;
+	}
+
+	private ConcurrentMap<Key<?>, Object> getScopedObjects() {
+		final var scopedObjects = this.scopedObjects;
+		if (scopedObjects != null) return scopedObjects;
+		rehydrateIfPassivated();
+		checkNotDisposed();
+		final var newScopedObjects = new ConcurrentHashMap<Key<?>, Object>();
+		return SCOPED_OBJECTS.compareAndSet(this, null, newScopedObjects)
+				? newScopedObjects
+				: this.scopedObjects;
+	}
+
+	static final VarHandle SCOPED_OBJECTS;
+	static final VarHandle SLOT_STORAGE;
+	static final VarHandle REMOVAL_COUNT;
+	static final VarHandle ACTIVE_EXECUTIONS;
+	static final VarHandle CLOSING;
+
+	static {
+		try {
+			final var lookup = MethodHandles.lookup();
+			SCOPED_OBJECTS = lookup.findVarHandle(
+					InjectionContext.class, "scopedObjects", ConcurrentMap.class);
+			SLOT_STORAGE = lookup.findVarHandle(
+					InjectionContext.class, "slotStorage", ScopedObjectSlots.Storage.class);
+			REMOVAL_COUNT = lookup.findVarHandle(InjectionContext.class, "removalCount", int.class);
+			ACTIVE_EXECUTIONS =
+					lookup.findVarHandle(InjectionContext.class, "activeExecutions", int.class);
+			CLOSING = lookup.findVarHandle(InjectionContext.class, "closing", Closing.class);
+		} catch (ReflectiveOperationException neverHappens) {
+			throw new ExceptionInInitializerError(neverHappens);
+		}
+	}
 
 
 
@@ -110,15 +542,404 @@ public abstract class InjectionContext implements Serializable {
 	 *     effect.
 	 */
 	public boolean removeScopedObject(Key<?> key) {
-		if (enclosingCtx != null) return enclosingCtx.removeScopedObject(key);
-		return scopedObjects.remove(key) != null;
+		if (enclosingCtx != null) return getStorageOwner().removeScopedObject(key);
+		final var removed = removeFromStorage(key);
+		// incremented after the removal, so that a concurrent provisioning that obtained the
+		// removed Object cannot cache it under the new value
+		REMOVAL_COUNT.getAndAdd(this, 1);
+		return removed;
+	}
+
+	private boolean removeFromStorage(Key<?> key) {
+		rehydrateIfPassivated();
+		final var storage = slotStorage;
+		final var index = storage != null ? storage.indexOf(null, -1, key) : -1;
+		if (index >= 0) {
+			// the key may have been moved from scopedObjects concurrently
+			if (storage.getAndSet(index, null) != null) return true;
+			final var scopedObjects = this.scopedObjects;
+			return scopedObjects != null && scopedObjects.remove(key) != null;
+		}
+		final var scopedObjects = this.scopedObjects;
+		return scopedObjects != null && scopedObjects.remove(key) != null;
+	}
+
+
+
+	/**
+	 * Number of {@link #removeScopedObject(Key)} calls on this {@code Context} so far. Used for
+	 * invalidation of per-{@code Thread} caches of
+	 * {@link ContextScope.Options#cacheScopedObjects(boolean) caching
+	 * ContextScopes}.
+	 */
+	final int getRemovalCount() {
+		return enclosingCtx != null ? getStorageOwner().removalCount : removalCount;
+	}
+
+
+
+	/**
+	 * Marks this {@code Context} as closed and disposes all its {@link AutoCloseable} scoped
+	 * {@code Objects}.
+	 * If this is a {@link TrackableContext} whose {@link ContextTracker}
+	 * {@link ContextTracker#ContextTracker(boolean) tracks executions} and some {@code Threads} are
+	 * currently executing within it (for example {@link ContextBinder bound closures} dispatched
+	 * to other {@code Threads} that have not completed yet), the disposal is deferred until the
+	 * last of them exits this {@code Context}. Otherwise the disposal starts immediately.
+	 * <p>
+	 * When the disposal starts, this {@code Context} immediately drops its references to all its
+	 * scoped {@code Objects} and subsequent attempts to scope new {@code Objects} to it will throw an
+	 * {@link IllegalStateException}. The {@link AutoCloseable} ones are then
+	 * {@link AutoCloseable#close() closed} in no particular order either synchronously on the
+	 * starting {@code Thread} if {@code disposalExecutor} is {@code null}, or asynchronously on
+	 * {@code disposalExecutor}. Failures do not interrupt the disposal: they are aggregated as
+	 * {@link Throwable#getSuppressed() suppressed} by a single {@link DisposalException}.
+	 * {@link AutoCloseable} {@code Objects} that were being produced when the disposal started and
+	 * got stored only after it had collected the others, are closed right away by their producing
+	 * {@code Threads}, which then throw an {@link IllegalStateException} to their requesters.</p>
+	 * <p>
+	 * Closures bound to this {@code Context} that start executing after the disposal has started
+	 * will run within this {@code Context}, but will not be able to obtain any scoped
+	 * {@code Objects} from it.</p>
+	 * <p>
+	 * A {@code Context} {@link #InjectionContext(InjectionContext) nested} in some other one does
+	 * not own scoped {@code Objects} it provides, so closing it only marks it as closed.</p>
+	 * <p>
+	 * Subsequent calls to this method have no effect and return the same {@code Future}.</p>
+	 * @return a {@code Future} completed when all {@link AutoCloseable} scoped {@code Objects} are
+	 *     closed, exceptionally with a {@link DisposalException} if any of them failed or with a
+	 *     {@link RejectedExecutionException} if {@code disposalExecutor} rejected the disposal.
+	 */
+	public CompletableFuture<Void> close(Executor disposalExecutor) {
+		final var newClosing = new Closing(disposalExecutor);
+		final var previousClosing = (Closing) CLOSING.compareAndExchange(this, null, newClosing);
+		if (previousClosing != null) return previousClosing.disposal;
+		if (activeExecutions == 0) startDisposal(newClosing);
+		return newClosing.disposal;
+	}
+
+	/** Calls {@link #close(Executor) close(null)}. */
+	public CompletableFuture<Void> close() {
+		return close(null);
+	}
+
+
+
+	/** Whether {@link #close(Executor)} has been called on this {@code Context}. */
+	public boolean isClosed() {
+		return closing != null;
 	}
 
 
 
 	/**
-	 * Filled with the {@link Serializable} part of {@link #scopedObjects} content by
-	 * {@link #prepareForSerialization()} right before a serialization occurs.
+	 * Indicates that one or more {@link AutoCloseable} scoped {@code Objects} failed to
+	 * {@link AutoCloseable#close() close}.
+	 * All failures are available via {@link #getSuppressed()}.
+	 */
+	public static class DisposalException extends Exception {
+
+		public DisposalException(String message) {
+			super(message);
+		}
+
+		private static final long serialVersionUID = -8335096282707950432L;
+	}
+
+
+
+	static class Closing {
+
+		final Executor disposalExecutor;
+		final CompletableFuture<Void> disposal = new CompletableFuture<>();
+		/** Whether the disposal has started, accessed via {@link #DISPOSAL_STARTED}. */
+		volatile boolean disposalStarted;
+		/**
+		 * Whether the disposal has taken all {@link AutoCloseable} scoped {@code Objects} out of
+		 * the storage. Guarded by the monitor of this {@code Closing}.
+		 */
+		boolean closeablesCollected;
+
+		Closing(Executor disposalExecutor) {
+			this.disposalExecutor = disposalExecutor;
+		}
+
+		static final VarHandle DISPOSAL_STARTED;
+
+		static {
+			try {
+				DISPOSAL_STARTED = MethodHandles.lookup()
+						.findVarHandle(Closing.class, "disposalStarted", boolean.class);
+			} catch (ReflectiveOperationException neverHappens) {
+				throw new ExceptionInInitializerError(neverHappens);
+			}
+		}
+	}
+
+
+
+	/**
+	 * Marks the beginning of an execution within this {@code Context}.
+	 * Each call must be followed by an {@link #endExecution()} call in a {@code finally} block.
+	 */
+	final void beginExecution() {
+		if ((int) ACTIVE_EXECUTIONS.getAndAdd(this, 1) < 0) {
+			// passivate(store) in progress: wait until it releases the monitor, so that this
+			// execution re-hydrates the storage instead of using the one being passivated
+			synchronized (this) {}
+		}
+	}
+
+	/**
+	 * Added to {@link #activeExecutions} by {@link #passivate(PassivationStore)} for its duration,
+	 * so that {@link #beginExecution()} can tell when to wait for it.
+	 */
+	static final int PASSIVATING = Integer.MIN_VALUE;
+
+	/** Whether some {@code Threads} are executing within this {@code Context}. */
+	final boolean hasActiveExecutions() {
+		return activeExecutions > 0;
+	}
+
+	/** Starts the disposal if this {@code Context} is closing and no other executions remain. */
+	final void endExecution() {
+		if ((int) ACTIVE_EXECUTIONS.getAndAdd(this, -1) == 1) {
+			final var closing = this.closing;
+			if (closing != null) startDisposal(closing);
+		}
+	}
+
+
+
+	private void startDisposal(Closing closing) {
+		if ( !Closing.DISPOSAL_STARTED.compareAndSet(closing, false, true)) return;
+		if (enclosingCtx != null) {
+			closing.disposal.complete(null);
+			return;
+		}
+		final var passivation = this.passivation;
+		if (passivation != null) {
+			// passivated Contexts never contain AutoCloseables: see passivate(store)
+			passivation.store.release(passivation);
+			this.passivation = null;
+		}
+		final var scopedObjects = this.scopedObjects;
+		final var slotStorage = this.slotStorage;
+		this.scopedObjects = null;
+		this.slotStorage = null;
+		REMOVAL_COUNT.getAndAdd(this, 1);  // invalidate caches of caching ContextScopes
+		final Runnable disposal = () -> disposeScopedObjects(scopedObjects, slotStorage, closing);
+		if (closing.disposalExecutor == null) {
+			disposal.run();
+			return;
+		}
+		try {
+			closing.disposalExecutor.execute(disposal);
+		} catch (RejectedExecutionException e) {
+			closing.disposal.completeExceptionally(e);
+		}
+	}
+
+	private static void disposeScopedObjects(
+		Map<Key<?>, Object> scopedObjects,
+		ScopedObjectSlots.Storage slotStorage,
+		Closing closing
+	) {
+		// AutoCloseables are taken out of the storage, so that closeIfMissedByDisposal(...) can
+		// tell which of the ones stored concurrently were collected here
+		final var closeables = Collections.newSetFromMap(new IdentityHashMap<>());
+		synchronized (closing) {
+			if (scopedObjects != null) {
+				for (var scopedObjectEntry: scopedObjects.entrySet()) {
+					final var scopedObject = scopedObjectEntry.getValue();
+					if (
+						scopedObject instanceof AutoCloseable
+						&& scopedObjects.remove(scopedObjectEntry.getKey(), scopedObject)
+					) {
+						closeables.add(scopedObject);
+					}
+				}
+			}
+			if (slotStorage != null) {
+				for (int i = 0; i < slotStorage.length(); i++) {
+					final var scopedObject = slotStorage.get(i);
+					if (
+						scopedObject instanceof AutoCloseable
+						&& slotStorage.compareAndSet(i, scopedObject, null)
+					) {
+						closeables.add(scopedObject);
+					}
+				}
+			}
+			closing.closeablesCollected = true;
+		}
+		List<Throwable> failures = null;
+		for (var closeable: closeables) {
+			try {
+				((AutoCloseable) closeable).close();
+			} catch (Throwable failure) {
+				if (failures == null) failures = new ArrayList<>(2);
+				failures.add(failure);
+			}
+		}
+		if (failures == null) {
+			closing.disposal.complete(null);
+			return;
+		}
+		final var disposalException = new DisposalException(
+				failures.size() + " of " + closeables.size() + " scoped Objects failed to close");
+		for (var failure: failures) disposalException.addSuppressed(failure);
+		closing.disposal.completeExceptionally(disposalException);
+	}
+
+
+
+	private void checkNotDisposed() {
+		final var closing = this.closing;
+		if (closing != null && closing.disposalStarted) {
+			throw new IllegalStateException("Context " + this + " has been closed");
+		}
+	}
+
+
+
+	/**
+	 * Moves scoped {@code Objects} of this {@code Context} out of the heap into {@code store}.
+	 * {@link Serializable} scoped {@code Objects} are serialized using
+	 * {@link #prepareForSerialization()} and appended to {@code store}, after which this
+	 * {@code Context} drops its references to all its scoped {@code Objects}. On the next access
+	 * (provisioning, removal or serialization) they are transparently re-hydrated from
+	 * {@code store} using {@link #restoreAfterDeserialization()}, while the non-serializable ones
+	 * are produced anew, just as after a deserialization.
+	 * <p>
+	 * This is intended for long-lived {@code Contexts}, such as sessions, that stay idle for long
+	 * periods. If this is a {@link TrackableContext} whose {@link ContextTracker}
+	 * {@link ContextTracker#ContextTracker(boolean) tracks executions}, the passivation is refused
+	 * while some {@code Threads} execute within it and {@code Threads} entering it during the
+	 * passivation wait until it is complete (and then re-hydrate it). Otherwise, as with the
+	 * serialization, it must be ensured that no other {@code Threads} access this {@code Context}
+	 * during the passivation. A {@code Context} {@link #InjectionContext(InjectionContext) nested}
+	 * in some other one passivates its outermost enclosing {@code Context}.</p>
+	 * @return {@code true} if this {@code Context} has been passivated (now or before),
+	 *     {@code false} if it is {@link #close(Executor) closed}, some {@code Threads} execute
+	 *     within it, it holds some {@link AutoCloseable} scoped {@code Objects} (that could not be
+	 *     disposed properly while passivated) or has some provisioning in progress, or if
+	 *     {@code store} has not enough space left, in which case this {@code Context} remains
+	 *     unchanged.
+	 * @throws IllegalStateException if {@code store} has been closed.
+	 */
+	public boolean passivate(PassivationStore store) {
+		if (enclosingCtx != null) return getStorageOwner().passivate(store);
+		final boolean passivated;
+		final int executionsBegunMeanwhile;
+		synchronized (this) {
+			if (passivation != null) return true;
+			// executions beginning from now on wait for the monitor: see beginExecution()
+			if (closing != null || !ACTIVE_EXECUTIONS.compareAndSet(this, 0, PASSIVATING)) {
+				return false;
+			}
+			try {
+				passivated = passivateExclusively(store);
+			} finally {
+				executionsBegunMeanwhile =
+						(int) ACTIVE_EXECUTIONS.getAndAdd(this, PASSIVATING) - PASSIVATING;
+			}
+		}
+		if (passivated) REMOVAL_COUNT.getAndAdd(this, 1);  // invalidate caches of ContextScopes
+		final var closing = this.closing;
+		if (executionsBegunMeanwhile == 0 && closing != null) {
+			startDisposal(closing);  // close() saw PASSIVATING and deferred the disposal
+		}
+		return passivated;
+	}
+
+	/** Called by {@link #passivate(PassivationStore)} while no executions may begin. */
+	private boolean passivateExclusively(PassivationStore store) {
+		if ( !isPassivatable()) return false;
+		prepareForSerialization();
+		final var record = store.append(serializedScopedObjects);
+		serializedScopedObjects = null;
+		if (record == null) return false;
+		passivation = record;
+		scopedObjects = null;
+		slotStorage = null;
+		return true;
+	}
+
+	/**
+	 * Whether none of the scoped {@code Objects} of this {@code Context} is {@link AutoCloseable}
+	 * or an {@link InFlight} placeholder.
+	 */
+	private boolean isPassivatable() {
+		final var scopedObjects = this.scopedObjects;
+		if (scopedObjects != null) {
+			for (var scopedObject: scopedObjects.values()) {
+				if (scopedObject instanceof AutoCloseable || scopedObject instanceof InFlight) {
+					return false;
+				}
+			}
+		}
+		final var slotStorage = this.slotStorage;
+		if (slotStorage != null) {
+			for (int i = 0; i < slotStorage.length(); i++) {
+				final var scopedObject = slotStorage.get(i);
+				if (scopedObject instanceof AutoCloseable || scopedObject instanceof InFlight) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+
+
+	/** Whether this {@code Context} has been {@link #passivate(PassivationStore) passivated}. */
+	public boolean isPassivated() {
+		return getStorageOwner().passivation != null;
+	}
+
+
+
+	/**
+	 * Restores scoped {@code Objects} of this {@code Context} from its
+	 * {@link #passivate(PassivationStore) passivation} store if it is passivated.
+	 * If the store has been closed in the meantime, the {@code Objects} are lost and will be
+	 * produced anew.
+	 * @throws UncheckedIOException if the stored data is corrupted.
+	 */
+	private void rehydrateIfPassivated() {
+		if (passivation == null) return;
+		synchronized (this) {
+			final var passivation = this.passivation;
+			if (passivation == null) return;
+			serializedScopedObjects = passivation.store.take(passivation);
+			try {
+				restoreAfterDeserialization();
+			} catch (ClassNotFoundException e) {
+				throw new UncheckedIOException(new InvalidClassException(e.toString()));
+			} finally {
+				serializedScopedObjects = null;
+				// cleared only after the restored storage is published: until then lazy inits of
+				// getScopedObjects() and getSlotStorage(...) block on this monitor
+				this.passivation = null;
+			}
+		}
+	}
+
+
+
+	/**
+	 * The {@link Serializable} part of {@link #scopedObjects} and {@link #slotStorage} content
+	 * serialized by {@link #prepareForSerialization()} right before a serialization occurs.
+	 * Consists of the number of entries followed by {@link SerializableScopedObjectEntry}s written
+	 * by a single {@link ObjectOutputStream}.
+	 */
+	private byte[] serializedScopedObjects;
+
+	/**
+	 * Scoped {@code Objects} in the form written by versions of this class that stored them in the
+	 * default serialized form. Always {@code null} when serializing, read only to restore
+	 * {@code Contexts} serialized by these versions.
 	 */
 	private ArrayList<SerializableScopedObjectEntry> serializableScopedObjectEntries;
 
@@ -144,18 +965,31 @@ public abstract class InjectionContext implements Serializable {
 			this.scopedObject = scopedObject;
 		}
 
+		SerializableScopedObjectEntry(Key<?> key, Serializable scopedObject) {
+			this(
+				key.getTypeLiteral().getType(),
+				key.getAnnotationType() != null ? key.getAnnotationType().getName() : null,
+				key.getAnnotation(),
+				scopedObject
+			);
+		}
+
 		private static final long serialVersionUID = 7633750187480552805L;
 	}
 
 
 
 	/**
-	 * Picks {@link Serializable} {@code Object}s scoped to this {@code Context} from its
-	 * {@code transient} state and stores them into a fully {@link Serializable} private
-	 * {@code List} of entries.
+	 * Serializes {@link Serializable} {@code Object}s scoped to this {@code Context} from its
+	 * {@code transient} state into a private {@code byte[]}.
 	 * After a deserialization, the state can be restored using
 	 * {@link #restoreAfterDeserialization()}.
 	 * <p>
+	 * Each scoped {@code Object} is serialized only once. If some of them fail (for example
+	 * because they reference some non-{@link Serializable} {@code Objects}), the whole
+	 * {@code byte[]} is rewritten once without all of them, so that references between the
+	 * remaining scoped {@code Object}s are preserved.</p>
+	 * <p>
 	 * This method is called automatically during the standard Java serialization. It may be called
 	 * manually if some other serialization mechanism is used.</p>
 	 * <p>
@@ -169,51 +1003,133 @@ public abstract class InjectionContext implements Serializable {
 	 * the call to this method and the actual serialization.</p>
 	 */
 	protected void prepareForSerialization() {
-		if (serializationTestBuffer == null) serializationTestBuffer = new ByteArrayOutputStream();
-		final var serializableScopedObjectEntries =
-				new ArrayList<SerializableScopedObjectEntry>(scopedObjects.size());
-		try (
-			final var serializationTestStream = new ObjectOutputStream(serializationTestBuffer);
-		) {
+		final var buffer = serializeScopedObjects();
+		try {
+			serializedScopedObjects = buffer.toByteArray();
+		} finally {
+			releaseSerializationBuffer(buffer);
+		}
+	}
+
+	/**
+	 * Serializes {@link Serializable} scoped {@code Objects} into a buffer obtained from
+	 * {@link #serializationBuffers}. The buffer should be passed to
+	 * {@link #releaseSerializationBuffer(ByteArrayOutputStream)} afterwards.
+	 */
+	private ByteArrayOutputStream serializeScopedObjects() {
+		rehydrateIfPassivated();
+		final var entries = getSerializableEntries();
+		var buffer = serializationBuffers.get();
+		if (buffer != null) {
+			serializationBuffers.set(null);  // in case a scoped Object serializes another Context
+		} else {
+			buffer = new ByteArrayOutputStream(INITIAL_SERIALIZATION_BUFFER_SIZE);
+		}
+		int failedEntryCount;
+		do {
+			buffer.reset();
+			failedEntryCount = writeEntries(entries, buffer);
+		} while (failedEntryCount > 0);
+		return buffer;
+	}
+
+	/**
+	 * Per-{@code Thread} buffers for {@link #serializeScopedObjects()}, so that repeated
+	 * serializations don't need to grow a new buffer each time.
+	 */
+	static final ThreadLocal<ByteArrayOutputStream> serializationBuffers = new ThreadLocal<>();
+	static final int INITIAL_SERIALIZATION_BUFFER_SIZE = 1024;
+	/** Larger buffers are not retained in {@link #serializationBuffers}. */
+	static final int MAX_RETAINED_SERIALIZATION_BUFFER_SIZE = 1024 * 1024;
+
+	static void releaseSerializationBuffer(ByteArrayOutputStream buffer) {
+		if (buffer.size() > MAX_RETAINED_SERIALIZATION_BUFFER_SIZE) return;
+		buffer.reset();
+		serializationBuffers.set(buffer);
+	}
+
+	/** Collects entries of scoped {@code Objects} that are instances of {@link Serializable}. */
+	private ArrayList<SerializableScopedObjectEntry> getSerializableEntries() {
+		final var scopedObjects = this.scopedObjects;
+		final var slotStorage = this.slotStorage;
+		final var entries = new ArrayList<SerializableScopedObjectEntry>(
+			(scopedObjects != null ? scopedObjects.size() : 0)
+					+ (slotStorage != null ? slotStorage.length() : 0)
+		);
+		if (scopedObjects != null) {
 			for (var scopedObjectEntry: scopedObjects.entrySet()) {
 				final var scopedObject = scopedObjectEntry.getValue();
-				if ( !(scopedObject instanceof Serializable)) continue;  // omit non-Serializable
-				try {  // test if scopedObject actually serializes
-					serializationTestStream.writeObject(scopedObject);
+				if ( !(scopedObject instanceof Serializable)) continue;
+				entries.add(new SerializableScopedObjectEntry(
+						scopedObjectEntry.getKey(), (Serializable) scopedObject));
+			}
+		}
+		if (slotStorage != null) {
+			for (int i = 0; i < slotStorage.length(); i++) {
+				final var scopedObject = slotStorage.get(i);
+				if ( !(scopedObject instanceof Serializable)) continue;
+				entries.add(new SerializableScopedObjectEntry(
+						slotStorage.slots.keyAt(i), (Serializable) scopedObject));
+			}
+		}
+		return entries;
+	}
+
+	/**
+	 * Writes {@code entries} to {@code buffer}.
+	 * If some entry fails, the writing continues, so that all failing entries are found in a
+	 * single pass: a failed top-level {@link ObjectOutputStream#writeObject(Object) writeObject}
+	 * resets the stream, so each subsequent entry fails if and only if its own object graph does.
+	 * The failed entries are then removed from {@code entries}.
+	 * @return the number of failed entries. If it is not {@code 0}, the content of {@code buffer}
+	 *     is unusable and the remaining {@code entries} must be written again.
+	 */
+	static int writeEntries(List<SerializableScopedObjectEntry> entries, OutputStream buffer) {
+		int failedEntryCount = 0;
+		try (final var serializedEntries = new ObjectOutputStream(buffer)) {
+			serializedEntries.writeInt(entries.size());
+			for (int i = 0; i < entries.size(); i++) {
+				try {
+					serializedEntries.writeObject(entries.get(i));
 				} catch (IOException e) {
-					continue;
+					entries.set(i, null);
+					failedEntryCount++;
 				}
-
-				// add SerializableScopedObjectEntry for the given scopedObjectEntry
-				final var key = scopedObjectEntry.getKey();
-				serializableScopedObjectEntries.add(new SerializableScopedObjectEntry(
-					key.getTypeLiteral().getType(),
-					key.getAnnotationType() != null ? key.getAnnotationType().getName() : null,
-					key.getAnnotation(),
-					(Serializable) scopedObject
-				));
 			}
-		} catch (IOException ignored) {  // exception in serializationTestStream.close() is harmless
-		} finally {
-			serializationTestBuffer.reset();  // reuse the buffer during the next call
+		} catch (IOException neverHappens) {  // ByteArrayOutputStream does not throw
+			throw new UncheckedIOException(neverHappens);
 		}
-		this.serializableScopedObjectEntries = serializableScopedObjectEntries;
+		if (failedEntryCount > 0) entries.removeIf(Objects::isNull);
+		return failedEntryCount;
 	}
 
-	transient ByteArrayOutputStream serializationTestBuffer;
-
 
 
+	/**
+	 * Writes the default form (with {@link #serializedScopedObjects} set to {@code null}) followed
+	 * by the length and the content of the buffer filled by {@link #serializeScopedObjects()}
+	 * directly, to avoid copying it into a {@code byte[]}.
+	 */
 	private void writeObject(ObjectOutputStream serializedObjects) throws IOException {
-		prepareForSerialization();
+		serializedScopedObjects = null;
 		serializedObjects.defaultWriteObject();
+		final var buffer = serializeScopedObjects();
+		try {
+			serializedObjects.writeInt(buffer.size());
+			buffer.writeTo(serializedObjects);
+		} finally {
+			releaseSerializationBuffer(buffer);
+		}
 	}
 
 
 
 	/**
-	 * Restores the state of this {@code Context} from the deserialized data in the private
-	 * {@code List} filled using {@link #prepareForSerialization()}.
+	 * Restores the state of this {@code Context} from the deserialized private {@code byte[]}
+	 * filled using {@link #prepareForSerialization()}.
+	 * Classes of scoped {@code Objects} are resolved using the
+	 * {@link Thread#getContextClassLoader() context ClassLoader} of the current {@code Thread}
+	 * if possible.
 	 * <p>
 	 * This method is called automatically during the standard Java deserialization. It may be
 	 * called manually if some other deserialization mechanism is used.</p>
@@ -222,14 +1138,68 @@ public abstract class InjectionContext implements Serializable {
 	 * this {@code Context}'s state or an invocation of {@link #prepareForSerialization()}, so it is
 	 * safe to call it manually right after deserialization if it is unknown whether the standard
 	 * Java deserialization or some other mechanism was used.</p>
+	 * @throws UncheckedIOException if the private {@code byte[]} is corrupted.
 	 */
 	protected void restoreAfterDeserialization() throws ClassNotFoundException {
-		if (serializableScopedObjectEntries == null) return;
-		scopedObjects = new ConcurrentHashMap<>();
-		for (var deserializedEntry: serializableScopedObjectEntries) {
-			scopedObjects.put(constructKey(deserializedEntry), deserializedEntry.scopedObject);
+		try {
+			restoreScopedObjects();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void restoreScopedObjects() throws IOException, ClassNotFoundException {
+		final var legacyEntries = serializableScopedObjectEntries;
+		if (legacyEntries != null) {
+			final var scopedObjects = new ConcurrentHashMap<Key<?>, Object>();
+			for (var deserializedEntry: legacyEntries) {
+				scopedObjects.put(constructKey(deserializedEntry), deserializedEntry.scopedObject);
+			}
+			this.scopedObjects = scopedObjects;
+			slotStorage = null;
+			serializableScopedObjectEntries = null;
+			return;
+		}
+		if (serializedScopedObjects == null) return;
+		final var scopedObjects = new ConcurrentHashMap<Key<?>, Object>();
+		try (
+			final var serializedEntries = new ScopedObjectInputStream(
+					new ByteArrayInputStream(serializedScopedObjects));
+		) {
+			final var entryCount = serializedEntries.readInt();
+			for (int i = 0; i < entryCount; i++) {
+				final var deserializedEntry =
+						(SerializableScopedObjectEntry) serializedEntries.readObject();
+				scopedObjects.put(constructKey(deserializedEntry), deserializedEntry.scopedObject);
+			}
+		}
+		this.scopedObjects = scopedObjects;
+		slotStorage = null;  // objects are moved back to slots during subsequent provisionings
+		serializedScopedObjects = null;
+	}
+
+	/**
+	 * Resolves classes using the {@link Thread#getContextClassLoader() context ClassLoader} first,
+	 * as the default resolution of a nested {@link ObjectInputStream} uses the {@code ClassLoader}
+	 * of this lib, which may not see classes of scoped {@code Objects} in container environments.
+	 */
+	static class ScopedObjectInputStream extends ObjectInputStream {
+
+		ScopedObjectInputStream(InputStream input) throws IOException {
+			super(input);
+		}
+
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass classDescriptor)
+				throws IOException, ClassNotFoundException {
+			final var contextClassLoader = Thread.currentThread().getContextClassLoader();
+			if (contextClassLoader != null) {
+				try {
+					return Class.forName(classDescriptor.getName(), false, contextClassLoader);
+				} catch (ClassNotFoundException ignored) {}
+			}
+			return super.resolveClass(classDescriptor);
 		}
-		serializableScopedObjectEntries = null;
 	}
 
 	static Key<?> constructKey(SerializableScopedObjectEntry deserializedEntry)
@@ -254,7 +1224,31 @@ public abstract class InjectionContext implements Serializable {
 	private void readObject(ObjectInputStream serializedObjects)
 			throws IOException, ClassNotFoundException {
 		serializedObjects.defaultReadObject();
-		restoreAfterDeserialization();
+		if (serializableScopedObjectEntries == null) {  // otherwise written by an older version
+			serializedScopedObjects = new byte[serializedObjects.readInt()];
+			serializedObjects.readFully(serializedScopedObjects);
+		}
+		restoreScopedObjects();
+	}
+
+
+
+	/**
+	 * Returns the outermost {@code Context} of the chain of enclosing {@code Contexts} that
+	 * actually stores scoped {@code Objects}, or {@code this} if this {@code Context} is not
+	 * nested.
+	 * The result is cached, so that chains are walked only once. The cached {@code Context} is
+	 * re-resolved if it gets {@link #setEnclosingCtx(InjectionContext) nested} afterwards (for
+	 * example after a deserialization). Races on the cache are benign as all resolved values
+	 * are equivalent.
+	 */
+	final InjectionContext getStorageOwner() {
+		var owner = storageOwner;
+		if (owner != null && owner.enclosingCtx == null) return owner;
+		owner = this;
+		while (owner.enclosingCtx != null) owner = owner.enclosingCtx;
+		storageOwner = owner;
+		return owner;
 	}
 
 
@@ -0,0 +1,44 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.util.concurrent.Executor;
+
+
+
+/**
+ * {@link Executor} that may allow tasks to be run synchronously by the calling {@code Thread}
+ * instead of being passed to {@link #execute(Runnable)}.
+ * {@link ContextTrackingExecutor}s, whose {@link ContextTrackingExecutor#getExecutor() underlying
+ * Executor} implements this interface, run tasks directly if
+ * {@link #canExecuteInline()} returns {@code true}: as the {@code Contexts} active for the calling
+ * {@code Thread} are the same as the ones that would be captured, tasks are neither bound nor
+ * wrapped and no {@code Contexts} are re-entered.
+ * <p>
+ * Typical implementations are direct {@link Executor}s (see {@link #DIRECT}) and event-loops
+ * that return {@code true} when called from their own {@code Thread}.</p>
+ */
+public interface InlineCapableExecutor extends Executor {
+
+
+
+	/**
+	 * Indicates whether a task may be run directly by the calling {@code Thread} at this moment
+	 * instead of being passed to {@link #execute(Runnable)}.
+	 */
+	boolean canExecuteInline();
+
+
+
+	/** {@link Executor} that runs all tasks directly on the calling {@code Thread}. */
+	InlineCapableExecutor DIRECT = new InlineCapableExecutor() {
+		@Override public boolean canExecuteInline() {
+			return true;
+		}
+		@Override public void execute(Runnable task) {
+			task.run();
+		}
+		@Override public String toString() {
+			return "InlineCapableExecutor.DIRECT";
+		}
+	};
+}
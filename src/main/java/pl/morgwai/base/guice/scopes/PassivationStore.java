@@ -0,0 +1,200 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+
+import static java.nio.file.StandardOpenOption.*;
+
+
+
+/**
+ * Append-only store of {@link InjectionContext#passivate(PassivationStore) passivated}
+ * {@link InjectionContext Contexts}' scoped {@code Objects}, backed by a memory-mapped local file
+ * of a fixed size.
+ * Serialized scoped {@code Objects} of each passivated {@code Context} are appended as a single
+ * {@link Record} after the previous ones. A {@link Record} becomes garbage when its
+ * {@code Context} is re-hydrated or closed. When a new {@link Record} does not fit into the
+ * remaining space, the live {@link Record}s are first {@link #compact() compacted} to the
+ * beginning of the file. If it still does not fit, the passivation is refused, so the file never
+ * grows beyond the capacity passed to {@link #PassivationStore(Path, int)}.
+ * <p>
+ * Content of the file is meaningful only to the {@code PassivationStore} instance that wrote it:
+ * the index of {@link Record}s is kept in memory, so the file is truncated when a new instance
+ * is created and does not survive restarts. All methods are thread-safe.</p>
+ */
+public final class PassivationStore implements Closeable {
+
+
+
+	final Path file;
+	final FileChannel channel;
+	final MappedByteBuffer buffer;
+
+	/** Maximal size of the file in bytes. */
+	public int getCapacity() { return capacity; }
+	final int capacity;
+
+	/** Live {@link Record}s in the order of their offsets. */
+	final LinkedHashSet<Record> records = new LinkedHashSet<>();
+	int writePosition = 0;
+	long liveBytes = 0L;
+	boolean closed = false;
+
+
+
+	/**
+	 * Creates or truncates {@code file} and maps {@code capacity} bytes of it into memory.
+	 * @param capacity maximal size of the file in bytes.
+	 */
+	public PassivationStore(Path file, int capacity) throws IOException {
+		if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+		this.file = file;
+		this.capacity = capacity;
+		channel = FileChannel.open(file, CREATE, TRUNCATE_EXISTING, READ, WRITE);
+		try {
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0L, capacity);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+
+
+	/**
+	 * Location of serialized scoped {@code Objects} of a single passivated
+	 * {@link InjectionContext} in a {@link PassivationStore}.
+	 * Offsets change only during {@link #compact() compactions}, so they are accessed only while
+	 * holding the lock of the store.
+	 */
+	static final class Record {
+
+		final PassivationStore store;
+		final int length;
+		int offset;
+
+		Record(PassivationStore store, int offset, int length) {
+			this.store = store;
+			this.offset = offset;
+			this.length = length;
+		}
+	}
+
+
+
+	/**
+	 * Appends {@code bytes} to the file, {@link #compact() compacting} it first if needed.
+	 * @return {@link Record} of {@code bytes} or {@code null} if they would not fit even after a
+	 *     compaction.
+	 * @throws IllegalStateException if this store has been {@link #close() closed}.
+	 */
+	synchronized Record append(byte[] bytes) {
+		if (closed) throw new IllegalStateException("PassivationStore " + file + " is closed");
+		if (bytes.length > capacity - writePosition) {
+			if (bytes.length > capacity - liveBytes) return null;
+			compact();
+		}
+		buffer.position(writePosition);
+		buffer.put(bytes);
+		final var record = new Record(this, writePosition, bytes.length);
+		records.add(record);
+		writePosition += bytes.length;
+		liveBytes += bytes.length;
+		return record;
+	}
+
+
+
+	/**
+	 * Reads the content of {@code record} and {@link #release(Record) releases} it.
+	 * @return content of {@code record} or {@code null} if it has already been released (for
+	 *     example because this store has been {@link #close() closed}).
+	 */
+	synchronized byte[] take(Record record) {
+		if ( !records.contains(record)) return null;
+		final var bytes = new byte[record.length];
+		buffer.position(record.offset);
+		buffer.get(bytes);
+		release(record);
+		return bytes;
+	}
+
+
+
+	/** Marks {@code record} as garbage. Has no effect if it has already been released. */
+	synchronized void release(Record record) {
+		if ( !records.remove(record)) return;
+		liveBytes -= record.length;
+		if (records.isEmpty()) writePosition = 0;
+	}
+
+
+
+	/**
+	 * Moves all live {@link Record}s to the beginning of the file, so that the space of released
+	 * ones can be reused. Called automatically when an appended {@link Record} does not fit into
+	 * the remaining space.
+	 */
+	public synchronized void compact() {
+		int position = 0;
+		byte[] chunk = null;
+		for (var record: records) {
+			if (record.offset != position) {
+				if (chunk == null || chunk.length < record.length) chunk = new byte[record.length];
+				buffer.position(record.offset);
+				buffer.get(chunk, 0, record.length);
+				buffer.position(position);
+				buffer.put(chunk, 0, record.length);
+				record.offset = position;
+			}
+			position += record.length;
+		}
+		writePosition = position;
+	}
+
+
+
+	/** Number of bytes of live {@link Record}s. */
+	public synchronized long getLiveBytes() {
+		return liveBytes;
+	}
+
+	/** Number of bytes written since the most recent {@link #compact() compaction}. */
+	public synchronized int getUsedBytes() {
+		return writePosition;
+	}
+
+	/** Number of currently passivated {@code Contexts}. */
+	public synchronized int getRecordCount() {
+		return records.size();
+	}
+
+
+
+	/**
+	 * Closes the underlying file. Subsequent passivations will throw an
+	 * {@link IllegalStateException}. {@code Contexts} still passivated in this store lose their
+	 * scoped {@code Objects}, so they should be re-hydrated or closed before.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (closed) return;
+		closed = true;
+		records.clear();
+		liveBytes = 0L;
+		writePosition = 0;
+		channel.close();
+	}
+
+
+
+	@Override
+	public String toString() {
+		return "PassivationStore { file = " + file + ", capacity = " + capacity + " }";
+	}
+}
@@ -0,0 +1,33 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import com.google.inject.Key;
+
+
+
+/**
+ * Receives reports of {@link com.google.inject.Provider#get() provisionings} of scoped
+ * {@code Objects} from {@link ContextScope}s.
+ * Registered with {@link ContextScope#setProvisioningListener(ProvisioningListener)} or
+ * {@link ScopeModule#setProvisioningListener(ProvisioningListener)}. When no
+ * {@code ProvisioningListener} is registered, scoped {@link com.google.inject.Provider}s do not
+ * measure anything.
+ * <p>
+ * Implementations are called synchronously on the provisioning {@code Thread}s, so they must be
+ * thread-safe and should be fast and non-blocking.</p>
+ * @see ProvisioningMetrics
+ */
+public interface ProvisioningListener {
+
+
+
+	/**
+	 * Reports a successful provisioning of an {@code Object} scoped by the {@link ContextScope}
+	 * named {@code scopeName} under {@code key}.
+	 * @param hit {@code true} if the {@code Object} had been already present in its
+	 *     {@code Context}, {@code false} if it was created by the underlying producer.
+	 * @param producerNanos time spent in the underlying producer in nanoseconds or {@code 0} in
+	 *     case of a {@code hit}.
+	 */
+	void onProvisioning(String scopeName, Key<?> key, boolean hit, long producerNanos);
+}
@@ -0,0 +1,171 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.inject.Key;
+
+
+
+/**
+ * {@link ProvisioningListener} that aggregates provisioning counts and producer times per
+ * {@link ContextScope} name and per {@link Key}.
+ * Counters are striped ({@link LongAdder}s), so that concurrent provisionings from multiple
+ * {@code Threads} do not contend on a single memory location. {@link Snapshot}s may be polled at
+ * any time, for example by a periodic metrics exporter.
+ */
+public class ProvisioningMetrics implements ProvisioningListener {
+
+
+
+	final ConcurrentMap<String, ConcurrentMap<Key<?>, Counters>> scopes =
+			new ConcurrentHashMap<>();
+
+
+
+	@Override
+	public void onProvisioning(String scopeName, Key<?> key, boolean hit, long producerNanos) {
+		var scopeCounters = scopes.get(scopeName);
+		if (scopeCounters == null) {
+			scopeCounters = scopes.computeIfAbsent(scopeName, (n) -> new ConcurrentHashMap<>());
+		}
+		var counters = scopeCounters.get(key);
+		if (counters == null) counters = scopeCounters.computeIfAbsent(key, (k) -> new Counters());
+		if (hit) {
+			counters.hits.increment();
+		} else {
+			counters.misses.increment();
+			counters.producerNanos.add(producerNanos);
+			counters.maxProducerNanos.accumulate(producerNanos);
+		}
+	}
+
+
+
+	/** Returns names of all {@link ContextScope}s that have reported so far. */
+	public Set<String> getScopeNames() {
+		return Set.copyOf(scopes.keySet());
+	}
+
+
+
+	/**
+	 * Returns {@link Snapshot}s of all {@link Key}s of the {@link ContextScope} named
+	 * {@code scopeName}.
+	 */
+	public Map<Key<?>, Snapshot> getSnapshots(String scopeName) {
+		final var scopeCounters = scopes.get(scopeName);
+		if (scopeCounters == null) return Map.of();
+		final var snapshots = new HashMap<Key<?>, Snapshot>(scopeCounters.size() * 4 / 3 + 1);
+		for (var entry: scopeCounters.entrySet()) {
+			snapshots.put(entry.getKey(), entry.getValue().toSnapshot());
+		}
+		return snapshots;
+	}
+
+
+
+	/**
+	 * Returns a {@link Snapshot} of {@code key} in the {@link ContextScope} named
+	 * {@code scopeName}. If nothing has been reported for {@code key}, all values are {@code 0}.
+	 */
+	public Snapshot getSnapshot(String scopeName, Key<?> key) {
+		final var scopeCounters = scopes.get(scopeName);
+		if (scopeCounters == null) return Snapshot.EMPTY;
+		final var counters = scopeCounters.get(key);
+		return counters != null ? counters.toSnapshot() : Snapshot.EMPTY;
+	}
+
+
+
+	/** Returns a {@link Snapshot} aggregated over all {@link Key}s of {@code scopeName}. */
+	public Snapshot getSnapshot(String scopeName) {
+		var aggregate = Snapshot.EMPTY;
+		for (var snapshot: getSnapshots(scopeName).values()) aggregate = aggregate.plus(snapshot);
+		return aggregate;
+	}
+
+
+
+	static class Counters {
+
+		final LongAdder hits = new LongAdder();
+		final LongAdder misses = new LongAdder();
+		final LongAdder producerNanos = new LongAdder();
+		final LongAccumulator maxProducerNanos = new LongAccumulator(Math::max, 0L);
+
+		Snapshot toSnapshot() {
+			return new Snapshot(
+				hits.sum(),
+				misses.sum(),
+				producerNanos.sum(),
+				maxProducerNanos.get()
+			);
+		}
+	}
+
+
+
+	/**
+	 * Values of provisioning counters at some moment.
+	 * As counters are updated concurrently, values of a given {@code Snapshot} may be slightly
+	 * inconsistent with each other.
+	 */
+	public static final class Snapshot {
+
+		static final Snapshot EMPTY = new Snapshot(0L, 0L, 0L, 0L);
+
+		/** Number of provisionings that found an {@code Object} already present. */
+		public long getHits() { return hits; }
+		final long hits;
+
+		/** Number of provisionings that called the underlying producer. */
+		public long getMisses() { return misses; }
+		final long misses;
+
+		/** Total time spent in the underlying producers in nanoseconds. */
+		public long getProducerNanos() { return producerNanos; }
+		final long producerNanos;
+
+		/** The longest single call to an underlying producer in nanoseconds. */
+		public long getMaxProducerNanos() { return maxProducerNanos; }
+		final long maxProducerNanos;
+
+		Snapshot(long hits, long misses, long producerNanos, long maxProducerNanos) {
+			this.hits = hits;
+			this.misses = misses;
+			this.producerNanos = producerNanos;
+			this.maxProducerNanos = maxProducerNanos;
+		}
+
+		/** Total number of provisionings. */
+		public long getCount() {
+			return hits + misses;
+		}
+
+		/** Ratio of {@link #getHits() hits} to {@link #getCount() all provisionings}. */
+		public double getHitRatio() {
+			final var count = getCount();
+			return count > 0L ? (double) hits / count : 0.0;
+		}
+
+		Snapshot plus(Snapshot other) {
+			return new Snapshot(
+				hits + other.hits,
+				misses + other.misses,
+				producerNanos + other.producerNanos,
+				Math.max(maxProducerNanos, other.maxProducerNanos)
+			);
+		}
+
+		@Override
+		public String toString() {
+			return "Snapshot { hits = " + hits + ", misses = " + misses + ", producerNanos = "
+					+ producerNanos + ", maxProducerNanos = " + maxProducerNanos + " }";
+		}
+	}
+}
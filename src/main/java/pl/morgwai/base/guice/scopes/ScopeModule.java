@@ -46,6 +46,119 @@ public abstract class ScopeModule implements Module {
 		Function<? extends TrackableContext<?>, ? extends InjectionContext>
 	> inducedCtxRetrievers = new HashMap<>(3);
 
+	/** Shared by all {@link ContextTracker}s of this {@code Module} or {@code null} if not shared. */
+	final ContextFrame.Group frameGroup;
+
+	/** Passed to all {@link ContextScope}s created by this {@code Module}. */
+	final ContextScope.Options scopeOptions;
+	/** Passed to all {@link ContextTracker}s created by this {@code Module}. */
+	final boolean trackExecutions;
+
+	/** All {@link ContextScope}s created by this {@code Module}. */
+	final List<ContextScope<?>> scopes = new ArrayList<>(4);
+
+
+
+	/** Calls {@link #ScopeModule(Options) this(null)}. */
+	protected ScopeModule() {
+		this(null);
+	}
+
+
+
+	/**
+	 * Constructs a new instance.
+	 * @param options optional features of this {@code Module} and of all its {@link Scope}s.
+	 *     {@code null} is equivalent to a new {@link Options} instance with all features disabled.
+	 */
+	protected ScopeModule(Options options) {
+		frameGroup = options != null && options.shareContextFrame ? new ContextFrame.Group() : null;
+		trackExecutions = options != null && options.trackExecutions;
+		scopeOptions = new ContextScope.Options();
+		if (options != null) {
+			scopeOptions
+				.indexScopedObjects(options.indexScopedObjects)
+				.cacheScopedObjects(options.cacheScopedObjects);
+		}
+	}
+
+
+
+	/**
+	 * Optional features of {@link ScopeModule}s, all disabled by default.
+	 * Besides the features of all {@link ContextScope}s and {@link InducedContextScope}s of a
+	 * given {@code Module} (see {@link ContextScope.Options}), contains features of its
+	 * {@link ContextTracker}s. Values are read by {@link ScopeModule#ScopeModule(Options)}, so
+	 * subsequent modifications of a given instance do not affect already constructed
+	 * {@code Modules}.
+	 */
+	public static class Options extends ContextScope.Options {
+
+		boolean shareContextFrame;
+		boolean trackExecutions;
+
+
+
+		/**
+		 * If {@code true}, all {@link ContextTracker}s created with
+		 * {@link ScopeModule#newContextScope(String, Class)} will store their current
+		 * {@code Contexts} in a single per-{@code Thread} frame, where each of them is assigned a
+		 * separate slot, instead of each using its own {@link ThreadLocal}. This way
+		 * {@link ContextTracker#getActiveContexts(List) capturing} and
+		 * {@link TrackableContext#executeWithinAll(List, Runnable) entering} all {@code Contexts}
+		 * of a given {@code Module} requires a single {@link ThreadLocal} lookup instead of one per
+		 * {@link ContextTracker}. This is beneficial if a derived lib defines several
+		 * {@link TrackableContext} types. It is also required by
+		 * {@link ScopeModule#getEventLoopFrame()}.
+		 * @return this {@code Options} instance.
+		 */
+		public Options shareContextFrame(boolean shareContextFrame) {
+			this.shareContextFrame = shareContextFrame;
+			return this;
+		}
+
+		/** See {@link #shareContextFrame(boolean)}. */
+		public boolean isShareContextFrame() { return shareContextFrame; }
+
+
+
+		/**
+		 * Passed to all {@link ContextTracker}s created by a given {@code Module}: see
+		 * {@link ContextTracker#ContextTracker(boolean)}.
+		 * @return this {@code Options} instance.
+		 */
+		public Options trackExecutions(boolean trackExecutions) {
+			this.trackExecutions = trackExecutions;
+			return this;
+		}
+
+		/** See {@link #trackExecutions(boolean)}. */
+		public boolean isTrackExecutions() { return trackExecutions; }
+
+
+
+		@Override
+		public Options indexScopedObjects(boolean indexScopedObjects) {
+			super.indexScopedObjects(indexScopedObjects);
+			return this;
+		}
+
+		@Override
+		public Options cacheScopedObjects(boolean cacheScopedObjects) {
+			super.cacheScopedObjects(cacheScopedObjects);
+			return this;
+		}
+
+
+
+		@Override
+		public String toString() {
+			return "ScopeModule.Options { shareContextFrame = " + shareContextFrame
+					+ ", trackExecutions = " + trackExecutions + ", indexScopedObjects = "
+					+ indexScopedObjects + ", cacheScopedObjects = " + cacheScopedObjects + " }";
+		}
+	}
+
 
 
 	/**
@@ -62,6 +175,11 @@ public abstract class ScopeModule implements Module {
 	 * <p>
 	 * This method should usually be called to initialize {@code public final ContextScope} fields
 	 * in subclasses of {@code ScopeModule}.</p>
+	 * <p>
+	 * If this {@code Module} was constructed with
+	 * {@link Options#shareContextFrame(boolean) shareContextFrame} option set, the
+	 * {@link ContextTracker} is assigned the next free slot in the shared per-{@code Thread}
+	 * frame.</p>
 	 * @return the newly created {@link ContextScope}. A reference to the corresponding
 	 * {@link ContextTracker} may be obtained from {@link ContextScope#tracker}.
 	 */
@@ -69,9 +187,13 @@ public abstract class ScopeModule implements Module {
 		String name,
 		Class<ContextT> ctxClass
 	) {
-		final var tracker = new ContextTracker<ContextT>();
+		final ContextTracker<ContextT> tracker = frameGroup != null
+				? frameGroup.newTracker(trackExecutions)
+				: new ContextTracker<>(trackExecutions);
 		trackableCtxs.put(ctxClass, tracker);
-		return new ContextScope<>(name, tracker);
+		final var scope = new ContextScope<>(name, tracker, scopeOptions);
+		scopes.add(scope);
+		return scope;
 	}
 
 
@@ -98,7 +220,10 @@ public abstract class ScopeModule implements Module {
 	) {
 		inducedCtxs.put(inducedCtxClass, baseCtxTracker);
 		inducedCtxRetrievers.put(inducedCtxClass, inducedCtxRetriever);
-		return new InducedContextScope<>(name, baseCtxTracker, inducedCtxRetriever);
+		final var scope = new InducedContextScope<>(
+				name, baseCtxTracker, inducedCtxRetriever, scopeOptions);
+		scopes.add(scope);
+		return scope;
 	}
 
 	/**
@@ -120,6 +245,19 @@ public abstract class ScopeModule implements Module {
 
 
 
+	/**
+	 * {@link ContextScope#setProvisioningListener(ProvisioningListener) Registers}
+	 * {@code listener} with all {@link ContextScope}s created so far by
+	 * {@link #newContextScope(String, Class)} and
+	 * {@link #newInducedContextScope(String, Class, ContextTracker, Function)} calls.
+	 * @see ProvisioningMetrics
+	 */
+	public void setProvisioningListener(ProvisioningListener listener) {
+		for (var scope: scopes) scope.setProvisioningListener(listener);
+	}
+
+
+
 	/**
 	 * Returns all {@link ContextTracker}s created by previous
 	 * {@link #newContextScope(String, Class)} calls.
@@ -143,6 +281,25 @@ public abstract class ScopeModule implements Module {
 
 
 
+	/**
+	 * Returns an {@link EventLoopFrame} of the calling {@code Thread}, that allows to switch among
+	 * {@code Contexts} of this {@code Module} without {@link ThreadLocal} access nor array copying.
+	 * This method should be called once by each event-loop {@code Thread} and the result kept for
+	 * all subsequent switches. The {@code Thread} must {@link EventLoopFrame#clear() clear} the
+	 * frame each time it goes idle: see {@link EventLoopFrame} for details and the cost of a
+	 * switch.
+	 * @throws IllegalStateException if this {@code Module} was not created with
+	 *     {@link Options#shareContextFrame(boolean) shareContextFrame} option set.
+	 */
+	public EventLoopFrame getEventLoopFrame() {
+		if (frameGroup == null) {
+			throw new IllegalStateException("ScopeModule must be created with shareContextFrame");
+		}
+		return new EventLoopFrame(frameGroup);
+	}
+
+
+
 	/**
 	 * Creates infrastructure bindings based on internal structures filled by
 	 * {@link #newContextScope(String, Class)} and
@@ -0,0 +1,100 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.google.inject.Key;
+
+
+
+/**
+ * Assigns dense integer slots to {@link Key}s {@link ContextScope#scope(Key,
+ * com.google.inject.Provider) scoped} by a given {@link ContextScope}, so that
+ * {@link InjectionContext Contexts} of this {@link ContextScope} may store their scoped
+ * {@code Object}s in an array (see {@link Storage}) instead of a {@link ConcurrentMap}.
+ * Slots are assigned in the order of {@link #assign(Key)} calls, which happens mostly while an
+ * {@link com.google.inject.Injector} is being built.
+ * @see ContextScope.Options#indexScopedObjects(boolean)
+ */
+final class ScopedObjectSlots {
+
+
+
+	private final ConcurrentMap<Key<?>, Integer> indexes = new ConcurrentHashMap<>();
+	private volatile Key<?>[] keys = new Key<?>[0];
+
+
+
+	/** Returns the slot assigned to {@code key}, assigning the next free one if needed. */
+	int assign(Key<?> key) {
+		final var index = indexes.get(key);
+		if (index != null) return index;
+		synchronized (this) {
+			final var recheckedIndex = indexes.get(key);
+			if (recheckedIndex != null) return recheckedIndex;
+			final var newIndex = keys.length;
+			final var newKeys = Arrays.copyOf(keys, newIndex + 1);
+			newKeys[newIndex] = key;
+			keys = newKeys;
+			indexes.put(key, newIndex);
+			return newIndex;
+		}
+	}
+
+
+
+	/** Returns the slot assigned to {@code key} or {@code -1} if none was assigned. */
+	int indexOf(Key<?> key) {
+		final var index = indexes.get(key);
+		return index != null ? index : -1;
+	}
+
+
+
+	/** Returns the {@link Key} assigned to {@code index}. */
+	Key<?> keyAt(int index) {
+		return keys[index];
+	}
+
+
+
+	/** Number of slots assigned so far. */
+	int size() {
+		return keys.length;
+	}
+
+
+
+	/**
+	 * Array of scoped {@code Objects} of a single {@link InjectionContext}, indexed by slots of
+	 * some {@link ScopedObjectSlots}.
+	 * The length of a given {@code Storage} is fixed at its creation: {@link Key}s assigned
+	 * slots after that fall back to the {@link InjectionContext}'s {@link ConcurrentMap}.
+	 */
+	static final class Storage extends AtomicReferenceArray<Object> {
+
+		final ScopedObjectSlots slots;
+
+		Storage(ScopedObjectSlots slots) {
+			super(slots.size());
+			this.slots = slots;
+		}
+
+		/**
+		 * Returns the slot of {@code key} in this {@code Storage} or {@code -1} if {@code key}
+		 * must be stored in the {@link InjectionContext}'s {@link ConcurrentMap}.
+		 * @param slots {@link ScopedObjectSlots} of the {@link ContextScope} that requested
+		 *     {@code key} or {@code null}.
+		 * @param index slot assigned to {@code key} by {@code slots}.
+		 */
+		int indexOf(ScopedObjectSlots slots, int index, Key<?> key) {
+			if (slots != this.slots) index = this.slots.indexOf(key);
+			return index < length() ? index : -1;
+		}
+
+		private static final long serialVersionUID = -5208305011380562498L;
+	}
+}
@@ -26,6 +26,30 @@ public abstract class TrackableContext<ContextT extends TrackableContext<Context
 
 
 
+	/**
+	 * {@link ContextSnapshot} containing only this {@code Context}, created lazily and shared by
+	 * all {@link ContextSnapshot#capture(List) captures} during which only this {@code Context}
+	 * is active.
+	 */
+	ContextSnapshot getSelfSnapshot() {
+		var selfSnapshot = this.selfSnapshot;
+		if (selfSnapshot == null) {
+			selfSnapshot = new ContextSnapshot(List.of(this));
+			this.selfSnapshot = selfSnapshot;  // benign race: ContextSnapshot is immutable
+		}
+		return selfSnapshot;
+	}
+	private transient ContextSnapshot selfSnapshot;
+
+	/**
+	 * Coarse clock tick of the most recent entering of this {@code Context} or {@code 0} if it is
+	 * not indexed by the {@link ContextEvictionManager} of its {@link #tracker}. Accessed without
+	 * synchronization as the index is approximate anyway.
+	 */
+	transient int lastAccess;
+
+
+
 	/** See {@link InjectionContext#InjectionContext(InjectionContext) super}. */
 	protected TrackableContext(InjectionContext parentCtx, ContextTracker<ContextT> tracker) {
 		super(parentCtx);
@@ -41,7 +65,9 @@ public abstract class TrackableContext<ContextT extends TrackableContext<Context
 	/**
 	 * Asks the associated {@link #getTracker() Tracker} to set this {@code Context} as the current
 	 * one for the calling {@code Thread} and executes {@code task} synchronously.
-	 * Afterwards clears the current {@code Context} for the {@code Thread}.
+	 * Afterwards restores the previously current {@code Context} (usually none) for the
+	 * {@code Thread}. If this {@code Context} is already current, {@code task} is executed
+	 * directly.
 	 * @see #executeWithinAll(List, Throwing4Computation)
 	 */
 	public <
@@ -74,6 +100,16 @@ public abstract class TrackableContext<ContextT extends TrackableContext<Context
 	 * {@code contexts}.
 	 * Used to transfer {@code Contexts} saved with {@link ContextTracker#getActiveContexts(List)}
 	 * after dispatching to another {@code Thread}.
+	 * <p>
+	 * {@code Contexts} are entered in a simple loop before executing {@code task} and cleared in
+	 * a reverse loop afterwards, so that no intermediate closures nor {@code List} views are
+	 * created and the stack depth does not grow with the number of {@code contexts}. When nested,
+	 * {@code Contexts} that are already current are left untouched and the previously current ones
+	 * are restored afterwards instead of being cleared.</p>
+	 * <p>
+	 * If {@link #getTracker() Trackers} of all {@code contexts} share the same per-{@code Thread}
+	 * frame (see {@link ScopeModule.Options#shareContextFrame(boolean)}), the frame is looked up
+	 * only once.</p>
 	 */
 	public static <
 		R, E1 extends Throwable, E2 extends Throwable, E3 extends Throwable, E4 extends Throwable
@@ -88,14 +124,45 @@ public abstract class TrackableContext<ContextT extends TrackableContext<Context
 				printNoCtxWarning(task);
 				return task.perform();
 			default:
-				return executeWithinAll(
-					contexts.subList(1, contexts.size()),
-					(Throwing4Computation<R, E1, E2, E3, E4>)
-							() -> contexts.get(0).executeWithinSelf(task)
-				);
+				final var frameGroup = ContextFrame.Group.ofContexts(contexts);
+				if (frameGroup != null) {
+					final var frame = frameGroup.getOrCreateFrame();
+					if (frame.containsAll(contexts)) return task.perform();
+					final var event = ContextEvents.beginContextEntry();
+					final var previousCtxs = frame.enterAll(contexts);
+					try {
+						return task.perform();
+					} finally {
+						frame.restoreAll(contexts, previousCtxs);
+						ContextEvents.endContextEntry(event, contexts);
+					}
+				}
+				final var event = ContextEvents.beginContextEntry();
+				TrackableContext<?>[] previousCtxs = null;  // allocated only if nested
+				int enteredCount = 0;
+				try {
+					for (; enteredCount < contexts.size(); enteredCount++) {
+						final var ctx = contexts.get(enteredCount);
+						final var previousCtx = ctx.tracker.getCurrentContext();
+						if (previousCtx != null) {
+							if (previousCtxs == null) {
+								previousCtxs = new TrackableContext<?>[contexts.size()];
+							}
+							previousCtxs[enteredCount] = previousCtx;
+							if (previousCtx == ctx) continue;
+						}
+						ctx.setAsCurrent();
+					}
+					return task.perform();
+				} finally {
+					restoreAll(contexts, enteredCount, previousCtxs);
+					ContextEvents.endContextEntry(event, contexts);
+				}
 		}
 	}
 
+
+
 	/**
 	 * Variant of {@link #executeWithinAll(List, Throwing4Computation)} for {@link ThrowingTask}s.
 	 */
@@ -120,13 +187,79 @@ public abstract class TrackableContext<ContextT extends TrackableContext<Context
 				task.run();
 				return;
 			default:
-				executeWithinAll(
-					contexts.subList(1, contexts.size()),
-					(Runnable) () -> contexts.get(0).executeWithinSelf(task)
-				);
+				final var frameGroup = ContextFrame.Group.ofContexts(contexts);
+				if (frameGroup != null) {
+					final var frame = frameGroup.getOrCreateFrame();
+					if (frame.containsAll(contexts)) {
+						task.run();
+						return;
+					}
+					final var event = ContextEvents.beginContextEntry();
+					final var previousCtxs = frame.enterAll(contexts);
+					try {
+						task.run();
+					} finally {
+						frame.restoreAll(contexts, previousCtxs);
+						ContextEvents.endContextEntry(event, contexts);
+					}
+					return;
+				}
+				final var event = ContextEvents.beginContextEntry();
+				TrackableContext<?>[] previousCtxs = null;  // allocated only if nested
+				int enteredCount = 0;
+				try {
+					for (; enteredCount < contexts.size(); enteredCount++) {
+						final var ctx = contexts.get(enteredCount);
+						final var previousCtx = ctx.tracker.getCurrentContext();
+						if (previousCtx != null) {
+							if (previousCtxs == null) {
+								previousCtxs = new TrackableContext<?>[contexts.size()];
+							}
+							previousCtxs[enteredCount] = previousCtx;
+							if (previousCtx == ctx) continue;
+						}
+						ctx.setAsCurrent();
+					}
+					task.run();
+				} finally {
+					restoreAll(contexts, enteredCount, previousCtxs);
+					ContextEvents.endContextEntry(event, contexts);
+				}
 		}
 	}
 
+	/**
+	 * Restores {@code previousCtxs} (all {@code null} if {@code previousCtxs} is {@code null}) in
+	 * place of the first {@code count} of {@code contexts} in the reverse order of entering.
+	 * {@code Contexts} that were already current when entered are left untouched.
+	 */
+	static void restoreAll(
+		List<TrackableContext<?>> contexts,
+		int count,
+		TrackableContext<?>[] previousCtxs
+	) {
+		for (int i = count - 1; i >= 0; i--) {
+			final var ctx = contexts.get(i);
+			if (previousCtxs == null) {
+				ctx.tracker.clearCurrentContext();
+			} else {
+				final var previousCtx = previousCtxs[i];
+				if (previousCtx == ctx) continue;
+				ctx.tracker.restoreCurrentContext(previousCtx);
+			}
+			if (ctx.tracker.trackExecutions) ctx.endExecution();
+		}
+	}
+
+	/** Sets this {@code Context} as the current one for the calling {@code Thread}. */
+	private void setAsCurrent() {
+		@SuppressWarnings("unchecked")
+		final var thisCtx = (ContextT) this;
+		if (tracker.trackExecutions) beginExecution();
+		tracker.stampAccess(thisCtx);
+		tracker.setCurrentContext(thisCtx);
+	}
+
 	static void printNoCtxWarning(Object task) {
 		final var noCtxWarning = String.format(
 			NO_CONTEXT_WARNING,
@@ -135,6 +268,7 @@ public abstract class TrackableContext<ContextT extends TrackableContext<Context
 		);
 		System.err.println(noCtxWarning);
 		log.warning(noCtxWarning);
+		ContextEvents.emitNoContext(task);
 	}
 
 	static final String NO_CONTEXT_WARNING =
@@ -0,0 +1,73 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.util.concurrent.*;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static pl.morgwai.base.guice.scopes.TestContexts.*;
+
+
+
+public class CachingContextScopeTests extends ContextScopeTests {
+
+
+
+	@Override
+	protected ContextScope<TestContext> createTestSubject() {
+		return new ContextScope<>(
+			"cachingTestScope",
+			tracker,
+			new ContextScope.Options().cacheScopedObjects(true)
+		);
+	}
+
+
+
+	@Test
+	public void testRemovalByAnotherThreadInvalidatesCache()
+			throws ExecutionException, InterruptedException {
+		final var ctx = new TestContext(tracker);
+		final var scopedProvider = scope.scope(INT_KEY, producer);
+		final var oldScopedInt = ctx.executeWithinSelf(scopedProvider::get);
+		final var executor = Executors.newSingleThreadExecutor();
+		try {
+			executor.submit(() -> ctx.removeScopedObject(INT_KEY)).get();
+		} finally {
+			executor.shutdown();
+		}
+		assertNotEquals("after removing by another Thread, a new object should be provided",
+				oldScopedInt, ctx.executeWithinSelf(scopedProvider::get));
+	}
+
+
+
+	@Test
+	public void testRemovalViaNestedCtxInvalidatesCache() {
+		final var enclosingCtx = new TestContext(tracker);
+		final var nestedCtx = new NestedTestContext(enclosingCtx);
+		final var scopedProvider = scope.scope(INT_KEY, producer);
+		final var oldScopedInt = enclosingCtx.executeWithinSelf(scopedProvider::get);
+		nestedCtx.removeScopedObject(INT_KEY);
+		assertNotEquals("after removing via nestedCtx, a new object should be provided",
+				oldScopedInt, enclosingCtx.executeWithinSelf(scopedProvider::get));
+	}
+
+	@Test
+	public void testClosingInvalidatesCache() {
+		final var ctx = new TestContext(tracker);
+		final var scopedProvider = scope.scope(INT_KEY, producer);
+		ctx.executeWithinSelf(scopedProvider::get);
+		ctx.close();
+		try {
+			ctx.executeWithinSelf(scopedProvider::get);
+			fail("provisioning in a closed ctx should throw an IllegalStateException");
+		} catch (IllegalStateException expected) {}
+	}
+
+	static class NestedTestContext extends InjectionContext {
+		private static final long serialVersionUID = 6215360417322405839L;
+
+		NestedTestContext(InjectionContext enclosingCtx) { super(enclosingCtx); }
+	}
+}
@@ -166,4 +166,27 @@ public class ContextBinderTests {
 		assertSame("result returned by boundCallback should remain the same",
 				RESULT, boundCallback.get());
 	}
+
+
+	@Test
+	public void testCaptureBinder() {
+		final var snapshotBinder = ctx.executeWithinSelf(testSubject::captureBinder);
+		final var otherCtx = new TestContext(tracker);
+		final var boundRunnable = otherCtx.executeWithinSelf(
+			() -> snapshotBinder.bindToContext(
+				() -> assertSame("closures should be bound to the captured ctx",
+						ctx, tracker.getCurrentContext())
+			)
+		);
+		final var boundFunction = snapshotBinder.bindToContext(
+				(String param) -> tracker.getCurrentContext());
+		assertSame("all closures should share the captured snapshot",
+				boundRunnable.snapshot, boundFunction.snapshot);
+		assertSame("captureBinder() of a SnapshotBinder should return itself",
+				snapshotBinder, snapshotBinder.captureBinder());
+		assertNull("sanity check", tracker.getCurrentContext());
+		boundRunnable.run();
+		assertSame("Function should be bound to the captured ctx",
+				ctx, boundFunction.apply(RESULT));
+	}
 }
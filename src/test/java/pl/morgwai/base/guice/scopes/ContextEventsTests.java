@@ -0,0 +1,129 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.inject.Key;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static pl.morgwai.base.guice.scopes.TestContexts.*;
+
+
+
+public class ContextEventsTests {
+
+
+
+	final ContextTracker<TestContext> eventsTracker = new ContextTracker<>();
+	final ContextScope<TestContext> scope = new ContextScope<>("eventsScope", eventsTracker);
+	final TestContext ctx = new TestContext(eventsTracker);
+
+	final Recording recording = new Recording();
+
+
+
+	@After
+	public void closeRecording() {
+		recording.close();
+	}
+
+
+
+	List<RecordedEvent> record(String eventName, Runnable actions) throws IOException {
+		recording.enable(eventName).withoutThreshold();
+		recording.start();
+		actions.run();
+		recording.stop();
+		final var dump = Files.createTempFile(ContextEventsTests.class.getSimpleName(), ".jfr");
+		try {
+			recording.dump(dump);
+			return RecordingFile.readAllEvents(dump);
+		} finally {
+			Files.delete(dump);
+		}
+	}
+
+
+
+	@Test
+	public void testContextEntryEvent() throws IOException {
+		final var events = record(
+			"pl.morgwai.guice.scopes.ContextEntry",
+			() -> ctx.executeWithinSelf(() -> {})
+		);
+		assertEquals("1 event should be recorded",
+				1, events.size());
+		assertEquals("scope name should be recorded",
+				"eventsScope", events.get(0).getString("scope"));
+		assertEquals("ctx identifier should be recorded",
+				ContextEvents.describe(ctx), events.get(0).getString("context"));
+	}
+
+
+
+	@Test
+	public void testProvisioningEvents() throws IOException {
+		final var counter = new AtomicInteger();
+		final var scopedProvider = scope.scope(Key.get(Integer.class), counter::incrementAndGet);
+		final var events = record(
+			"pl.morgwai.guice.scopes.Provisioning",
+			() -> ctx.executeWithinSelf(() -> {
+				scopedProvider.get();
+				scopedProvider.get();
+			})
+		);
+		assertEquals("2 events should be recorded",
+				2, events.size());
+		assertFalse("the 1st provisioning should be a miss",
+				events.get(0).getBoolean("hit"));
+		assertTrue("the 2nd provisioning should be a hit",
+				events.get(1).getBoolean("hit"));
+		assertEquals("the 2nd provisioning should not call the producer",
+				0L, events.get(1).getDuration("producerDuration").toNanos());
+		assertEquals("scope name should be recorded",
+				"eventsScope", events.get(0).getString("scope"));
+		assertEquals("key should be recorded",
+				Key.get(Integer.class).toString(), events.get(0).getString("key"));
+	}
+
+
+
+	@Test
+	public void testExecutorHopEvent() throws IOException {
+		final var executor = ContextTrackingExecutor.of(
+			Runnable::run,
+			new ContextBinder(List.of(eventsTracker))
+		);
+		final var events = record(
+			"pl.morgwai.guice.scopes.ExecutorHop",
+			() -> ctx.executeWithinSelf(() -> executor.execute(() -> {}))
+		);
+		assertEquals("1 event should be recorded",
+				1, events.size());
+		assertEquals("ctx identifier should be recorded",
+				ContextEvents.describe(ctx), events.get(0).getString("context"));
+	}
+
+
+
+	@Test
+	public void testNoContextEvent() throws IOException {
+		final Runnable task = () -> ctx.executeWithinSelf(() -> {});
+		final var events = record(
+			"pl.morgwai.guice.scopes.NoContext",
+			() -> TrackableContext.executeWithinAll(List.of(), task)
+		);
+		assertEquals("only the enabled NoContext event should be recorded",
+				1, events.size());
+		assertEquals("task should be recorded",
+				task.toString(), events.get(0).getString("task"));
+	}
+}
@@ -0,0 +1,242 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+import org.junit.After;
+import org.junit.Test;
+
+import pl.morgwai.base.guice.scopes.TestContexts.TestContext;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.*;
+
+
+
+public class ContextEvictionManagerTests {
+
+
+
+	final ContextTracker<TestContext> tracker = new ContextTracker<>(true);
+	final List<TestContext> evicted = Collections.synchronizedList(new ArrayList<>());
+	final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+	final CoarseClock clock = new CoarseClock();
+	ContextEvictionManager<TestContext> manager;
+
+	/**
+	 * Creates {@link #manager} driven by {@link #scheduler} and the manually ticked {@link #clock}.
+	 * The periodic memory budget check is cancelled, so that passes are only the ones called
+	 * explicitly or triggered by exceeding the count budget.
+	 */
+	void setManager(
+		int maxContexts,
+		long maxEstimatedBytes,
+		Consumer<? super TestContext> evictionAction
+	) {
+		manager = new ContextEvictionManager<TestContext>(
+			maxContexts,
+			maxEstimatedBytes,
+			(ctx) -> 100L,
+			evictionAction,
+			scheduler,
+			clock
+		);
+		manager.periodicPass.cancel(false);
+		tracker.setEvictionManager(manager);
+	}
+
+	void setManager(int maxContexts, long maxEstimatedBytes) {
+		setManager(maxContexts, maxEstimatedBytes, evicted::add);
+	}
+
+	@After
+	public void shutdownManager() {
+		if (manager != null) manager.close();
+		scheduler.shutdownNow();
+	}
+
+
+
+	/** Enters {@code ctx} and ticks the {@link #clock}, so that stamps differ. */
+	void access(TestContext ctx) {
+		ctx.executeWithinSelf(() -> {});
+		clock.tick();
+	}
+
+	/**
+	 * Waits until all passes triggered so far are completed: {@link #scheduler} runs its tasks on
+	 * a single {@code Thread} in the FIFO order.
+	 */
+	void awaitTriggeredPasses() throws Exception {
+		scheduler.submit(() -> {}).get(5L, SECONDS);
+	}
+
+	List<TestContext> getEvicted() {
+		synchronized (evicted) {
+			return List.copyOf(evicted);
+		}
+	}
+
+
+
+	@Test
+	public void testCountBudgetEvictsColdestCtx() throws Exception {
+		setManager(2, Long.MAX_VALUE);
+		final var ctx1 = new TestContext(tracker);
+		final var ctx2 = new TestContext(tracker);
+		final var ctx3 = new TestContext(tracker);
+		access(ctx1);
+		access(ctx2);
+		access(ctx1);
+		access(ctx3);
+		awaitTriggeredPasses();
+		assertEquals("exceeding the count budget should trigger a pass evicting the coldest ctx",
+				List.of(ctx2), getEvicted());
+		assertEquals("the remaining ctxs should stay indexed",
+				2, manager.getContextCount());
+		assertEquals("no more ctxs should be evicted once the budget is met",
+				0, manager.evict());
+
+		access(ctx2);
+		awaitTriggeredPasses();
+		assertEquals("re-entering evicted ctx2 should trigger an async pass evicting ctx1",
+				List.of(ctx2, ctx1), getEvicted());
+		assertEquals("the remaining ctxs should stay indexed",
+				2, manager.getContextCount());
+	}
+
+
+
+	@Test
+	public void testMemoryBudgetEvictsColdestCtxs() {
+		setManager(Integer.MAX_VALUE, 150L);
+		final var ctx1 = new TestContext(tracker);
+		final var ctx2 = new TestContext(tracker);
+		final var ctx3 = new TestContext(tracker);
+		access(ctx1);
+		access(ctx2);
+		access(ctx3);
+		assertEquals("2 ctxs should be evicted to meet the memory budget",
+				2, manager.evict());
+		assertEquals("the least recently used ctxs should be evicted",
+				List.of(ctx1, ctx2), getEvicted());
+	}
+
+
+
+	@Test
+	public void testClosedCtxsAreDroppedWithoutEviction() throws Exception {
+		setManager(1, Long.MAX_VALUE);
+		final var ctx1 = new TestContext(tracker);
+		final var ctx2 = new TestContext(tracker);
+		access(ctx1);
+		ctx1.close();
+		access(ctx2);
+		awaitTriggeredPasses();
+		assertEquals("no ctx should be evicted",
+				0, manager.evict());
+		assertTrue("closed ctx should not be passed to evictionAction",
+				getEvicted().isEmpty());
+		assertEquals("closed ctx should be removed from the index",
+				1, manager.getContextCount());
+	}
+
+
+
+	@Test
+	public void testCtxsWithActiveExecutionsAreSkipped() throws Exception {
+		setManager(1, Long.MAX_VALUE);
+		final var activeCtx = new TestContext(tracker);
+		final var idleCtx = new TestContext(tracker);
+		activeCtx.executeWithinSelf(() -> {
+			access(idleCtx);
+			awaitTriggeredPasses();  // may have run while idleCtx was still being entered
+			manager.evict();
+		});
+		assertEquals("only idleCtx should be evicted despite being more recently used",
+				List.of(idleCtx), getEvicted());
+	}
+
+
+
+	@Test
+	public void testTrackerNotTrackingExecutionsRejectsManager() {
+		manager = new ContextEvictionManager<>(1, evicted::add);
+		try {
+			new ContextTracker<TestContext>().setEvictionManager(manager);
+			fail("a tracker not tracking executions should reject an eviction manager");
+		} catch (IllegalStateException expected) {}
+	}
+
+
+
+	@Test
+	public void testCloseStopsClockAndOwnedSchedulerOnly() {
+		final var managerWithExternalScheduler = new ContextEvictionManager<TestContext>(
+				1, Long.MAX_VALUE, null, evicted::add, scheduler);
+		managerWithExternalScheduler.close();
+		assertFalse("an external scheduler should not be shut down",
+				scheduler.isShutdown());
+		assertTrue("the clock should be stopped",
+				managerWithExternalScheduler.clock.ticking.isCancelled());
+
+		manager = new ContextEvictionManager<>(1, evicted::add);
+		manager.close();
+		assertTrue("an owned scheduler should be shut down",
+				manager.scheduler.isShutdown());
+		assertTrue("the clock should be stopped",
+				manager.clock.ticking.isCancelled());
+	}
+
+
+
+	@Test
+	public void testPassivatingEvictionAction() throws Exception {
+		final var file = Files.createTempFile(
+				ContextEvictionManagerTests.class.getSimpleName(), ".bin");
+		try (final var store = new PassivationStore(file, 4096)) {
+			setManager(1, Long.MAX_VALUE, ContextEvictionManager.passivatingTo(store));
+			final var ctx1 = new TestContext(tracker);
+			final var ctx2 = new TestContext(tracker);
+			ctx1.produceIfAbsent(InjectionContextTests.STRING_KEY, () -> "scoped");
+			access(ctx1);
+			access(ctx2);
+			awaitTriggeredPasses();
+			assertTrue("ctx1 should be passivated",
+					ctx1.isPassivated());
+			assertEquals("ctx1 should be re-hydrated on access",
+					"scoped", ctx1.produceIfAbsent(InjectionContextTests.STRING_KEY, () -> "new"));
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+
+
+	@Test
+	public void testPassivatingEvictionActionSkipsCtxsInUseAndClosedStores() throws Exception {
+		final var file = Files.createTempFile(
+				ContextEvictionManagerTests.class.getSimpleName(), ".bin");
+		try {
+			final var store = new PassivationStore(file, 4096);
+			final var passivating = ContextEvictionManager.passivatingTo(store);
+			final var ctx = new TestContext(tracker);
+			ctx.produceIfAbsent(InjectionContextTests.STRING_KEY, () -> "scoped");
+			ctx.executeWithinSelf(() -> passivating.accept(ctx));
+			assertFalse("ctx entered after being selected for eviction should not be passivated",
+					ctx.isPassivated());
+
+			store.close();
+			passivating.accept(ctx);
+			assertFalse("a failed passivation should leave ctx unchanged",
+					ctx.isPassivated());
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+}
@@ -0,0 +1,240 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static pl.morgwai.base.guice.scopes.ContextTracker.getActiveContexts;
+import static pl.morgwai.base.guice.scopes.TestContexts.*;
+
+
+
+public class ContextFrameTests {
+
+
+
+	final ContextFrame.Group frameGroup = new ContextFrame.Group();
+	final ContextTracker<TestContext> firstTracker = frameGroup.newTracker();
+	final ContextTracker<SecondTestContext> secondTracker = frameGroup.newTracker();
+	final List<ContextTracker<?>> frameTrackers = List.of(firstTracker, secondTracker);
+	final TestContext ctx1 = new TestContext(firstTracker);
+	final SecondTestContext ctx2 = new SecondTestContext(secondTracker);
+
+
+
+	@Test
+	public void testTrackersHaveSeparateSlots() {
+		assertNull("current context should be unset initially", firstTracker.getCurrentContext());
+		ctx1.executeWithinSelf(
+			() -> {
+				assertSame("executing context should be set as the current",
+						ctx1, firstTracker.getCurrentContext());
+				assertNull("context of another tracker should remain unset",
+						secondTracker.getCurrentContext());
+			}
+		);
+		assertNull("current context should be cleared at the end", firstTracker.getCurrentContext());
+	}
+
+
+
+	@Test
+	public void testGetActiveContexts() {
+		ctx1.executeWithinSelf(
+			() -> ctx2.executeWithinSelf(
+				() -> {
+					final var activeCtxs = getActiveContexts(frameTrackers);
+					assertEquals("there should be 2 active ctxs",
+							2, activeCtxs.size());
+					assertTrue("ctx1 should be active", activeCtxs.contains(ctx1));
+					assertTrue("ctx2 should be active", activeCtxs.contains(ctx2));
+				}
+			)
+		);
+		assertTrue("there should be no active ctxs at the end",
+				getActiveContexts(frameTrackers).isEmpty());
+	}
+
+
+
+	@Test
+	public void testExecuteWithinAll() {
+		TrackableContext.executeWithinAll(
+			List.of(ctx1, ctx2),
+			() -> {
+				assertSame("ctx1 should be active", ctx1, firstTracker.getCurrentContext());
+				assertSame("ctx2 should be active", ctx2, secondTracker.getCurrentContext());
+			}
+		);
+		assertNull("ctx1 should be cleared at the end", firstTracker.getCurrentContext());
+		assertNull("ctx2 should be cleared at the end", secondTracker.getCurrentContext());
+	}
+
+
+
+	@Test
+	public void testMixedGroupsFallBackToSeparateLookups() {
+		final var threadLocalCtx = new ThirdTestContext(thirdTracker);
+		final List<ContextTracker<?>> mixedTrackers = List.of(firstTracker, thirdTracker);
+		TrackableContext.executeWithinAll(
+			List.of(ctx1, threadLocalCtx),
+			() -> {
+				final var activeCtxs = getActiveContexts(mixedTrackers);
+				assertEquals("there should be 2 active ctxs",
+						2, activeCtxs.size());
+				assertTrue("ctx1 should be active", activeCtxs.contains(ctx1));
+				assertTrue("threadLocalCtx should be active", activeCtxs.contains(threadLocalCtx));
+			}
+		);
+	}
+
+
+
+	@Test
+	public void testTrackerAddedAfterFrameCreation() {
+		ctx1.executeWithinSelf(
+			() -> {
+				final ContextTracker<ThirdTestContext> lateTracker = frameGroup.newTracker();
+				assertNull("late tracker should have no current context",
+						lateTracker.getCurrentContext());
+				final var lateCtx = new ThirdTestContext(lateTracker);
+				lateCtx.executeWithinSelf(
+					() -> assertSame("lateCtx should be active",
+							lateCtx, lateTracker.getCurrentContext())
+				);
+				assertSame("ctx1 should remain active", ctx1, firstTracker.getCurrentContext());
+			}
+		);
+	}
+
+
+	@Test
+	public void testNestedEntriesRestoreOuterCtxs() {
+		final var otherCtx = new TestContext(firstTracker);
+		final var snapshot = ContextSnapshot.of(List.of(ctx1, ctx2));
+		snapshot.executeWithin(() -> {
+			snapshot.executeWithin(() -> assertSame("ctx1 should remain current when re-entered",
+					ctx1, firstTracker.getCurrentContext()));
+			assertSame("re-entering the snapshot should not clear ctx1",
+					ctx1, firstTracker.getCurrentContext());
+			TrackableContext.executeWithinAll(List.of(otherCtx, ctx2), () -> assertSame(
+					"otherCtx should be current", otherCtx, firstTracker.getCurrentContext()));
+			assertSame("ctx1 should be restored after otherCtx exits",
+					ctx1, firstTracker.getCurrentContext());
+			assertSame("ctx2 should not be cleared",
+					ctx2, secondTracker.getCurrentContext());
+			otherCtx.executeWithinSelf(() -> {});
+			assertSame("ctx1 should be restored after otherCtx exits",
+					ctx1, firstTracker.getCurrentContext());
+		});
+		assertNull("ctx1 should be cleared at the end",
+				firstTracker.getCurrentContext());
+		assertNull("ctx2 should be cleared at the end",
+				secondTracker.getCurrentContext());
+	}
+
+
+	@Test
+	public void testEventLoopFrameSwitching() {
+		final var loopFrame = new EventLoopFrame(frameGroup);
+		final var otherCtx1 = new TestContext(firstTracker);
+		final var connection1 = ContextSnapshot.of(List.of(ctx1, ctx2));
+		final var connection2 = ContextSnapshot.of(List.of(otherCtx1));
+		try {
+			loopFrame.switchTo(connection1);
+			assertSame("ctx1 should be current after switching to connection1",
+					ctx1, firstTracker.getCurrentContext());
+			assertSame("ctx2 should be current after switching to connection1",
+					ctx2, secondTracker.getCurrentContext());
+			assertSame("capturing should return the switched snapshot",
+					connection1, ContextSnapshot.capture(frameTrackers));
+
+			loopFrame.switchTo(connection2);
+			assertSame("otherCtx1 should be current after switching to connection2",
+					otherCtx1, firstTracker.getCurrentContext());
+			assertNull("ctx2 should not be current after switching to connection2",
+					secondTracker.getCurrentContext());
+
+			ctx2.executeWithinSelf(() -> assertSame("nested entering should be possible",
+					ctx2, secondTracker.getCurrentContext()));
+			assertNull("switched Contexts should be restored after nested entering",
+					secondTracker.getCurrentContext());
+			assertNull("nested entering should not modify the snapshot's slots",
+					connection2.getFrameSlots()[secondTracker.frameSlot]);
+
+			loopFrame.switchTo(connection1);
+			assertSame("switching back should restore ctx1",
+					ctx1, firstTracker.getCurrentContext());
+			loopFrame.clear();
+			assertNull("no Context should be current after clearing",
+					firstTracker.getCurrentContext());
+		} finally {
+			loopFrame.clear();
+		}
+	}
+
+
+
+	@Test
+	public void testSwitchedCtxsAreCountedAsExecutingAndStamped() {
+		final ContextTracker<TestContext> trackingTracker = frameGroup.newTracker(true);
+		final var manager = new ContextEvictionManager<TestContext>(1, (ctx) -> {});
+		trackingTracker.setEvictionManager(manager);
+		final var loopFrame = new EventLoopFrame(frameGroup);
+		final var ctx = new TestContext(trackingTracker);
+		final var connection = ContextSnapshot.of(List.of(ctx, ctx2));
+		try {
+			loopFrame.switchTo(connection);
+			assertNotEquals("switched ctx should be stamped",
+					0, ctx.lastAccess);
+			assertTrue("switched ctx should be counted as executing",
+					ctx.hasActiveExecutions());
+			final var disposal = ctx.close();
+			loopFrame.switchTo(connection);
+			assertFalse("switching to the same ctx again should not start its disposal",
+					disposal.isDone());
+			loopFrame.switchTo(ctx2);
+			assertTrue("switching away from a closed ctx should start its disposal",
+					disposal.isDone());
+			assertFalse("sanity check",
+					ctx.hasActiveExecutions());
+		} finally {
+			loopFrame.clear();
+			manager.close();
+		}
+	}
+
+
+
+	@Test
+	public void testClearingIdleEventLoopFrameEndsExecutions() {
+		final ContextTracker<TestContext> trackingTracker = frameGroup.newTracker(true);
+		final var loopFrame = new EventLoopFrame(frameGroup);
+		final var ctx = new TestContext(trackingTracker);
+		loopFrame.switchTo(ctx);
+		final var disposal = ctx.close();
+		assertFalse("the last switched ctx should stay executing until the frame is cleared",
+				disposal.isDone());
+		loopFrame.clear();
+		assertFalse("clearing should end the execution of the last switched ctx",
+				ctx.hasActiveExecutions());
+		assertTrue("clearing should start the disposal of the closed ctx",
+				disposal.isDone());
+	}
+
+
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testEventLoopFrameRejectsForeignContexts() {
+		new EventLoopFrame(frameGroup).switchTo(new TestContext(new ContextTracker<>()));
+	}
+
+
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testEventLoopFrameRejectsSnapshotsWithAnyForeignCtx() {
+		final var foreignCtx = new SecondTestContext(new ContextFrame.Group().newTracker());
+		new EventLoopFrame(frameGroup).switchTo(ContextSnapshot.of(List.of(ctx1, foreignCtx)));
+	}
+}
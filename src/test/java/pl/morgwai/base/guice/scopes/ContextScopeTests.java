@@ -1,10 +1,12 @@
 // Copyright 2021 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
 package pl.morgwai.base.guice.scopes;
 
+import java.util.concurrent.*;
 import org.junit.Test;
 
 import com.google.inject.*;
 
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.Assert.*;
 import static pl.morgwai.base.guice.scopes.TestContexts.*;
 
@@ -16,7 +18,11 @@ public class ContextScopeTests {
 
 	static final Key<Integer> INT_KEY = Key.get(Integer.class);
 
-	final ContextScope<TestContext> scope = new ContextScope<>("testScope", tracker);
+	final ContextScope<TestContext> scope = createTestSubject();
+
+	protected ContextScope<TestContext> createTestSubject() {
+		return new ContextScope<>("testScope", tracker);
+	}
 
 	int sequence = 0;
 	final Provider<Integer> producer = new Provider<>() {
@@ -59,6 +65,39 @@ public class ContextScopeTests {
 
 
 
+	@Test
+	public void testNpeFromProducerIsNotReportedAsOutOfScope() {
+		final var npe = new NullPointerException("producer bug");
+		final Provider<Integer> throwingProducer = () -> { throw npe; };
+		new TestContext(tracker).executeWithinSelf(
+			() -> {
+				try {
+					scope.scope(INT_KEY, throwingProducer).get();
+					fail("NPE from producer should be propagated");
+				} catch (NullPointerException expected) {
+					assertSame("NPE from producer should be propagated unchanged",
+							npe, expected);
+				}
+			}
+		);
+	}
+
+
+
+	@Test
+	public void testScopingInDifferentCtxs() {
+		final var scopedProvider = scope.scope(INT_KEY, producer);
+		final var firstScopedInt = new TestContext(tracker).executeWithinSelf(scopedProvider::get);
+		final var secondCtx = new TestContext(tracker);
+		final var secondScopedInt = secondCtx.executeWithinSelf(scopedProvider::get);
+		assertNotEquals("scopedProvider should provide different objects in different ctxs",
+				firstScopedInt, secondScopedInt);
+		assertEquals("scopedProvider should keep providing the same object in secondCtx",
+				secondScopedInt, secondCtx.executeWithinSelf(scopedProvider::get));
+	}
+
+
+
 	@Test
 	public void testRemoveFromScope() {
 		new TestContext(tracker).executeWithinSelf(
@@ -82,4 +121,82 @@ public class ContextScopeTests {
 		assertTrue("scopedProvider.toString() should contain result of producer.toString()",
 				scope.scope(INT_KEY, producer).toString().contains(producer.toString()));
 	}
+
+
+
+	@Test
+	public void testGetAsyncSharesProductionWithSyncProvisioning() throws Exception {
+		final var ctx = new TestContext(tracker);
+		final var scopedProvider = scope.scope(INT_KEY, producer);
+		final var producerMayFinish = new CountDownLatch(1);
+		final var producerCtx = new CompletableFuture<TestContext>();
+		final Provider<Integer> slowProducer = () -> {
+			producerCtx.complete(tracker.getCurrentContext());
+			try {
+				producerMayFinish.await();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+			return producer.get();
+		};
+		final var executor = Executors.newFixedThreadPool(2);
+		try {
+			final var asyncResult = ctx.executeWithinSelf(
+					() -> scope.getAsync(INT_KEY, slowProducer, executor));
+			final var sharedAsyncResult = ctx.executeWithinSelf(
+					() -> scope.getAsync(INT_KEY, slowProducer, executor));
+			final var syncResult = executor.submit(
+					() -> ctx.executeWithinSelf(scopedProvider::get));
+			assertSame("producer should be executed within ctx",
+					ctx, producerCtx.get(1L, SECONDS));
+			assertFalse("sync provisioning should wait for the async one",
+					syncResult.isDone());
+			producerMayFinish.countDown();
+			assertEquals("async result should be the produced Object",
+					Integer.valueOf(1), asyncResult.get(1L, SECONDS));
+			assertEquals("concurrent async requests should share the production",
+					Integer.valueOf(1), sharedAsyncResult.get(1L, SECONDS));
+			assertEquals("concurrent sync provisioning should share the production",
+					Integer.valueOf(1), syncResult.get(1L, SECONDS));
+			assertEquals("subsequent sync provisionings should obtain the produced Object",
+					Integer.valueOf(1), ctx.executeWithinSelf(scopedProvider::get));
+			assertEquals("producers should be called once",
+					1, sequence);
+		} finally {
+			producerMayFinish.countDown();
+			executor.shutdownNow();
+		}
+	}
+
+
+
+	@Test
+	public void testFailedGetAsyncDoesNotScopeAnything() throws Exception {
+		final var ctx = new TestContext(tracker);
+		final var failure = new RuntimeException("expected");
+		final var result = ctx.executeWithinSelf(() -> scope.getAsync(
+			INT_KEY,
+			() -> { throw failure; },
+			InlineCapableExecutor.DIRECT
+		));
+		try {
+			result.get();
+			fail("failure of producer should be propagated");
+		} catch (ExecutionException expected) {
+			assertSame("failure of producer should be propagated",
+					failure, expected.getCause());
+		}
+		assertEquals("a subsequent provisioning should call its producer",
+				Integer.valueOf(1), ctx.executeWithinSelf(scope.scope(INT_KEY, producer)::get));
+	}
+
+
+
+	@Test
+	public void testGetAsyncOutOfCtxThrows() {
+		try {
+			scope.getAsync(INT_KEY, producer, InlineCapableExecutor.DIRECT);
+			fail("getAsync(...) outside of any ctx should throw an OutOfScopeException");
+		} catch (OutOfScopeException expected) {}
+	}
 }
@@ -0,0 +1,139 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static pl.morgwai.base.guice.scopes.ContextSnapshot.capture;
+import static pl.morgwai.base.guice.scopes.TestContexts.*;
+
+
+
+public class ContextSnapshotTests {
+
+
+
+	final TestContext ctx1 = new TestContext(tracker);
+	final SecondTestContext ctx2 = new SecondTestContext(secondTracker);
+
+	final ContextFrame.Group frameGroup = new ContextFrame.Group();
+	final ContextTracker<TestContext> firstFrameTracker = frameGroup.newTracker();
+	final ContextTracker<SecondTestContext> secondFrameTracker = frameGroup.newTracker();
+	final List<ContextTracker<?>> frameTrackers = List.of(firstFrameTracker, secondFrameTracker);
+	final TestContext frameCtx1 = new TestContext(firstFrameTracker);
+	final SecondTestContext frameCtx2 = new SecondTestContext(secondFrameTracker);
+
+
+
+	@Test
+	public void testCapturingSingleCtxReusesSnapshot() {
+		final var snapshots = ctx1.executeWithinSelf(
+			() -> new ContextSnapshot[] {capture(allTrackers), capture(List.of(tracker))}
+		);
+		assertSame("capturing the same single ctx should return the same snapshot",
+				snapshots[0], snapshots[1]);
+		assertEquals("snapshot should contain ctx1",
+				List.of(ctx1), snapshots[0].getContexts());
+	}
+
+
+
+	@Test
+	public void testCapturingMultipleThreadLocalCtxs() {
+		final var snapshot = ctx1.executeWithinSelf(
+			() -> ctx2.executeWithinSelf(
+				() -> capture(allTrackers)
+			)
+		);
+		assertEquals("snapshot should contain 2 ctxs",
+				2, snapshot.getContexts().size());
+		assertEquals("snapshot should be equal to another one with the same ctxs in any order",
+				ContextSnapshot.of(List.of(ctx2, ctx1)), snapshot);
+		assertEquals("hashCodes of equal snapshots should be equal",
+				ContextSnapshot.of(List.of(ctx2, ctx1)).hashCode(), snapshot.hashCode());
+		assertNotEquals("snapshots of different ctxs should not be equal",
+				ContextSnapshot.of(List.of(ctx1, new SecondTestContext(secondTracker))), snapshot);
+	}
+
+
+
+	@Test
+	public void testCapturingOutsideOfCtxs() {
+		assertTrue("snapshot captured outside of ctxs should be empty",
+				capture(allTrackers).getContexts().isEmpty());
+		assertTrue("snapshot captured outside of ctxs should be empty",
+				capture(frameTrackers).getContexts().isEmpty());
+	}
+
+
+
+	@Test
+	public void testCapturingSharedFrameReusesSnapshotWithinFrame() {
+		frameCtx1.executeWithinSelf(
+			() -> frameCtx2.executeWithinSelf(
+				() -> {
+					final var snapshot = capture(frameTrackers);
+					assertSame("subsequent captures within the same frame should be the same",
+							snapshot, capture(frameTrackers));
+					assertEquals("snapshot should contain both ctxs",
+							ContextSnapshot.of(List.of(frameCtx1, frameCtx2)), snapshot);
+				}
+			)
+		);
+	}
+
+
+
+	@Test
+	public void testSharedFrameSnapshotIsInvalidatedAfterEntering() {
+		frameCtx1.executeWithinSelf(
+			() -> {
+				final var outerSnapshot = capture(frameTrackers);
+				final var innerSnapshot = frameCtx2.executeWithinSelf(
+						() -> capture(frameTrackers));
+				assertNotEquals("entering another ctx should change the snapshot",
+						outerSnapshot, innerSnapshot);
+				assertEquals("outer snapshot should be valid again after exiting",
+						outerSnapshot, capture(frameTrackers));
+			}
+		);
+	}
+
+
+
+	@Test
+	public void testExecuteWithinSharesSnapshot() {
+		final var snapshot = ContextSnapshot.of(List.of(frameCtx1, frameCtx2));
+		snapshot.executeWithin(
+			() -> {
+				assertSame("frameCtx1 should be active",
+						frameCtx1, firstFrameTracker.getCurrentContext());
+				assertSame("frameCtx2 should be active",
+						frameCtx2, secondFrameTracker.getCurrentContext());
+				assertSame("capturing within the executed snapshot should return it",
+						snapshot, capture(frameTrackers));
+			}
+		);
+		assertNull("frameCtx1 should be cleared at the end", firstFrameTracker.getCurrentContext());
+		assertNull("frameCtx2 should be cleared at the end",
+				secondFrameTracker.getCurrentContext());
+	}
+
+
+
+	@Test
+	public void testExecuteWithinThreadLocalCtxs() {
+		final var result = "result";
+		assertSame("result of executeWithin(...) should match the one returned by the passed task",
+			result,
+			ContextSnapshot.of(List.of(ctx1, ctx2)).executeWithin(
+				() -> {
+					assertSame("ctx1 should be active", ctx1, tracker.getCurrentContext());
+					assertSame("ctx2 should be active", ctx2, secondTracker.getCurrentContext());
+					return result;
+				}
+			)
+		);
+	}
+}
@@ -0,0 +1,127 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.util.List;
+import java.util.concurrent.*;
+import org.junit.*;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.*;
+import static pl.morgwai.base.guice.scopes.TestContexts.*;
+
+
+
+public class ContextTrackingCompletableFutureTests {
+
+
+
+	final ContextBinder ctxBinder = new ContextBinder(List.of(tracker));
+	final ExecutorService otherExecutor = Executors.newSingleThreadExecutor();
+
+	@After
+	public void shutdown() {
+		otherExecutor.shutdownNow();
+	}
+
+
+
+	@Test
+	public void testAsyncStagesRunWithinCtx() throws Exception {
+		final var ctx = new TestContext(tracker);
+		final var future = ctx.executeWithinSelf(() -> ContextTrackingCompletableFuture.supplyAsync(
+				ctxBinder, tracker::getCurrentContext));
+		final var stage = future
+			.thenApplyAsync((supplierCtx) -> List.of(supplierCtx, tracker.getCurrentContext()))
+			.thenApplyAsync(
+				(ctxs) -> List.of(ctxs.get(0), ctxs.get(1), tracker.getCurrentContext()),
+				otherExecutor
+			);
+		for (var stageCtx: stage.get(1L, SECONDS)) {
+			assertSame("all async stages should run within ctx",
+					ctx, stageCtx);
+		}
+		assertTrue("dependent stages should be ContextTrackingCompletableFutures",
+				stage instanceof ContextTrackingCompletableFuture);
+		assertSame("dependent stages should share the snapshot of the root future",
+				future.snapshot, ((ContextTrackingCompletableFuture<?>) stage).snapshot);
+	}
+
+
+
+	@Test
+	public void testSyncStageCompletedFromOutsideRunsWithinCtx() throws Exception {
+		final var ctx = new TestContext(tracker);
+		final var future = ctx.executeWithinSelf(
+				() -> new ContextTrackingCompletableFuture<String>(ctxBinder));
+		final var stage = future.thenApply((ignored) -> tracker.getCurrentContext());
+		otherExecutor.execute(() -> future.complete("result"));
+		assertSame("sync stage should run within ctx even if completed by a foreign Thread",
+				ctx, stage.get(1L, SECONDS));
+	}
+
+
+
+	@Test
+	public void testSyncStageOnCompletedFutureRunsWithinCtx() {
+		final var ctx = new TestContext(tracker);
+		final var future = ctx.executeWithinSelf(
+				() -> new ContextTrackingCompletableFuture<String>(ctxBinder));
+		future.complete("result");
+		assertSame("sync stage added outside of ctx should still run within ctx",
+				ctx, future.thenApply((ignored) -> tracker.getCurrentContext()).join());
+		assertNull("ctx should not leak to the calling Thread",
+				tracker.getCurrentContext());
+	}
+
+
+
+	@Test
+	public void testCtxIsNotClearedByNestedSyncStage() throws Exception {
+		final var ctx = new TestContext(tracker);
+		final var trigger = ctx.executeWithinSelf(
+				() -> new ContextTrackingCompletableFuture<String>(ctxBinder));
+		final var nestedStageCompleted = new CompletableFuture<TestContext>();
+		trigger.thenRun(() -> nestedStageCompleted.complete(tracker.getCurrentContext()));
+		final var outer = trigger.snapshot.executeWithin(() -> {
+			trigger.complete("result");  // runs the sync stage nested on this Thread
+			return tracker.getCurrentContext();
+		});
+		assertSame("nested stage should run within ctx",
+				ctx, nestedStageCompleted.get(1L, SECONDS));
+		assertSame("ctx should stay active after a nested stage completes",
+				ctx, outer);
+	}
+
+
+
+	@Test
+	public void testBridgingForeignStage() throws Exception {
+		final var ctx = new TestContext(tracker);
+		final var foreign = new CompletableFuture<String>();
+		final var bridged = ctx.executeWithinSelf(
+				() -> ContextTrackingCompletableFuture.of(foreign, ctxBinder));
+		final var stage = bridged.thenApply((ignored) -> tracker.getCurrentContext());
+		otherExecutor.execute(() -> foreign.complete("result"));
+		assertSame("stages of a bridged future should run within ctx",
+				ctx, stage.get(1L, SECONDS));
+		assertSame("bridging a ContextTrackingCompletableFuture should return it as is",
+				bridged, ContextTrackingCompletableFuture.of(bridged, ctxBinder));
+	}
+
+
+
+	@Test
+	public void testBridgingForeignFailure() {
+		final var foreign = new CompletableFuture<String>();
+		final var bridged = ContextTrackingCompletableFuture.of(foreign, ctxBinder);
+		final var failure = new Exception("failure");
+		foreign.completeExceptionally(failure);
+		try {
+			bridged.join();
+			fail("bridged future should complete exceptionally");
+		} catch (CompletionException e) {
+			assertSame("failure should be propagated",
+					failure, e.getCause());
+		}
+	}
+}
@@ -0,0 +1,96 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.*;
+import static pl.morgwai.base.guice.scopes.TestContexts.*;
+
+
+
+public class ContextTrackingExecutorServiceTests extends ContextTrackingExecutorTests {
+
+
+
+	final AtomicInteger captureCount = new AtomicInteger();
+	ContextTrackingExecutorService executorService;
+
+	@Override
+	public void setup() {
+		final var countingBinder = new ContextBinder(List.of(tracker)) {
+			@Override protected ContextSnapshot captureSnapshot() {
+				captureCount.incrementAndGet();
+				return super.captureSnapshot();
+			}
+		};
+		executorToShutdown = Executors.newFixedThreadPool(2);
+		executorService = new ContextTrackingExecutorService(executorToShutdown, countingBinder);
+		testSubject = executorService;
+	}
+
+
+
+	@Test
+	public void testSubmit() throws Exception {
+		final var ctx = new TestContext(tracker);
+		final var future = ctx.executeWithinSelf(
+				() -> executorService.submit(tracker::getCurrentContext));
+		assertSame("Callable should be executed within ctx",
+				ctx, future.get(1L, SECONDS));
+		assertSame("future should carry the captured snapshot",
+				ctx.getSelfSnapshot(), future.snapshot);
+	}
+
+
+
+	@Test
+	public void testCompletionCallbacksRunWithinCtx() throws Exception {
+		final var ctx = new TestContext(tracker);
+		final var taskMayFinish = new CountDownLatch(1);
+		final var future = ctx.executeWithinSelf(() -> executorService.submit(() -> {
+			taskMayFinish.await();
+			return "result";
+		}));
+		final var beforeCompletion = future.toCompletableFuture()
+			.thenApply((ignored) -> tracker.getCurrentContext());
+		taskMayFinish.countDown();
+		assertSame("callback registered before completion should run within ctx",
+				ctx, beforeCompletion.get(1L, SECONDS));
+		assertSame("callback registered after completion should run within ctx",
+				ctx, future.toCompletableFuture()
+					.thenApply((ignored) -> tracker.getCurrentContext())
+					.get(1L, SECONDS));
+	}
+
+
+
+	@Test
+	public void testInvokeAllCapturesCtxOnce() throws Exception {
+		final var ctx = new TestContext(tracker);
+		final Callable<TestContext> task = tracker::getCurrentContext;
+		final var futures = ctx.executeWithinSelf(
+				() -> executorService.invokeAll(List.of(task, task, task, task)));
+		for (var future: futures) {
+			assertSame("all Callables should be executed within ctx",
+					ctx, future.get());
+		}
+		assertEquals("Contexts should be captured once for the whole batch",
+				1, captureCount.get());
+	}
+
+
+
+	@Test
+	public void testInvokeAny() throws Exception {
+		final var ctx = new TestContext(tracker);
+		final Callable<TestContext> task = tracker::getCurrentContext;
+		assertSame("Callable should be executed within ctx",
+				ctx, ctx.executeWithinSelf(() -> executorService.invokeAny(List.of(task, task))));
+		assertEquals("Contexts should be captured once for the whole batch",
+				1, captureCount.get());
+	}
+}
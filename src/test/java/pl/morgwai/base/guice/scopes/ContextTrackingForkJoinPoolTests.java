@@ -0,0 +1,176 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.util.List;
+import java.util.concurrent.*;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static pl.morgwai.base.guice.scopes.TestContexts.*;
+
+
+
+public class ContextTrackingForkJoinPoolTests extends ContextTrackingExecutorTests {
+
+
+
+	ContextTrackingForkJoinPool pool;
+
+	@Override
+	public void setup() {
+		pool = new ContextTrackingForkJoinPool(4, ctxBinder);
+		testSubject = pool;
+		executorToShutdown = pool;
+	}
+
+
+
+	/**
+	 * Counts leaves of a binary split of {@code [from, to)} that were computed within the expected
+	 * {@code Context}.
+	 */
+	static class CountingTask extends ContextTrackingRecursiveTask<Integer> {
+
+		final TestContext expectedCtx;
+		final int from;
+		final int to;
+
+		CountingTask(ContextBinder ctxBinder, TestContext expectedCtx, int size) {
+			super(ctxBinder);
+			this.expectedCtx = expectedCtx;
+			this.from = 0;
+			this.to = size;
+		}
+
+		CountingTask(CountingTask parent, int from, int to) {
+			super(parent.snapshot);
+			this.expectedCtx = parent.expectedCtx;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Integer computeWithinContexts() {
+			if (to - from == 1) {
+				try {
+					Thread.sleep(1L);  // give other workers a chance to steal
+				} catch (InterruptedException ignored) {}
+				return tracker.getCurrentContext() == expectedCtx ? 1 : 0;
+			}
+			final var middle = (from + to) / 2;
+			final var left = new CountingTask(this, from, middle);
+			left.fork();
+			final var rightCount = new CountingTask(this, middle, to).compute();
+			final var leftCount = left.join();
+			if (tracker.getCurrentContext() != expectedCtx) return -1_000_000;
+			return leftCount + rightCount;
+		}
+
+		private static final long serialVersionUID = 1L;
+	}
+
+
+
+	@Test
+	public void testSubtasksInheritCtx() {
+		final var ctx = new TestContext(tracker);
+		final var leafCount = 64;
+		final var rootTask =
+				ctx.executeWithinSelf(() -> new CountingTask(ctxBinder, ctx, leafCount));
+		assertEquals("all leaves should be computed within ctx",
+				leafCount, (int) pool.invoke(rootTask));
+		assertNull("ctx should not leak to the invoking Thread",
+				tracker.getCurrentContext());
+	}
+
+
+
+	@Test
+	public void testRecursiveActionInheritsCtx() throws Exception {
+		final var ctx = new TestContext(tracker);
+		final var ctxSeen = new CompletableFuture<TestContext>();
+		final var action = ctx.executeWithinSelf(
+			() -> new ContextTrackingRecursiveAction(ctxBinder) {
+				@Override protected void computeWithinContexts() {
+					ctxSeen.complete(tracker.getCurrentContext());
+				}
+				private static final long serialVersionUID = 1L;
+			}
+		);
+		ForkJoinPool.commonPool().execute(action);
+		assertSame("action should be executed within ctx even by a plain ForkJoinPool",
+				ctx, ctxSeen.get(1L, TimeUnit.SECONDS));
+	}
+
+
+
+	@Test
+	public void testSubmitCallable() throws Exception {
+		final var ctx = new TestContext(tracker);
+		final var future = ctx.executeWithinSelf(() -> pool.submit(tracker::getCurrentContext));
+		assertSame("Callable should be executed within ctx",
+				ctx, future.get(1L, TimeUnit.SECONDS));
+	}
+
+
+
+	@Test
+	public void testInvokeAll() throws Exception {
+		final var ctx = new TestContext(tracker);
+		final Callable<TestContext> task = tracker::getCurrentContext;
+		final var futures = ctx.executeWithinSelf(() -> pool.invokeAll(List.of(task, task)));
+		for (var future: futures) {
+			assertSame("all Callables should be executed within ctx",
+					ctx, future.get());
+		}
+	}
+
+
+
+	@Test
+	public void testPlainForkJoinTaskIsSubmittedAsIs() throws Exception {
+		final var ctx = new TestContext(tracker);
+		final var plainTask = new RecursiveTask<TestContext>() {
+			@Override protected TestContext compute() {
+				return tracker.getCurrentContext();
+			}
+		};
+		final var submitted = ctx.executeWithinSelf(() -> pool.submit(plainTask));
+		assertSame("submit(task) should return the original task",
+				plainTask, submitted);
+		assertNull("plain ForkJoinTask should be executed outside of any Context",
+				plainTask.get(1L, TimeUnit.SECONDS));
+	}
+
+
+
+	@Test
+	public void testCancellingSubmittedForkJoinTaskCancelsIt() throws Exception {
+		final var blocker = new CountDownLatch(1);
+		final var started = new CountDownLatch(1);
+		final var singleWorkerPool = new ContextTrackingForkJoinPool(1, ctxBinder);
+		try {
+			singleWorkerPool.submit(() -> {
+				started.countDown();
+				blocker.await();
+				return null;
+			});
+			assertTrue("blocking task should start", started.await(1L, TimeUnit.SECONDS));
+			final var queuedTask = new RecursiveAction() {
+				@Override protected void compute() {
+					fail("a cancelled task should not be executed");
+				}
+			};
+			final var submitted = singleWorkerPool.submit(queuedTask);
+			assertTrue("returned task should be cancellable", submitted.cancel(false));
+			assertTrue("the queued task should be cancelled", queuedTask.isCancelled());
+			blocker.countDown();
+			singleWorkerPool.shutdown();
+			assertTrue("pool should terminate",
+					singleWorkerPool.awaitTermination(1L, TimeUnit.SECONDS));
+		} finally {
+			blocker.countDown();
+			singleWorkerPool.shutdownNow();
+		}
+	}
+}
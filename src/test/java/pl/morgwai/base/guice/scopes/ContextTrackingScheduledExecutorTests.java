@@ -0,0 +1,133 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.util.concurrent.*;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.*;
+import static pl.morgwai.base.guice.scopes.TestContexts.*;
+
+
+
+public class ContextTrackingScheduledExecutorTests extends ContextTrackingExecutorTests {
+
+
+
+	ContextTrackingScheduledExecutor scheduler;
+
+	@Override
+	public void setup() {
+		scheduler = new ContextTrackingScheduledExecutor(2, ctxBinder);
+		testSubject = scheduler;
+		executorToShutdown = scheduler;
+	}
+
+
+
+	@Test
+	public void testPeriodicTaskRunsWithinCtxOnEachRun() throws Exception {
+		final var ctx = new TestContext(tracker);
+		final var runsWithinCtx = new CountDownLatch(3);
+		final Runnable heartbeat = () -> {
+			if (tracker.getCurrentContext() == ctx) runsWithinCtx.countDown();
+		};
+		final var future = ctx.executeWithinSelf(
+				() -> scheduler.scheduleAtFixedRate(heartbeat, 0L, 1L, MILLISECONDS));
+		assertTrue("each run should be executed within ctx",
+				runsWithinCtx.await(1L, SECONDS));
+		assertTrue("scheduled future should carry the captured snapshot",
+				future instanceof ContextTrackingScheduledExecutor.ContextBoundScheduledFuture);
+		assertSame("snapshot should contain ctx",
+				ctx, ((ContextTrackingScheduledExecutor.ContextBoundScheduledFuture<?>) future)
+						.snapshot.getContexts().get(0));
+		future.cancel(false);
+	}
+
+
+
+	@Test
+	public void testScheduledCallableRunsWithinCtx() throws Exception {
+		final var ctx = new TestContext(tracker);
+		final var future = ctx.executeWithinSelf(
+				() -> scheduler.schedule(tracker::getCurrentContext, 1L, MILLISECONDS));
+		assertSame("Callable should be executed within ctx",
+				ctx, future.get(1L, SECONDS));
+	}
+
+
+
+	@Test
+	public void testCancelAllCancelsOnlyTasksOfGivenCtx() {
+		final var ctx = new TestContext(tracker);
+		final var otherCtx = new TestContext(tracker);
+		final Runnable noop = () -> {};
+		final var futures = ctx.executeWithinSelf(() -> new ScheduledFuture<?>[] {
+			scheduler.schedule(noop, 1L, TimeUnit.HOURS),
+			scheduler.scheduleWithFixedDelay(noop, 1L, 1L, TimeUnit.HOURS),
+		});
+		final var otherFuture = otherCtx.executeWithinSelf(
+				() -> scheduler.schedule(noop, 1L, TimeUnit.HOURS));
+
+		assertEquals("all tasks of ctx should be cancelled",
+				2, scheduler.cancelAll(ctx, false));
+		for (var future: futures) {
+			assertTrue("task of ctx should be cancelled",
+					future.isCancelled());
+		}
+		assertFalse("task of otherCtx should not be cancelled",
+				otherFuture.isCancelled());
+		assertEquals("no more tasks of ctx should be left",
+				0, scheduler.cancelAll(ctx, false));
+		assertFalse("only otherCtx should remain indexed",
+				scheduler.tasksByCtx.containsKey(ctx));
+		assertEquals("task of otherCtx should still be cancellable in bulk",
+				1, scheduler.cancelAll(otherCtx, false));
+		assertTrue("index should be empty",
+				scheduler.tasksByCtx.isEmpty());
+	}
+
+
+
+	@Test
+	public void testCancelledPeriodicTaskIsUnregisteredAndPurged() {
+		final var ctx = new TestContext(tracker);
+		final var future = ctx.executeWithinSelf(
+				() -> scheduler.scheduleAtFixedRate(() -> {}, 1L, 1L, TimeUnit.HOURS));
+		assertTrue("task should be cancelled",
+				future.cancel(false));
+		assertTrue("cancelled task should be removed from the index",
+				scheduler.tasksByCtx.isEmpty());
+		scheduler.purge();
+		assertTrue("purging should remove the cancelled task from the queue",
+				scheduler.getQueue().isEmpty());
+	}
+
+
+
+	@Test
+	public void testCancelledTaskIsRemovedFromQueueWithRemoveOnCancelPolicy() {
+		scheduler.setRemoveOnCancelPolicy(true);
+		final var ctx = new TestContext(tracker);
+		final var future = ctx.executeWithinSelf(
+				() -> scheduler.scheduleWithFixedDelay(() -> {}, 1L, 1L, TimeUnit.HOURS));
+		future.cancel(false);
+		assertTrue("cancelled task should be removed from the index",
+				scheduler.tasksByCtx.isEmpty());
+		assertTrue("cancelled task should be removed from the queue without purging",
+				scheduler.getQueue().isEmpty());
+	}
+
+
+
+	@Test
+	public void testCompletedTasksAreUnregistered() throws Exception {
+		final var ctx = new TestContext(tracker);
+		final var future = ctx.executeWithinSelf(() -> scheduler.schedule(() -> {}, 0L, SECONDS));
+		future.get(1L, SECONDS);
+		for (int i = 0; i < 100 && !scheduler.tasksByCtx.isEmpty(); i++) Thread.sleep(1L);
+		assertTrue("completed task should be removed from the index",
+				scheduler.tasksByCtx.isEmpty());
+	}
+}
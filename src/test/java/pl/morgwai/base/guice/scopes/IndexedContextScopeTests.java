@@ -0,0 +1,123 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.io.*;
+import org.junit.Test;
+
+import com.google.inject.Key;
+import com.google.inject.Provider;
+
+import static org.junit.Assert.*;
+import static pl.morgwai.base.guice.scopes.TestContexts.*;
+
+
+
+public class IndexedContextScopeTests extends ContextScopeTests {
+
+
+
+	static final Key<String> STRING_KEY = Key.get(String.class);
+
+
+
+	@Override
+	protected ContextScope<TestContext> createTestSubject() {
+		return new ContextScope<>(
+			"indexedTestScope",
+			tracker,
+			new ContextScope.Options().indexScopedObjects(true)
+		);
+	}
+
+
+
+	@Test
+	public void testScopedObjectsAreStoredInSlots() {
+		final var ctx = new TestContext(tracker);
+		final var intProvider = scope.scope(INT_KEY, producer);
+		final var stringProvider = scope.scope(STRING_KEY, () -> "scoped");
+		final var scopedInt = ctx.executeWithinSelf(intProvider::get);
+		final var scopedString = ctx.executeWithinSelf(stringProvider::get);
+
+		assertSame("scopedInt should be stored in its slot",
+				scopedInt, ctx.produceIfAbsent(scope.slots, scope.slots.indexOf(INT_KEY),
+						INT_KEY, producer));
+		assertSame("scopedString should be obtainable via a non-indexed provisioning",
+				scopedString, ctx.produceIfAbsent(STRING_KEY, () -> "another"));
+		assertEquals("producer should be called only once",
+				1, sequence);
+	}
+
+
+
+	@Test
+	public void testKeysScopedAfterStorageCreationFallBackToMap() {
+		final var ctx = new TestContext(tracker);
+		final var intProvider = scope.scope(INT_KEY, producer);
+		final var scopedInt = ctx.executeWithinSelf(intProvider::get);
+		final var stringProvider = scope.scope(STRING_KEY, () -> "scoped" + (++sequence));
+
+		final var scopedString = ctx.executeWithinSelf(stringProvider::get);
+		assertEquals("late Key should be scoped properly", "scoped2", scopedString);
+		assertSame("late Key should keep providing the same object",
+				scopedString, ctx.executeWithinSelf(stringProvider::get));
+		assertSame("scopedInt should not be affected",
+				scopedInt, ctx.executeWithinSelf(intProvider::get));
+		assertTrue("late Key should be removable",
+				ctx.removeScopedObject(STRING_KEY));
+		assertNotEquals("after removing, a new String should be produced",
+				scopedString, ctx.executeWithinSelf(stringProvider::get));
+	}
+
+
+
+	@Test
+	public void testStoringAndRemovingNulls() {
+		final var ctx = new TestContext(tracker);
+		final var stringProvider = scope.scope(STRING_KEY, () -> null);
+		assertNull("scoping null should return null",
+				ctx.executeWithinSelf(stringProvider::get));
+		assertNull("a Key bound to null should retain null",
+				ctx.produceIfAbsent(STRING_KEY, () -> "nonNull"));
+		assertTrue("null should be removable",
+				ctx.removeScopedObject(STRING_KEY));
+		assertFalse("removing an absent object should have no effect",
+				ctx.removeScopedObject(STRING_KEY));
+	}
+
+
+
+	@Test
+	public void testSerialization() throws IOException, ClassNotFoundException {
+		final var ctx = new TestContext(tracker);
+		final Provider<String> stringProducer = () -> "scoped";
+		final var stringProvider = scope.scope(STRING_KEY, stringProducer);
+		final var intProvider = scope.scope(INT_KEY, producer);
+		final var scopedString = ctx.executeWithinSelf(stringProvider::get);
+		final var scopedInt = ctx.executeWithinSelf(intProvider::get);
+
+		final var serializedBytes = new ByteArrayOutputStream(500);
+		try (final var serializedObjects = new ObjectOutputStream(serializedBytes)) {
+			serializedObjects.writeObject(ctx);
+		}
+		final TestContext deserializedCtx;
+		try (
+			final var serializedObjects = new ObjectInputStream(
+					new ByteArrayInputStream(serializedBytes.toByteArray()));
+		) {
+			deserializedCtx = (TestContext) serializedObjects.readObject();
+		}
+		deserializedCtx.setTracker(tracker);
+
+		assertEquals("scopedString should be deserialized",
+				scopedString, deserializedCtx.executeWithinSelf(stringProvider::get));
+		assertEquals("scopedInt should be deserialized",
+				scopedInt, deserializedCtx.executeWithinSelf(intProvider::get));
+		assertEquals("producer should not be called after the deserialization",
+				1, sequence);
+		assertTrue("deserialized objects should be removable",
+				deserializedCtx.removeScopedObject(INT_KEY));
+		assertNotEquals("after removing, a new object should be produced",
+				scopedInt, deserializedCtx.executeWithinSelf(intProvider::get));
+	}
+}
@@ -5,8 +5,7 @@ import com.google.inject.Key;
 import com.google.inject.Provider;
 import org.junit.Test;
 
-import static org.junit.Assert.assertNotEquals;
-import static org.junit.Assert.assertSame;
+import static org.junit.Assert.*;
 import static pl.morgwai.base.guice.scopes.TestContexts.*;
 
 
@@ -74,4 +73,14 @@ public class InducedContextScopeTests {
 			}
 		);
 	}
+
+
+
+	@Test
+	public void testOutOfBaseCtxScopingThrows() {
+		try {
+			inducedScope.scope(INT_KEY, producer).get();
+			fail("provisioning outside of any base context should throw an OutOfScopeException");
+		} catch (com.google.inject.OutOfScopeException expected) {}
+	}
 }
@@ -4,7 +4,10 @@ package pl.morgwai.base.guice.scopes;
 import java.io.*;
 import java.lang.annotation.*;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Test;
 
@@ -13,6 +16,7 @@ import com.google.inject.name.Named;
 
 import static java.lang.annotation.ElementType.*;
 import static java.lang.annotation.RetentionPolicy.RUNTIME;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.Assert.*;
 import static com.google.inject.name.Names.named;
 
@@ -75,6 +79,168 @@ public class InjectionContextTests {
 
 
 
+	@Test
+	public void testRecursiveProvisioning() {
+		final var slots = new ScopedObjectSlots();
+		final var slot = slots.assign(STRING_KEY);
+		final var scopedString = ctx.produceIfAbsent(slots, slot, STRING_KEY, () -> String.valueOf(
+				ctx.produceIfAbsent(INT_KEY, () -> ctx.produceIfAbsent(NAMED_INT_KEY, () -> 7))));
+		assertEquals("recursively provisioned Objects should be stored in ctx",
+				"7", scopedString);
+		assertEquals("recursively provisioned Objects should be stored in ctx",
+				Integer.valueOf(7), ctx.produceIfAbsent(INT_KEY, () -> 8));
+	}
+
+	static final Key<Integer> NAMED_INT_KEY = Key.get(Integer.class, named("another"));
+
+
+
+	@Test
+	public void testCircularProvisioningThrows() {
+		try {
+			ctx.produceIfAbsent(STRING_KEY, () -> ctx.produceIfAbsent(STRING_KEY, () -> "inner"));
+			fail("circular provisioning should throw an IllegalStateException");
+		} catch (IllegalStateException expected) {}
+		assertEquals("the failed provisioning should not leave any placeholder behind",
+				"retried", ctx.produceIfAbsent(STRING_KEY, () -> "retried"));
+	}
+
+
+
+	@Test
+	public void testConcurrentProvisioningCallsProducerOnce() throws Exception {
+		testConcurrentProvisioningCallsProducerOnce(null, -1);
+	}
+
+	@Test
+	public void testConcurrentProvisioningIntoSlotCallsProducerOnce() throws Exception {
+		final var slots = new ScopedObjectSlots();
+		testConcurrentProvisioningCallsProducerOnce(slots, slots.assign(STRING_KEY));
+	}
+
+	void testConcurrentProvisioningCallsProducerOnce(ScopedObjectSlots slots, int slot)
+			throws Exception {
+		final var producerCallCount = new AtomicInteger(0);
+		final var producerStarted = new CountDownLatch(1);
+		final var producerMayFinish = new CountDownLatch(1);
+		final Provider<String> slowProducer = () -> {
+			producerStarted.countDown();
+			try {
+				producerMayFinish.await();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+			return String.valueOf(producerCallCount.incrementAndGet());
+		};
+		final var executor = Executors.newFixedThreadPool(3);
+		try {
+			final var results = new ArrayList<Future<String>>(3);
+			results.add(executor.submit(
+					() -> ctx.produceIfAbsent(slots, slot, STRING_KEY, slowProducer)));
+			assertTrue("producer should start",
+					producerStarted.await(1L, SECONDS));
+			for (int i = 0; i < 2; i++) {
+				results.add(executor.submit(() -> ctx.produceIfAbsent(
+					slots,
+					slot,
+					STRING_KEY,
+					() -> "not " + producerCallCount.incrementAndGet()
+				)));
+			}
+			assertEquals("other Keys should be provisioned while producer is running",
+					Integer.valueOf(1), ctx.produceIfAbsent(INT_KEY, () -> 1));
+			producerMayFinish.countDown();
+			for (var result: results) {
+				assertEquals("all callers should obtain the same Object",
+						"1", result.get(1L, SECONDS));
+			}
+			assertEquals("only 1 producer should be called",
+					1, producerCallCount.get());
+		} finally {
+			producerMayFinish.countDown();
+			executor.shutdownNow();
+		}
+	}
+
+
+
+	@Test
+	public void testFailedProducerIsRetriedByWaitingCallers() throws Exception {
+		final var producerStarted = new CountDownLatch(1);
+		final var producerMayFail = new CountDownLatch(1);
+		final var executor = Executors.newSingleThreadExecutor();
+		try {
+			final var failing = executor.submit(() -> ctx.produceIfAbsent(STRING_KEY, () -> {
+				producerStarted.countDown();
+				try {
+					producerMayFail.await();
+				} catch (InterruptedException ignored) {}
+				throw new RuntimeException("expected");
+			}));
+			assertTrue("producer should start",
+					producerStarted.await(1L, SECONDS));
+			final var waiting = new CompletableFuture<String>();
+			new Thread(() -> waiting.complete(ctx.produceIfAbsent(STRING_KEY, () -> "retried")))
+				.start();
+			producerMayFail.countDown();
+			try {
+				failing.get(1L, SECONDS);
+				fail("failure of the producer should be propagated to its caller");
+			} catch (ExecutionException expected) {}
+			assertEquals("a waiting caller should call its own producer after a failure",
+					"retried", waiting.get(1L, SECONDS));
+		} finally {
+			producerMayFail.countDown();
+			executor.shutdownNow();
+		}
+	}
+
+
+
+	@Test
+	public void testClosingCtxWithPendingAsyncProducer() throws Exception {
+		testClosingCtxWithPendingAsyncProducer(null, -1);
+	}
+
+	@Test
+	public void testClosingCtxWithPendingAsyncProducerIntoSlot() throws Exception {
+		final var slots = new ScopedObjectSlots();
+		testClosingCtxWithPendingAsyncProducer(slots, slots.assign(STRING_KEY));
+	}
+
+	void testClosingCtxWithPendingAsyncProducer(ScopedObjectSlots slots, int slot)
+			throws Exception {
+		final var pendingTasks = new ArrayList<Runnable>(1);
+		final var asyncResult = ctx.produceAsyncIfAbsent(
+				slots, slot, STRING_KEY, () -> "async", pendingTasks::add);
+		final var waiting = new CompletableFuture<String>();
+		final var waitingThread = new Thread(() -> {
+			try {
+				waiting.complete(ctx.produceIfAbsent(slots, slot, STRING_KEY, () -> "sync"));
+			} catch (Throwable e) {
+				waiting.completeExceptionally(e);
+			}
+		});
+		waitingThread.start();
+		for (int i = 0; i < 100 && waitingThread.getState() != Thread.State.WAITING; i++) {
+			Thread.sleep(10L);
+		}
+		assertEquals("waitingThread should be waiting for the async producer",
+				Thread.State.WAITING, waitingThread.getState());
+		ctx.close().get(1L, SECONDS);
+		assertEquals("there should be 1 pending task",
+				1, pendingTasks.size());
+
+		pendingTasks.get(0).run();
+		assertEquals("async producer should complete its Future after ctx was closed",
+				"async", asyncResult.get(1L, SECONDS));
+		assertEquals("a sync provisioning waiting for the async one should not hang",
+				"async", waiting.get(1L, SECONDS));
+		waitingThread.join(1000L);
+	}
+
+
+
 	@Test
 	public void testNesting() {
 		final var stringFromEnclosing = "from enclosing";
@@ -103,6 +269,244 @@ public class InjectionContextTests {
 
 
 
+	@Test
+	public void testMultiLevelNesting() {
+		final var outerCtx = new TestContext();
+		final var middleCtx = new TestContext(outerCtx);
+		final var innerCtx = new TestContext(middleCtx);
+		assertSame("outerCtx should be the storage owner of innerCtx",
+				outerCtx, innerCtx.getStorageOwner());
+
+		innerCtx.produceIfAbsent(STRING_KEY, () -> "from inner");
+		assertSame("outerCtx should obtain String from innerCtx",
+				"from inner", outerCtx.produceIfAbsent(STRING_KEY, () -> "from outer"));
+		final var removalCount = outerCtx.getRemovalCount();
+		assertTrue("removing String from innerCtx should remove it from outerCtx",
+				innerCtx.removeScopedObject(STRING_KEY));
+		assertNotEquals("removal count of outerCtx should be updated",
+				removalCount, innerCtx.getRemovalCount());
+		assertEquals("innerCtx should report the removal count of outerCtx",
+				outerCtx.getRemovalCount(), innerCtx.getRemovalCount());
+	}
+
+
+
+	@Test
+	public void testStorageOwnerIsReResolvedAfterSettingEnclosingCtx() {
+		final var outerCtx = new TestContext();
+		final var middleCtx = new TestContext();
+		final var innerCtx = new TestContext(middleCtx);
+		assertSame("middleCtx should be the storage owner of innerCtx before nesting it",
+				middleCtx, innerCtx.getStorageOwner());
+
+		middleCtx.setEnclosingCtx(outerCtx);
+		assertSame("outerCtx should become the storage owner of innerCtx",
+				outerCtx, innerCtx.getStorageOwner());
+		innerCtx.produceIfAbsent(STRING_KEY, () -> "from inner");
+		assertSame("outerCtx should obtain String from innerCtx",
+				"from inner", outerCtx.produceIfAbsent(STRING_KEY, () -> "from outer"));
+	}
+
+
+
+	static class TestCloseable implements AutoCloseable {
+
+		final Exception failure;
+		int closeCount = 0;
+
+		TestCloseable(Exception failure) { this.failure = failure; }
+		TestCloseable() { this(null); }
+
+		/** Declares {@link IOException} to avoid {@code javac}'s {@code [try]} lint warning. */
+		@Override public void close() throws IOException {
+			closeCount++;
+			if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+			if (failure != null) throw (IOException) failure;
+		}
+	}
+
+	static final Key<TestCloseable> CLOSEABLE_KEY = Key.get(TestCloseable.class);
+	static final Key<TestCloseable> NAMED_CLOSEABLE_KEY =
+			Key.get(TestCloseable.class, named("another"));
+
+
+
+	@Test
+	public void testCloseDisposesCloseablesAndReleasesStorage()
+			throws InterruptedException, ExecutionException {
+		final var slots = new ScopedObjectSlots();
+		final var slot = slots.assign(CLOSEABLE_KEY);
+		final var indexedCloseable = new TestCloseable();
+		final var mappedCloseable = new TestCloseable();
+		ctx.produceIfAbsent(slots, slot, CLOSEABLE_KEY, () -> indexedCloseable);
+		ctx.produceIfAbsent(NAMED_CLOSEABLE_KEY, () -> mappedCloseable);
+		ctx.produceIfAbsent(STRING_KEY, () -> "not closeable");
+
+		final var disposal = ctx.close();
+		assertTrue("ctx should be marked as closed",
+				ctx.isClosed());
+		assertTrue("disposal should be completed synchronously",
+				disposal.isDone());
+		disposal.get();
+		assertEquals("indexedCloseable should be closed once",
+				1, indexedCloseable.closeCount);
+		assertEquals("mappedCloseable should be closed once",
+				1, mappedCloseable.closeCount);
+		assertSame("subsequent close() calls should return the same Future",
+				disposal, ctx.close());
+		try {
+			ctx.produceIfAbsent(STRING_KEY, () -> "new");
+			fail("scoping to a closed ctx should throw an IllegalStateException");
+		} catch (IllegalStateException expected) {}
+	}
+
+
+
+	@Test
+	public void testSameCloseableUnderSeveralKeysIsClosedOnce()
+			throws InterruptedException, ExecutionException {
+		final var closeable = new TestCloseable();
+		ctx.produceIfAbsent(CLOSEABLE_KEY, () -> closeable);
+		ctx.produceIfAbsent(NAMED_CLOSEABLE_KEY, () -> closeable);
+		ctx.close().get();
+		assertEquals("closeable should be closed once",
+				1, closeable.closeCount);
+	}
+
+
+
+	@Test
+	public void testDisposalFailuresAreAggregated() throws InterruptedException {
+		final var firstFailure = new IOException("first");
+		final var secondFailure = new IllegalStateException("second");
+		final var thirdKey = Key.get(TestCloseable.class, named("third"));
+		final var thirdCloseable = new TestCloseable();
+		ctx.produceIfAbsent(CLOSEABLE_KEY, () -> new TestCloseable(firstFailure));
+		ctx.produceIfAbsent(NAMED_CLOSEABLE_KEY, () -> new TestCloseable(secondFailure));
+		ctx.produceIfAbsent(thirdKey, () -> thirdCloseable);
+		try {
+			ctx.close().get();
+			fail("disposal with failures should complete exceptionally");
+		} catch (ExecutionException e) {
+			assertTrue("cause should be a DisposalException",
+					e.getCause() instanceof InjectionContext.DisposalException);
+			assertEquals("both failures should be suppressed by the DisposalException",
+					Set.of(firstFailure, secondFailure), Set.of(e.getCause().getSuppressed()));
+		}
+		assertEquals("failures should not prevent closing of other scoped Objects",
+				1, thirdCloseable.closeCount);
+	}
+
+
+
+	@Test
+	public void testAsyncDisposal() throws InterruptedException, ExecutionException {
+		final var closeable = new TestCloseable();
+		ctx.produceIfAbsent(CLOSEABLE_KEY, () -> closeable);
+		final var disposalTasks = new ArrayList<Runnable>(1);
+		final var disposal = ctx.close(disposalTasks::add);
+		assertEquals("disposal should be passed to the Executor",
+				1, disposalTasks.size());
+		assertFalse("disposal should not be completed before the Executor runs it",
+				disposal.isDone());
+		try {
+			ctx.produceIfAbsent(STRING_KEY, () -> "new");
+			fail("storage should be released before the async disposal runs");
+		} catch (IllegalStateException expected) {}
+		disposalTasks.get(0).run();
+		disposal.get();
+		assertEquals("closeable should be closed",
+				1, closeable.closeCount);
+	}
+
+
+
+	@Test
+	public void testCloseableProducedConcurrentlyWithCloseIsClosed() throws Exception {
+		testCloseableProducedConcurrentlyWithCloseIsClosed(null, -1);
+	}
+
+	@Test
+	public void testCloseableProducedConcurrentlyWithCloseIntoSlotIsClosed() throws Exception {
+		final var slots = new ScopedObjectSlots();
+		testCloseableProducedConcurrentlyWithCloseIsClosed(slots, slots.assign(CLOSEABLE_KEY));
+	}
+
+	void testCloseableProducedConcurrentlyWithCloseIsClosed(ScopedObjectSlots slots, int slot)
+			throws Exception {
+		final var closeable = new TestCloseable();
+		final var producerStarted = new CountDownLatch(1);
+		final var producerMayFinish = new CountDownLatch(1);
+		final Provider<TestCloseable> slowProducer = () -> {
+			producerStarted.countDown();
+			try {
+				producerMayFinish.await();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+			return closeable;
+		};
+		final var executor = Executors.newSingleThreadExecutor();
+		try {
+			final var result = executor.submit(
+					() -> ctx.produceIfAbsent(slots, slot, CLOSEABLE_KEY, slowProducer));
+			assertTrue("producer should start",
+					producerStarted.await(1L, SECONDS));
+			ctx.close().get(1L, SECONDS);
+			producerMayFinish.countDown();
+			try {
+				result.get(1L, SECONDS);
+				fail("storing into a ctx closed in the meantime should throw");
+			} catch (ExecutionException expected) {
+				assertTrue("cause should be an IllegalStateException",
+						expected.getCause() instanceof IllegalStateException);
+			}
+			assertEquals("closeable stored after the disposal should be closed once",
+					1, closeable.closeCount);
+		} finally {
+			producerMayFinish.countDown();
+			executor.shutdownNow();
+		}
+	}
+
+
+
+	@Test
+	public void testAsyncCloseableProducedConcurrentlyWithCloseIsClosed() throws Exception {
+		final var closeable = new TestCloseable();
+		final var pendingTasks = new ArrayList<Runnable>(1);
+		final var asyncResult = ctx.produceAsyncIfAbsent(
+				null, -1, CLOSEABLE_KEY, () -> closeable, pendingTasks::add);
+		ctx.close().get(1L, SECONDS);
+		pendingTasks.get(0).run();
+		try {
+			asyncResult.get(1L, SECONDS);
+			fail("storing into a ctx closed in the meantime should fail");
+		} catch (ExecutionException expected) {
+			assertTrue("cause should be an IllegalStateException",
+					expected.getCause() instanceof IllegalStateException);
+		}
+		assertEquals("closeable stored after the disposal should be closed once",
+				1, closeable.closeCount);
+	}
+
+
+
+	@Test
+	public void testClosingNestedCtxDoesNotDisposeEnclosingCtxObjects()
+			throws InterruptedException, ExecutionException {
+		final var nestedCtx = new TestContext(ctx);
+		final var closeable = new TestCloseable();
+		nestedCtx.produceIfAbsent(CLOSEABLE_KEY, () -> closeable);
+		nestedCtx.close().get();
+		assertEquals("closeable owned by the enclosing ctx should not be closed",
+				0, closeable.closeCount);
+		assertSame("enclosing ctx should still provide closeable",
+				closeable, ctx.produceIfAbsent(CLOSEABLE_KEY, TestCloseable::new));
+	}
+
+
+
 	/** Serializes and then de-serializes {@code ctx}. */
 	static TestContext serialize(TestContext ctx) throws IOException {
 		final var serializedBytesOutput = new ByteArrayOutputStream(500);
@@ -182,6 +586,120 @@ public class InjectionContextTests {
 
 
 
+	public static class WriteCountingObject implements Serializable {
+
+		transient int writeCount = 0;
+
+		private void writeObject(ObjectOutputStream serializedObjects) throws IOException {
+			writeCount++;
+			serializedObjects.defaultWriteObject();
+		}
+
+		private static final long serialVersionUID = -2671432018848231097L;
+	}
+
+
+
+	@Test
+	public void testScopedObjectsAreWrittenOnce() throws IOException {
+		final var writeCountingObject = new WriteCountingObject();
+		ctx.produceIfAbsent(Key.get(WriteCountingObject.class), () -> writeCountingObject);
+		ctx.produceIfAbsent(STRING_KEY, () -> "scopedString");
+		final var deserializedCtx = serialize(ctx);
+		assertEquals("writeCountingObject should be written exactly once",
+				1, writeCountingObject.writeCount);
+		assertNotNull("writeCountingObject should be deserialized",
+				deserializedCtx.produceIfAbsent(Key.get(WriteCountingObject.class), () -> null));
+	}
+
+
+
+	@Test
+	public void testSerializationWithFailingEntries() throws IOException {
+		final var nonSerializableObject = new NonSerializableObject("nonSerializable");
+		final var failingKey = Key.get(SerializableObject.class, named("failing"));
+		final var scopedObject = new SerializableObject("scoped");
+		final var referringKey = Key.get(SerializableObject.class, named("referring"));
+		ctx.produceIfAbsent(
+			failingKey,
+			() -> new SerializableObject("failing", nonSerializableObject)
+		);
+		ctx.produceIfAbsent(Key.get(SerializableObject.class), () -> scopedObject);
+		ctx.produceIfAbsent(referringKey, () -> new SerializableObject("referring", scopedObject));
+		ctx.produceIfAbsent(STRING_KEY, () -> "scopedString");
+
+		final var deserializedCtx = serialize(ctx);
+		assertNull("failing entry should be omitted",
+				deserializedCtx.produceIfAbsent(failingKey, () -> null));
+		assertEquals("entries after the failing one should be deserialized",
+				"scopedString", deserializedCtx.produceIfAbsent(STRING_KEY, () -> null));
+		assertSame("references between the remaining scoped objects should be preserved",
+				deserializedCtx.produceIfAbsent(Key.get(SerializableObject.class), () -> null),
+				deserializedCtx.produceIfAbsent(referringKey, () -> null).ref);
+	}
+
+
+
+	@Test
+	public void testAllFailingEntriesAreOmittedWithinSingleRewrite() throws IOException {
+		final var writeCountingObject = new WriteCountingObject();
+		ctx.produceIfAbsent(Key.get(WriteCountingObject.class), () -> writeCountingObject);
+		final var nonSerializableObject = new NonSerializableObject("nonSerializable");
+		for (int i = 0; i < 3; i++) {
+			ctx.produceIfAbsent(
+				Key.get(SerializableObject.class, named("failing" + i)),
+				() -> new SerializableObject("failing", nonSerializableObject)
+			);
+		}
+		final var deserializedCtx = serialize(ctx);
+		assertEquals("writeCountingObject should be rewritten only once for all failing entries",
+				2, writeCountingObject.writeCount);
+		assertNotNull("writeCountingObject should be deserialized",
+				deserializedCtx.produceIfAbsent(Key.get(WriteCountingObject.class), () -> null));
+		assertNull("failing entries should be omitted",
+				deserializedCtx.produceIfAbsent(
+						Key.get(SerializableObject.class, named("failing0")), () -> null));
+	}
+
+
+
+	/**
+	 * {@link TestContext} with {@code "legacyString"} and {@code 666} scoped under
+	 * {@link #STRING_KEY} and {@link #INT_KEY} serialized by a version that stored scoped
+	 * {@code Objects} in the default serialized form.
+	 */
+	static final String LEGACY_SERIALIZED_CTX =
+			"rO0ABXNyAD5wbC5tb3Jnd2FpLmJhc2UuZ3VpY2Uuc2NvcGVzLkluamVjdGlvbkNvbnRleHRUZXN0cyRUZXN0"
+			+ "Q29udGV4dAj+Fo1Nr0MbAgAAeHIALXBsLm1vcmd3YWkuYmFzZS5ndWljZS5zY29wZXMuSW5qZWN0aW9uQ29u"
+			+ "dGV4dJ0f80ISbPjOAwABTAAfc2VyaWFsaXphYmxlU2NvcGVkT2JqZWN0RW50cmllc3QAFUxqYXZhL3V0aWwv"
+			+ "QXJyYXlMaXN0O3hwc3IAE2phdmEudXRpbC5BcnJheUxpc3R4gdIdmcdhnQMAAUkABHNpemV4cAAAAAJ3BAAA"
+			+ "AAJzcgBLcGwubW9yZ3dhaS5iYXNlLmd1aWNlLnNjb3Blcy5JbmplY3Rpb25Db250ZXh0JFNlcmlhbGl6YWJs"
+			+ "ZVNjb3BlZE9iamVjdEVudHJ5afCHWaTZlWUCAARMAAphbm5vdGF0aW9udAAhTGphdmEvbGFuZy9hbm5vdGF0"
+			+ "aW9uL0Fubm90YXRpb247TAASYW5ub3RhdGlvblR5cGVOYW1ldAASTGphdmEvbGFuZy9TdHJpbmc7TAAMc2Nv"
+			+ "cGVkT2JqZWN0dAAWTGphdmEvaW8vU2VyaWFsaXphYmxlO0wABHR5cGV0ABhMamF2YS9sYW5nL3JlZmxlY3Qv"
+			+ "VHlwZTt4cHBwdAAMbGVnYWN5U3RyaW5ndnIAEGphdmEubGFuZy5TdHJpbmeg8KQ4ejuzQgIAAHhwc3EAfgAG"
+			+ "cHBzcgARamF2YS5sYW5nLkludGVnZXIS4qCk94GHOAIAAUkABXZhbHVleHIAEGphdmEubGFuZy5OdW1iZXKG"
+			+ "rJUdC5TgiwIAAHhwAAACmnZxAH4AEHh4";
+
+
+
+	@Test
+	public void testDeserializationOfLegacyForm() throws IOException, ClassNotFoundException {
+		final TestContext deserializedCtx;
+		try (
+			final var serializedObjects = new ObjectInputStream(new ByteArrayInputStream(
+					Base64.getDecoder().decode(LEGACY_SERIALIZED_CTX)));
+		) {
+			deserializedCtx = (TestContext) serializedObjects.readObject();
+		}
+		assertEquals("scoped String should be deserialized",
+				"legacyString", deserializedCtx.produceIfAbsent(STRING_KEY, () -> "new"));
+		assertEquals("scoped Integer should be deserialized",
+				Integer.valueOf(666), deserializedCtx.produceIfAbsent(INT_KEY, () -> 777));
+	}
+
+
+
 	public static class SerializableObject implements Serializable {
 
 		final String value;
@@ -0,0 +1,101 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.*;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.*;
+import static pl.morgwai.base.guice.scopes.TestContexts.*;
+
+
+
+public class InlineCapableExecutorTests {
+
+
+
+	final AtomicInteger captureCount = new AtomicInteger();
+	final ContextBinder countingBinder = new ContextBinder(List.of(tracker)) {
+		@Override protected ContextSnapshot captureSnapshot() {
+			captureCount.incrementAndGet();
+			return super.captureSnapshot();
+		}
+	};
+
+
+
+	/** Event-loop that executes inline when called from its own {@code Thread}. */
+	static class EventLoop implements InlineCapableExecutor {
+
+		final ExecutorService loop = Executors.newSingleThreadExecutor();
+		volatile Thread loopThread;
+
+		EventLoop() throws Exception {
+			loop.submit(() -> loopThread = Thread.currentThread()).get();
+		}
+
+		@Override public boolean canExecuteInline() {
+			return Thread.currentThread() == loopThread;
+		}
+
+		@Override public void execute(Runnable task) {
+			loop.execute(task);
+		}
+	}
+
+	EventLoop eventLoop;
+
+	@After
+	public void shutdown() {
+		if (eventLoop != null) eventLoop.loop.shutdownNow();
+	}
+
+
+
+	@Test
+	public void testDirectExecutorRunsInlineWithoutBinding() {
+		final var testSubject =
+				ContextTrackingExecutor.of(InlineCapableExecutor.DIRECT, countingBinder);
+		final var ctx = new TestContext(tracker);
+		final var ctxSeen = new TestContext[1];
+		ctx.executeWithinSelf(
+				() -> testSubject.execute(() -> ctxSeen[0] = tracker.getCurrentContext()));
+		assertSame("task should be run within ctx",
+				ctx, ctxSeen[0]);
+		assertEquals("Contexts should not be captured",
+				0, captureCount.get());
+	}
+
+
+
+	@Test
+	public void testEventLoopRunsInlineOnlyOnItsThread() throws Exception {
+		eventLoop = new EventLoop();
+		final var testSubject = ContextTrackingExecutor.of(eventLoop, countingBinder);
+		final var ctx = new TestContext(tracker);
+		final var outerTaskThread = new CompletableFuture<Thread>();
+		final var innerTaskThread = new CompletableFuture<Thread>();
+		final var innerTaskCtx = new CompletableFuture<TestContext>();
+		ctx.executeWithinSelf(() -> testSubject.execute(() -> {
+			outerTaskThread.complete(Thread.currentThread());
+			testSubject.execute(() -> {
+				innerTaskThread.complete(Thread.currentThread());
+				innerTaskCtx.complete(tracker.getCurrentContext());
+			});
+			if ( !innerTaskThread.isDone()) {
+				innerTaskThread.completeExceptionally(
+						new AssertionError("inner task should be run inline"));
+			}
+		}));
+		assertSame("outer task should be executed by the loop",
+				eventLoop.loopThread, outerTaskThread.get(1L, SECONDS));
+		assertSame("inner task should be run by the loop Thread",
+				eventLoop.loopThread, innerTaskThread.get(1L, SECONDS));
+		assertSame("inner task should be run within ctx",
+				ctx, innerTaskCtx.get(1L, SECONDS));
+		assertEquals("only the outer task should be bound",
+				1, captureCount.get());
+	}
+}
@@ -0,0 +1,70 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.google.inject.Key;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static pl.morgwai.base.guice.scopes.TestContexts.TestContext;
+
+
+
+/**
+ * Verifies that this lib works on a runtime without the {@code jdk.jfr} module by running
+ * {@link #main(String[])} in a separate JVM with {@code --limit-modules}.
+ */
+public class JfrAbsenceTests {
+
+
+
+	static final String OK = "OK";
+
+
+
+	@Test
+	public void testCtxsWorkWithoutJfrModule() throws IOException, InterruptedException {
+		final var process = new ProcessBuilder(List.of(
+			Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+			"--limit-modules", "java.base,java.logging,jdk.unsupported",
+			"-cp", System.getProperty("java.class.path"),
+			JfrAbsenceTests.class.getName()
+		)).redirectErrorStream(true).start();
+		if ( !process.waitFor(30L, TimeUnit.SECONDS)) {
+			process.destroyForcibly();
+			fail("the child JVM should exit in time");
+		}
+		final var output =
+				new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+		assertEquals("the child JVM should exit normally, output:\n" + output,
+				0, process.exitValue());
+		assertEquals("Contexts should work without the jdk.jfr module",
+				OK, output.strip());
+	}
+
+
+
+	public static void main(String[] args) throws Exception {
+		if (ContextEvents.JFR_AVAILABLE) throw new AssertionError("jdk.jfr should be absent");
+		final var tracker = new ContextTracker<TestContext>();
+		final var scope = new ContextScope<TestContext>("noJfrScope", tracker);
+		final var scopedProvider = scope.scope(Key.get(Object.class), Object::new);
+		final var ctx = new TestContext(tracker);
+		final var provided = ctx.executeWithinSelf(scopedProvider::get);
+		final var binder = new ContextBinder(List.of(tracker));
+		final Runnable[] boundTask = {null};
+		ctx.executeWithinSelf(() -> {
+			boundTask[0] = binder.bindToContext((Runnable) () -> {
+				if (scopedProvider.get() != provided) throw new AssertionError("wrong Object");
+			});
+		});
+		boundTask[0].run();
+		ctx.close().get();
+		System.out.print(OK);
+	}
+}
@@ -0,0 +1,308 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.inject.Key;
+import com.google.inject.Provider;
+import pl.morgwai.base.guice.scopes.InjectionContextTests.TestCloseable;
+import pl.morgwai.base.guice.scopes.InjectionContextTests.TestContext;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.*;
+import static pl.morgwai.base.guice.scopes.InjectionContextTests.*;
+
+
+
+public class PassivationStoreTests {
+
+
+
+	static final int CAPACITY = 4096;
+
+	Path file;
+	PassivationStore store;
+
+
+
+	@Before
+	public void setup() throws IOException {
+		file = Files.createTempFile(PassivationStoreTests.class.getSimpleName(), ".bin");
+		store = new PassivationStore(file, CAPACITY);
+	}
+
+	@After
+	public void cleanup() throws IOException {
+		store.close();
+		Files.deleteIfExists(file);
+	}
+
+
+
+	@Test
+	public void testPassivationAndRehydration() {
+		final var ctx = new TestContext();
+		final var slots = new ScopedObjectSlots();
+		final var slot = slots.assign(STRING_KEY);
+		final var producerCallCount = new AtomicInteger(0);
+		final Provider<Object> nonSerializableProducer = () -> {
+			producerCallCount.incrementAndGet();
+			return new Object();
+		};
+		final Key<Object> nonSerializableKey = Key.get(Object.class);
+		ctx.produceIfAbsent(slots, slot, STRING_KEY, () -> "indexed");
+		ctx.produceIfAbsent(INT_KEY, () -> 666);
+		ctx.produceIfAbsent(nonSerializableKey, nonSerializableProducer);
+
+		assertTrue("ctx should be passivated",
+				ctx.passivate(store));
+		assertTrue("ctx should report being passivated",
+				ctx.isPassivated());
+		assertEquals("store should contain 1 record",
+				1, store.getRecordCount());
+
+		assertEquals("indexed String should be re-hydrated",
+				"indexed", ctx.produceIfAbsent(slots, slot, STRING_KEY, () -> "new"));
+		assertFalse("ctx should not be passivated after an access",
+				ctx.isPassivated());
+		assertEquals("Integer should be re-hydrated",
+				Integer.valueOf(666), ctx.produceIfAbsent(INT_KEY, () -> 777));
+		ctx.produceIfAbsent(nonSerializableKey, nonSerializableProducer);
+		assertEquals("non-serializable Object should be produced anew",
+				2, producerCallCount.get());
+		assertEquals("the record should be released after the re-hydration",
+				0, store.getRecordCount());
+	}
+
+
+
+	@Test
+	public void testConcurrentRehydration() throws Exception {
+		testConcurrentRehydration(null, -1);
+	}
+
+	@Test
+	public void testConcurrentRehydrationIntoSlot() throws Exception {
+		final var slots = new ScopedObjectSlots();
+		testConcurrentRehydration(slots, slots.assign(STRING_KEY));
+	}
+
+	void testConcurrentRehydration(ScopedObjectSlots slots, int slot) throws Exception {
+		final int threadCount = 4;
+		final var executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			for (int i = 0; i < 100; i++) {
+				final var ctx = new TestContext();
+				ctx.produceIfAbsent(slots, slot, STRING_KEY, () -> "passivated");
+				assertTrue("ctx should be passivated",
+						ctx.passivate(store));
+				final var start = new CountDownLatch(1);
+				final var results = new ArrayList<Future<String>>(threadCount);
+				for (int j = 0; j < threadCount; j++) {
+					results.add(executor.submit(() -> {
+						start.await();
+						return ctx.produceIfAbsent(slots, slot, STRING_KEY, () -> "new");
+					}));
+				}
+				start.countDown();
+				for (var result: results) {
+					assertEquals("all Threads should obtain the re-hydrated Object",
+							"passivated", result.get(1L, SECONDS));
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+
+
+	@Test
+	public void testCtxWithActiveExecutionsIsNotPassivated() {
+		final var ctx = new TestContexts.TestContext(new ContextTracker<>(true));
+		ctx.produceIfAbsent(STRING_KEY, () -> "scoped");
+		ctx.executeWithinSelf(() -> assertFalse(
+				"ctx with active executions should not be passivated", ctx.passivate(store)));
+		assertFalse("sanity check",
+				ctx.isPassivated());
+		assertTrue("ctx should be passivated after its executions end",
+				ctx.passivate(store));
+	}
+
+
+
+	/** Blocks its serialization until {@link #mayBeWritten} is released. */
+	static class BlockingSerializable implements Serializable {
+
+		transient CountDownLatch writingStarted = new CountDownLatch(1);
+		transient CountDownLatch mayBeWritten = new CountDownLatch(1);
+
+		private void writeObject(ObjectOutputStream serializedObjects) throws IOException {
+			writingStarted.countDown();
+			try {
+				mayBeWritten.await();
+			} catch (InterruptedException e) {
+				throw new IOException(e);
+			}
+			serializedObjects.defaultWriteObject();
+		}
+
+		private static final long serialVersionUID = 4178893528474519431L;
+	}
+
+	static final Key<BlockingSerializable> BLOCKING_KEY = Key.get(BlockingSerializable.class);
+
+
+
+	@Test
+	public void testCtxEnteredDuringPassivationIsRehydrated() throws Exception {
+		final var ctx = new TestContexts.TestContext(new ContextTracker<>(true));
+		final var blocking = new BlockingSerializable();
+		ctx.produceIfAbsent(BLOCKING_KEY, () -> blocking);
+		final var executor = Executors.newFixedThreadPool(2);
+		try {
+			final var passivated = executor.submit(() -> ctx.passivate(store));
+			assertTrue("passivation should start",
+					blocking.writingStarted.await(1L, SECONDS));
+			final var enteringThread = new AtomicReference<Thread>();
+			final var provisioned = executor.submit(() -> ctx.executeWithinSelf(() -> {
+				enteringThread.set(Thread.currentThread());
+				return ctx.produceIfAbsent(BLOCKING_KEY, BlockingSerializable::new);
+			}));
+			for (int i = 0; i < 20 && enteringThread.get() == null; i++) Thread.sleep(10L);
+			assertNull("entering ctx should wait until the passivation is complete",
+					enteringThread.get());
+			blocking.mayBeWritten.countDown();
+			assertTrue("ctx should be passivated",
+					passivated.get(1L, SECONDS));
+			final var rehydrated = provisioned.get(1L, SECONDS);
+			assertNotSame("the Object should be re-hydrated from the store",
+					blocking, rehydrated);
+			assertNull("the Object should not be produced anew",
+					rehydrated.writingStarted);
+		} finally {
+			blocking.mayBeWritten.countDown();
+			executor.shutdownNow();
+		}
+	}
+
+
+
+	@Test
+	public void testCtxClosedDuringPassivationIsDisposed() throws Exception {
+		final var ctx = new TestContexts.TestContext(new ContextTracker<>(true));
+		final var blocking = new BlockingSerializable();
+		ctx.produceIfAbsent(BLOCKING_KEY, () -> blocking);
+		final var executor = Executors.newSingleThreadExecutor();
+		try {
+			final var passivated = executor.submit(() -> ctx.passivate(store));
+			assertTrue("passivation should start",
+					blocking.writingStarted.await(1L, SECONDS));
+			final var disposal = ctx.close();
+			blocking.mayBeWritten.countDown();
+			assertTrue("ctx should be passivated",
+					passivated.get(1L, SECONDS));
+			disposal.get(1L, SECONDS);
+			assertEquals("the record should be released by the disposal",
+					0, store.getRecordCount());
+		} finally {
+			blocking.mayBeWritten.countDown();
+			executor.shutdownNow();
+		}
+	}
+
+
+
+	@Test
+	public void testNestedCtxPassivatesEnclosingCtx() {
+		final var enclosingCtx = new TestContext();
+		final var nestedCtx = new TestContext(enclosingCtx);
+		nestedCtx.produceIfAbsent(STRING_KEY, () -> "scoped");
+		assertTrue("nestedCtx should be passivated",
+				nestedCtx.passivate(store));
+		assertTrue("enclosingCtx should be passivated",
+				enclosingCtx.isPassivated());
+		assertTrue("removing from nestedCtx should re-hydrate enclosingCtx",
+				nestedCtx.removeScopedObject(STRING_KEY));
+		assertFalse("enclosingCtx should not be passivated after an access",
+				enclosingCtx.isPassivated());
+	}
+
+
+
+	@Test
+	public void testCtxWithCloseablesIsNotPassivated() {
+		final var ctx = new TestContext();
+		ctx.produceIfAbsent(CLOSEABLE_KEY, TestCloseable::new);
+		assertFalse("ctx with AutoCloseables should not be passivated",
+				ctx.passivate(store));
+		assertFalse("sanity check",
+				ctx.isPassivated());
+		assertEquals("store should be empty",
+				0, store.getRecordCount());
+	}
+
+
+
+	@Test
+	public void testClosingPassivatedCtxReleasesRecord() {
+		final var ctx = new TestContext();
+		ctx.produceIfAbsent(STRING_KEY, () -> "scoped");
+		ctx.passivate(store);
+		ctx.close();
+		assertEquals("the record should be released",
+				0, store.getRecordCount());
+		assertFalse("closed ctx should not be passivated",
+				ctx.passivate(store));
+	}
+
+
+
+	@Test
+	public void testCompactionAndBoundedCapacity() {
+		final var chunk = new byte[CAPACITY / 4];
+		final var first = store.append(fill(chunk, 1));
+		final var second = store.append(fill(chunk, 2));
+		final var third = store.append(fill(chunk, 3));
+		final var fourth = store.append(fill(chunk, 4));
+		assertNull("appending beyond the capacity should be refused",
+				store.append(new byte[1]));
+
+		store.release(first);
+		store.release(third);
+		final var fifth = store.append(fill(chunk, 5));
+		assertNotNull("released space should be reused after a compaction",
+				fifth);
+		assertEquals("store should be compacted to the live records",
+				3 * chunk.length, store.getUsedBytes());
+		assertArrayEquals("second record should survive the compaction",
+				fill(new byte[chunk.length], 2), store.take(second));
+		assertArrayEquals("fourth record should survive the compaction",
+				fill(new byte[chunk.length], 4), store.take(fourth));
+		assertArrayEquals("fifth record should be stored correctly",
+				fill(new byte[chunk.length], 5), store.take(fifth));
+		assertEquals("all records should be released",
+				0L, store.getLiveBytes());
+		assertNull("taking a released record should return null",
+				store.take(fifth));
+	}
+
+	static byte[] fill(byte[] bytes, int value) {
+		Arrays.fill(bytes, (byte) value);
+		return bytes;
+	}
+}
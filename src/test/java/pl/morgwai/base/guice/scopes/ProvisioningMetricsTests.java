@@ -0,0 +1,125 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.inject.Key;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static pl.morgwai.base.guice.scopes.TestContexts.*;
+
+
+
+public class ProvisioningMetricsTests {
+
+
+
+	static final Key<Integer> INT_KEY = Key.get(Integer.class);
+	static final Key<String> STRING_KEY = Key.get(String.class);
+
+	final ProvisioningMetrics metrics = new ProvisioningMetrics();
+	final AtomicInteger counter = new AtomicInteger();
+
+
+
+	void provisionTwiceEach(ContextScope<TestContext> scope) {
+		final var intProvider = scope.scope(INT_KEY, counter::incrementAndGet);
+		final var stringProvider = scope.scope(
+				STRING_KEY, () -> String.valueOf(counter.incrementAndGet()));
+		new TestContext(scope.tracker).executeWithinSelf(() -> {
+			intProvider.get();
+			intProvider.get();
+			stringProvider.get();
+			stringProvider.get();
+		});
+	}
+
+
+
+	void testCountingHitsAndMisses(ContextScope<TestContext> scope) {
+		scope.setProvisioningListener(metrics);
+		provisionTwiceEach(scope);
+		provisionTwiceEach(scope);
+
+		final var intSnapshot = metrics.getSnapshot(scope.name, INT_KEY);
+		assertEquals("there should be 2 hits of INT_KEY",
+				2L, intSnapshot.getHits());
+		assertEquals("there should be 2 misses of INT_KEY",
+				2L, intSnapshot.getMisses());
+		assertEquals("hit ratio should be 0.5",
+				0.5, intSnapshot.getHitRatio(), 0.0);
+		assertTrue("max producer time should not exceed the total",
+				intSnapshot.getMaxProducerNanos() <= intSnapshot.getProducerNanos());
+		assertEquals("snapshots of both Keys should be returned",
+				Set.of(INT_KEY, STRING_KEY), metrics.getSnapshots(scope.name).keySet());
+		assertEquals("scope snapshot should aggregate both Keys",
+				8L, metrics.getSnapshot(scope.name).getCount());
+		assertEquals("only the test scope should be reported",
+				Set.of(scope.name), metrics.getScopeNames());
+	}
+
+	@Test
+	public void testCountingHitsAndMisses() {
+		testCountingHitsAndMisses(
+				new ContextScope<TestContext>("metricsScope", new ContextTracker<>()));
+	}
+
+	@Test
+	public void testCountingHitsAndMissesWithCache() {
+		testCountingHitsAndMisses(new ContextScope<TestContext>(
+			"metricsScope",
+			new ContextTracker<>(),
+			new ContextScope.Options().indexScopedObjects(true).cacheScopedObjects(true)
+		));
+	}
+
+
+
+	@Test
+	public void testNothingIsReportedAfterUnregistering() {
+		final var scope = new ContextScope<TestContext>("metricsScope", new ContextTracker<>());
+		scope.setProvisioningListener(metrics);
+		scope.setProvisioningListener(null);
+		provisionTwiceEach(scope);
+		assertTrue("nothing should be reported",
+				metrics.getScopeNames().isEmpty());
+		assertEquals("snapshot of an unknown scope should be empty",
+				0L, metrics.getSnapshot(scope.name, INT_KEY).getCount());
+	}
+
+
+
+	@Test
+	public void testFailedProvisioningIsNotReported() {
+		final var scope = new ContextScope<TestContext>("metricsScope", new ContextTracker<>());
+		scope.setProvisioningListener(metrics);
+		final var failingProvider = scope.scope(INT_KEY, () -> {
+			throw new IllegalStateException("test");
+		});
+		try {
+			new TestContext(scope.tracker).executeWithinSelf(failingProvider::get);
+			fail("IllegalStateException expected");
+		} catch (IllegalStateException expected) {}
+		assertEquals("failed provisioning should not be reported",
+				0L, metrics.getSnapshot(scope.name, INT_KEY).getCount());
+	}
+
+
+
+	@Test
+	public void testScopeModuleRegistersWithAllScopes() {
+		final var module = new ScopeModule() {
+			final ContextScope<TestContext> firstScope =
+					newContextScope("firstScope", TestContext.class);
+			final ContextScope<SecondTestContext> secondScope =
+					newContextScope("secondScope", SecondTestContext.class);
+		};
+		module.setProvisioningListener(metrics);
+		assertSame("listener should be registered with firstScope",
+				metrics, module.firstScope.getProvisioningListener());
+		assertSame("listener should be registered with secondScope",
+				metrics, module.secondScope.getProvisioningListener());
+	}
+}
@@ -20,6 +20,12 @@ public class ScopeModuleTests {
 
 	public static class TestModule extends ScopeModule {
 
+		public TestModule(boolean shareContextFrame) {
+			super(new ScopeModule.Options().shareContextFrame(shareContextFrame));
+		}
+
+		public TestModule() {}
+
 		public final ContextScope<TestContext> firstScope =
 				newContextScope("firstScope", TestContext.class);
 
@@ -38,7 +44,11 @@ public class ScopeModuleTests {
 
 
 
-	final TestModule testSubject = new TestModule();
+	final TestModule testSubject = createTestSubject();
+
+	protected TestModule createTestSubject() {
+		return new TestModule();
+	}
 	final ContextTracker<TestContext> firstTracker = testSubject.firstScope.tracker;
 	final ContextTracker<SecondTestContext> secondTracker = testSubject.secondScope.tracker;
 	final Injector injector = Guice.createInjector(testSubject);
@@ -135,7 +145,7 @@ public class ScopeModuleTests {
 		assertNotEquals(testContextTrackerType.hashCode(), secondTestContextTrackerType.hashCode());
 
 		final var reflectiveTestContextSetType =
-					getClass().getDeclaredField("testContextSet").getGenericType();
+					ScopeModuleTests.class.getDeclaredField("testContextSet").getGenericType();
 		assertNotEquals(testContextTrackerType, reflectiveTestContextSetType);
 		assertNotEquals(reflectiveTestContextSetType, testContextTrackerType);
 		assertNotEquals(testContextTrackerType.hashCode(), reflectiveTestContextSetType.hashCode());
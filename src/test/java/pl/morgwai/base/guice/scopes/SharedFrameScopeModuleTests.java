@@ -0,0 +1,39 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+
+
+public class SharedFrameScopeModuleTests extends ScopeModuleTests {
+
+
+
+	@Override
+	protected TestModule createTestSubject() {
+		return new TestModule(true);
+	}
+
+
+
+	@Test
+	public void testTrackersShareFrame() {
+		assertNotNull("testSubject should have a shared frameGroup",
+				testSubject.frameGroup);
+		assertSame("firstTracker should use the shared frameGroup",
+				testSubject.frameGroup, firstTracker.frameGroup);
+		assertSame("secondTracker should use the shared frameGroup",
+				testSubject.frameGroup, secondTracker.frameGroup);
+	}
+
+
+	@Test
+	public void testEventLoopFrameUsesSharedFrame() {
+		final var eventLoopFrame = testSubject.getEventLoopFrame();
+		assertSame("EventLoopFrame should use the frame of the calling Thread",
+				testSubject.frameGroup.getFrame(), eventLoopFrame.frame);
+	}
+}
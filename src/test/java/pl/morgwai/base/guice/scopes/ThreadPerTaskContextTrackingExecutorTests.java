@@ -0,0 +1,37 @@
+// Copyright 2026 Piotr Morgwai Kotarbinski, Licensed under the Apache License, Version 2.0
+package pl.morgwai.base.guice.scopes;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.Test;
+
+import static org.junit.Assert.fail;
+
+
+
+public class ThreadPerTaskContextTrackingExecutorTests extends ContextTrackingExecutorTests {
+
+
+
+	@Override
+	public void setup() {
+		testSubject = ContextTrackingExecutor.threadPerTask(
+				Executors.defaultThreadFactory(), ctxBinder);
+	}
+
+
+
+	@Test
+	public void testRejectingThreadFactory() {
+		final var rejectingSubject = ContextTrackingExecutor.threadPerTask((task) -> null, ctxBinder);
+		try {
+			rejectingSubject.execute(() -> {});
+			fail("null from threadFactory should result in RejectedExecutionException");
+		} catch (RejectedExecutionException expected) {}
+	}
+
+
+
+	@Override
+	public void shutdown() {}  // nothing to shutdown
+}
@@ -121,6 +121,29 @@ public class TrackableContextTests {
 
 
 
+	@Test
+	public void testExecutingWithinAllPropagatesCheckedExceptionAndClearsCtxs() {
+		final var thrown = new Exception("thrown");
+		try {
+			executeWithinAll(
+				allCtxs,
+				() -> {
+					assertSame("ctx2 should be active", ctx2, secondTracker.getCurrentContext());
+					throw thrown;
+				}
+			);
+			fail("Exception thrown by the task should be propagated");
+		} catch (Exception caught) {
+			assertSame("caught exception should be the same as thrown",
+					thrown, caught);
+		}
+		assertNull("ctx1 should be cleared", tracker.getCurrentContext());
+		assertNull("ctx2 should be cleared", secondTracker.getCurrentContext());
+		assertNull("ctx3 should be cleared", thirdTracker.getCurrentContext());
+	}
+
+
+
 	@Test
 	public void testExecutingRunnablePropagatesRuntimeException() {
 		final var thrown = new RuntimeException("thrown");
@@ -136,6 +159,44 @@ public class TrackableContextTests {
 
 
 
+	@Test
+	public void testDisposalIsDeferredUntilAllExecutionsExit() throws Exception {
+		testDisposalIsDeferredUntilAllExecutionsExit(new ContextTracker<>(true));
+	}
+
+	@Test
+	public void testDisposalIsDeferredUntilAllExecutionsExitWithSharedFrame() throws Exception {
+		testDisposalIsDeferredUntilAllExecutionsExit(new ContextFrame.Group().newTracker(true));
+	}
+
+	void testDisposalIsDeferredUntilAllExecutionsExit(ContextTracker<TestContext> trackingTracker)
+			throws Exception {
+		final var ctx = new TestContext(trackingTracker);
+		final var closeable = new InjectionContextTests.TestCloseable();
+		final var closeableKey = InjectionContextTests.CLOSEABLE_KEY;
+		ctx.produceIfAbsent(closeableKey, () -> closeable);
+		final var disposal = executeWithinAll(
+			List.of(ctx, ctx2),
+			() -> ctx.executeWithinSelf(
+				() -> {
+					final var pendingDisposal = ctx.close();
+					assertFalse("disposal should wait for executions within ctx",
+							pendingDisposal.isDone());
+					assertSame("ctx should still provide closeable until all executions exit",
+							closeable, ctx.produceIfAbsent(closeableKey, () -> null));
+					return pendingDisposal;
+				}
+			)
+		);
+		assertTrue("disposal should be performed after the last execution exits",
+				disposal.isDone());
+		disposal.get();
+		assertEquals("closeable should be closed",
+				1, closeable.closeCount);
+	}
+
+
+
 	@Test
 	public void testSetTracker() {
 		final var ctx = new TestContext(null);
@@ -149,4 +210,46 @@ public class TrackableContextTests {
 			fail("resetting tracker should throw an IllegalStateException");
 		} catch (IllegalStateException expected) {}
 	}
+
+
+	@Test
+	public void testNestedExecuteWithinSelfRestoresOuterCtx() {
+		final var otherCtx = new TestContext(tracker);
+		ctx1.executeWithinSelf(() -> {
+			ctx1.executeWithinSelf(() -> assertSame("ctx1 should remain current when re-entered",
+					ctx1, tracker.getCurrentContext()));
+			assertSame("re-entering ctx1 should not clear it",
+					ctx1, tracker.getCurrentContext());
+			otherCtx.executeWithinSelf(() -> assertSame("otherCtx should be current when entered",
+					otherCtx, tracker.getCurrentContext()));
+			assertSame("ctx1 should be restored after otherCtx exits",
+					ctx1, tracker.getCurrentContext());
+		});
+		assertNull("ctx1 should be cleared at the end",
+				tracker.getCurrentContext());
+	}
+
+
+
+	@Test
+	public void testNestedExecuteWithinAllRestoresOuterCtxs() {
+		final var otherCtx = new TestContext(tracker);
+		final List<TrackableContext<?>> overlappingCtxs = List.of(otherCtx, ctx2);
+		executeWithinAll(List.of(ctx1, ctx2), () -> {
+			executeWithinAll(overlappingCtxs, () -> {
+				assertSame("otherCtx should be current",
+						otherCtx, tracker.getCurrentContext());
+				assertSame("ctx2 should remain current",
+						ctx2, secondTracker.getCurrentContext());
+			});
+			assertSame("ctx1 should be restored",
+					ctx1, tracker.getCurrentContext());
+			assertSame("ctx2 should not be cleared",
+					ctx2, secondTracker.getCurrentContext());
+		});
+		assertNull("ctx1 should be cleared at the end",
+				tracker.getCurrentContext());
+		assertNull("ctx2 should be cleared at the end",
+				secondTracker.getCurrentContext());
+	}
 }